@@ -28,6 +28,7 @@ import org.metaborg.core.config.LanguageComponentConfigService;
 import org.metaborg.core.config.ProjectConfigBuilder;
 import org.metaborg.core.config.ProjectConfigService;
 import org.metaborg.core.config.YamlConfigurationReaderWriter;
+import org.metaborg.core.context.ContextCacheConfiguration;
 import org.metaborg.core.context.ContextService;
 import org.metaborg.core.context.IContextFactory;
 import org.metaborg.core.context.IContextProcessor;
@@ -61,6 +62,8 @@ import org.metaborg.core.project.ISimpleProjectService;
 import org.metaborg.core.project.SimpleProjectService;
 import org.metaborg.core.resource.DefaultFileSystemManagerProvider;
 import org.metaborg.core.resource.IResourceService;
+import org.metaborg.core.resource.ReplicaCache;
+import org.metaborg.core.resource.ReplicaCacheConfiguration;
 import org.metaborg.core.resource.ResourceService;
 import org.metaborg.core.source.ISourceTextService;
 import org.metaborg.core.source.SourceTextService;
@@ -140,6 +143,8 @@ public class MetaborgModule extends AbstractModule {
         bind(IResourceService.class).to(ResourceService.class);
         // Close the resource service late, so that other services can first close their resource handles.
         lateAutoClosableBinder.addBinding().to(ResourceService.class);
+        bind(ReplicaCacheConfiguration.class).toInstance(new ReplicaCacheConfiguration());
+        bind(ReplicaCache.class).in(Singleton.class);
 
         bind(FileSystemManager.class).toProvider(DefaultFileSystemManagerProvider.class).in(Singleton.class);
     }
@@ -159,9 +164,11 @@ public class MetaborgModule extends AbstractModule {
     }
 
     protected void bindContext() {
+        bind(ContextCacheConfiguration.class).toInstance(new ContextCacheConfiguration());
         bind(ContextService.class).in(Singleton.class);
         bind(IContextService.class).to(ContextService.class);
         bind(IContextProcessor.class).to(ContextService.class);
+        autoClosableBinder.addBinding().to(ContextService.class);
     }
 
     protected void bindContextFactories(@SuppressWarnings("unused") MapBinder<String, IContextFactory> binder) {
@@ -52,6 +52,18 @@ public class BuildInput {
     public final @Nullable FileSelector selector;
 
 
+    /**
+     * Maximum number of worker threads used to parse sources of a language, or 1 to parse sequentially.
+     */
+    public final int parseWorkers;
+
+    /**
+     * Maximum number of worker threads used to transform sources of a language, or 1 to transform sequentially. Only
+     * used for languages that allow parallel transformation in their configuration.
+     */
+    public final int transformWorkers;
+
+
     /**
      * If analysis is enabled.
      */
@@ -100,12 +112,33 @@ public class BuildInput {
         boolean analyze, @Nullable FileSelector analyzeSelector, boolean transform,
         @Nullable FileSelector transformSelector, Iterable<ITransformGoal> transformGoals,
         @Nullable IMessagePrinter messagePrinter, boolean throwOnErrors, Set<ILanguageImpl> pardonedLanguages) {
+        this(state, project, resourceChanges, includePaths, buildOrder, parseSelector, 1, analyze, analyzeSelector,
+            transform, transformSelector, transformGoals, messagePrinter, throwOnErrors, pardonedLanguages);
+    }
+
+    public BuildInput(BuildState state, IProject project, Iterable<ResourceChange> resourceChanges,
+        Multimap<ILanguageImpl, FileObject> includePaths, BuildOrder buildOrder, @Nullable FileSelector parseSelector,
+        int parseWorkers, boolean analyze, @Nullable FileSelector analyzeSelector, boolean transform,
+        @Nullable FileSelector transformSelector, Iterable<ITransformGoal> transformGoals,
+        @Nullable IMessagePrinter messagePrinter, boolean throwOnErrors, Set<ILanguageImpl> pardonedLanguages) {
+        this(state, project, resourceChanges, includePaths, buildOrder, parseSelector, parseWorkers, 1, analyze,
+            analyzeSelector, transform, transformSelector, transformGoals, messagePrinter, throwOnErrors,
+            pardonedLanguages);
+    }
+
+    public BuildInput(BuildState state, IProject project, Iterable<ResourceChange> resourceChanges,
+        Multimap<ILanguageImpl, FileObject> includePaths, BuildOrder buildOrder, @Nullable FileSelector parseSelector,
+        int parseWorkers, int transformWorkers, boolean analyze, @Nullable FileSelector analyzeSelector,
+        boolean transform, @Nullable FileSelector transformSelector, Iterable<ITransformGoal> transformGoals,
+        @Nullable IMessagePrinter messagePrinter, boolean throwOnErrors, Set<ILanguageImpl> pardonedLanguages) {
         this.state = state;
         this.project = project;
         this.sourceChanges = resourceChanges;
         this.includePaths = includePaths;
         this.buildOrder = buildOrder;
         this.selector = parseSelector;
+        this.parseWorkers = parseWorkers;
+        this.transformWorkers = transformWorkers;
         this.analyze = analyze;
         this.analyzeSelector = analyzeSelector;
         this.transform = transform;
@@ -47,6 +47,8 @@ public class BuildInputBuilder {
     private boolean addSourcesFromDefaultSourceLocations;
 
     private @Nullable FileSelector selector;
+    private int parseWorkers;
+    private int transformWorkers;
 
     private boolean analyze;
     private @Nullable FileSelector analyzeSelector;
@@ -79,6 +81,8 @@ public class BuildInputBuilder {
         sourceChanges = Lists.newLinkedList();
         addSourcesFromDefaultSourceLocations = false;
         selector = null;
+        parseWorkers = 1;
+        transformWorkers = 1;
         analyze = true;
         analyzeSelector = null;
         transform = true;
@@ -285,6 +289,24 @@ public class BuildInputBuilder {
     }
 
 
+    /**
+     * Sets the maximum number of worker threads used to parse sources. Defaults to 1, which parses sequentially.
+     */
+    public BuildInputBuilder withParseWorkers(int parseWorkers) {
+        this.parseWorkers = parseWorkers;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of worker threads used to transform sources of languages that allow parallel
+     * transformation. Defaults to 1, which transforms sequentially.
+     */
+    public BuildInputBuilder withTransformWorkers(int transformWorkers) {
+        this.transformWorkers = transformWorkers;
+        return this;
+    }
+
+
     /**
      * Sets if analysis should be executed. Defaults to true.
      */
@@ -422,7 +444,7 @@ public class BuildInputBuilder {
         }
 
         return new BuildInput(state, this.project, sourceChanges, includePaths, new BuildOrder(languages), selector,
-            analyze, analyzeSelector, transform, transformSelector, transformGoals, messagePrinter, throwOnErrors,
-            pardonedLanguages);
+            parseWorkers, transformWorkers, analyze, analyzeSelector, transform, transformSelector, transformGoals,
+            messagePrinter, throwOnErrors, pardonedLanguages);
     }
 }
@@ -2,8 +2,13 @@ package org.metaborg.core.build;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
 
 import javax.annotation.Nullable;
 
@@ -23,6 +28,7 @@ import org.metaborg.core.context.ContextException;
 import org.metaborg.core.context.ContextUtils;
 import org.metaborg.core.context.IContext;
 import org.metaborg.core.context.IContextService;
+import org.metaborg.core.language.ILanguageComponent;
 import org.metaborg.core.language.ILanguageIdentifierService;
 import org.metaborg.core.language.ILanguageImpl;
 import org.metaborg.core.language.IdentifiedResource;
@@ -32,6 +38,7 @@ import org.metaborg.core.messages.IMessagePrinter;
 import org.metaborg.core.messages.MessageFactory;
 import org.metaborg.core.messages.MessageSeverity;
 import org.metaborg.core.messages.MessageUtils;
+import org.metaborg.core.processing.ParallelUtils;
 import org.metaborg.core.processing.analyze.IAnalysisResultUpdater;
 import org.metaborg.core.processing.parse.IParseResultUpdater;
 import org.metaborg.core.resource.IResourceService;
@@ -48,6 +55,7 @@ import org.metaborg.core.transform.ITransformOutput;
 import org.metaborg.core.transform.ITransformService;
 import org.metaborg.core.transform.ITransformUnit;
 import org.metaborg.core.transform.TransformException;
+import org.metaborg.core.unit.IUnit;
 import org.metaborg.core.unit.IUnitService;
 import org.metaborg.util.RefBool;
 import org.metaborg.util.concurrent.IClosableLock;
@@ -57,6 +65,7 @@ import org.metaborg.util.log.LoggerUtils;
 import org.metaborg.util.resource.FileSelectorUtils;
 import org.metaborg.util.task.ICancel;
 import org.metaborg.util.task.IProgress;
+import org.metaborg.util.task.NullProgress;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Iterables;
@@ -316,6 +325,12 @@ public class Builder<I extends IInputUnit, P extends IParseUnit, A extends IAnal
         progress.setDescription("Parsing " + size + " file(s) of " + langImpl.belongsTo().name());
         logger.debug("Parsing {} resources", size);
 
+        if(input.parseWorkers > 1 && size > 1) {
+            parseParallel(input, langImpl, changes, size, pardoned, allParseUnits, changedResources, removedResources,
+                extraMessages, success, progress, cancel);
+            return allParseUnits;
+        }
+
         for(IdentifiedResourceChange identifiedChange : changes) {
             cancel.throwIfCancelled();
             final ResourceChange change = identifiedChange.change;
@@ -325,48 +340,129 @@ public class Builder<I extends IInputUnit, P extends IParseUnit, A extends IAnal
 
             try {
                 if(changeKind == ResourceChangeKind.Delete) {
-                    parseResultUpdater.remove(resource);
-                    removedResources.add(resource.getName());
-                    // LEGACY: add empty parse result, to indicate to analysis that this resource was
-                    // removed. There is special handling in updating the analysis result processor, the marker
-                    // updater, and the compiler, to exclude removed resources.
-                    final I inputUnit = unitService.emptyInputUnit(resource, langImpl, dialect);
-                    final P emptyParseResult = unitService.emptyParseUnit(inputUnit);
-                    allParseUnits.add(emptyParseResult);
-                    // Don't add resource as changed when it has been deleted, because it does not exist any more.
+                    parseRemoved(resource, langImpl, dialect, allParseUnits, removedResources);
                     progress.work(1);
                 } else {
                     final String sourceText = sourceTextService.text(resource);
                     parseResultUpdater.invalidate(resource);
                     final I inputUnit = unitService.inputUnit(resource, sourceText, langImpl, dialect);
                     final P parseResult = syntaxService.parse(inputUnit, progress.subProgress(1), cancel);
-                    final boolean noErrors = printMessages(parseResult.messages(), "Parsing", input, pardoned);
-                    success.and(noErrors);
-                    allParseUnits.add(parseResult);
-                    parseResultUpdater.update(resource, parseResult);
-                    changedResources.add(resource);
+                    parseSucceeded(input, resource, parseResult, pardoned, allParseUnits, changedResources, success);
                 }
             } catch(ParseException e) {
-                final String message = logger.format("Parsing {} failed unexpectedly", resource);
-                final boolean noErrors = printMessage(resource, message, e, input, pardoned);
-                success.and(noErrors);
-                parseResultUpdater.error(resource, e);
-                extraMessages.add(MessageFactory.newParseErrorAtTop(resource, "Parsing failed unexpectedly", e));
-                changedResources.add(resource);
+                parseFailed(input, resource, e, pardoned, changedResources, extraMessages, success);
             } catch(IOException e) {
-                final String message = logger.format("Getting source text for {} failed unexpectedly", resource);
-                final boolean noErrors = printMessage(resource, message, e, input, pardoned);
-                success.and(noErrors);
-                final I inputUnit = unitService.emptyInputUnit(resource, langImpl, dialect);
-                parseResultUpdater.error(resource, new ParseException(inputUnit, e));
-                extraMessages
-                    .add(MessageFactory.newParseErrorAtTop(resource, "Getting source text failed unexpectedly", e));
-                changedResources.add(resource);
+                sourceTextFailed(input, resource, langImpl, dialect, e, pardoned, changedResources, extraMessages,
+                    success);
             }
         }
         return allParseUnits;
     }
 
+    private void parseParallel(BuildInput input, ILanguageImpl langImpl, Iterable<IdentifiedResourceChange> changes,
+        int size, boolean pardoned, Collection<P> allParseUnits, Collection<FileObject> changedResources,
+        Set<FileName> removedResources, Collection<IMessage> extraMessages, RefBool success, IProgress progress,
+        ICancel cancel) throws InterruptedException {
+        final ExecutorService executor =
+            ParallelUtils.newExecutor(Math.min(input.parseWorkers, size), "parse-worker");
+        try {
+            // Submit all parse jobs first. Deleted resources are not parsed, and get a null future.
+            final List<Future<P>> futures = Lists.newArrayListWithCapacity(size);
+            for(IdentifiedResourceChange identifiedChange : changes) {
+                cancel.throwIfCancelled();
+                final FileObject resource = identifiedChange.change.resource;
+                final ILanguageImpl dialect = identifiedChange.dialect;
+                if(identifiedChange.change.kind == ResourceChangeKind.Delete) {
+                    futures.add(null);
+                } else {
+                    parseResultUpdater.invalidate(resource);
+                    futures.add(executor.submit(() -> {
+                        cancel.throwIfCancelled();
+                        final String sourceText = sourceTextService.text(resource);
+                        final I inputUnit = unitService.inputUnit(resource, sourceText, langImpl, dialect);
+                        return syntaxService.parse(inputUnit, new NullProgress(), cancel);
+                    }));
+                }
+            }
+
+            // Process results in the order of the changes, such that results and notifications are deterministic.
+            int i = 0;
+            for(IdentifiedResourceChange identifiedChange : changes) {
+                final Future<P> future = futures.get(i++);
+                final FileObject resource = identifiedChange.change.resource;
+                final ILanguageImpl dialect = identifiedChange.dialect;
+                if(future == null) {
+                    parseRemoved(resource, langImpl, dialect, allParseUnits, removedResources);
+                    progress.work(1);
+                    continue;
+                }
+
+                try {
+                    final P parseResult = ParallelUtils.await(future, cancel);
+                    parseSucceeded(input, resource, parseResult, pardoned, allParseUnits, changedResources, success);
+                } catch(ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if(cause instanceof ParseException) {
+                        parseFailed(input, resource, (ParseException) cause, pardoned, changedResources,
+                            extraMessages, success);
+                    } else if(cause instanceof IOException) {
+                        sourceTextFailed(input, resource, langImpl, dialect, (IOException) cause, pardoned,
+                            changedResources, extraMessages, success);
+                    } else {
+                        throw ParallelUtils.rethrow(cause);
+                    }
+                }
+                progress.work(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void parseRemoved(FileObject resource, ILanguageImpl langImpl, @Nullable ILanguageImpl dialect,
+        Collection<P> allParseUnits, Set<FileName> removedResources) {
+        parseResultUpdater.remove(resource);
+        removedResources.add(resource.getName());
+        // LEGACY: add empty parse result, to indicate to analysis that this resource was
+        // removed. There is special handling in updating the analysis result processor, the marker
+        // updater, and the compiler, to exclude removed resources.
+        final I inputUnit = unitService.emptyInputUnit(resource, langImpl, dialect);
+        final P emptyParseResult = unitService.emptyParseUnit(inputUnit);
+        allParseUnits.add(emptyParseResult);
+        // Don't add resource as changed when it has been deleted, because it does not exist any more.
+    }
+
+    private void parseSucceeded(BuildInput input, FileObject resource, P parseResult, boolean pardoned,
+        Collection<P> allParseUnits, Collection<FileObject> changedResources, RefBool success) {
+        final boolean noErrors = printMessages(parseResult.messages(), "Parsing", input, pardoned);
+        success.and(noErrors);
+        allParseUnits.add(parseResult);
+        parseResultUpdater.update(resource, parseResult);
+        changedResources.add(resource);
+    }
+
+    private void parseFailed(BuildInput input, FileObject resource, ParseException e, boolean pardoned,
+        Collection<FileObject> changedResources, Collection<IMessage> extraMessages, RefBool success) {
+        final String message = logger.format("Parsing {} failed unexpectedly", resource);
+        final boolean noErrors = printMessage(resource, message, e, input, pardoned);
+        success.and(noErrors);
+        parseResultUpdater.error(resource, e);
+        extraMessages.add(MessageFactory.newParseErrorAtTop(resource, "Parsing failed unexpectedly", e));
+        changedResources.add(resource);
+    }
+
+    private void sourceTextFailed(BuildInput input, FileObject resource, ILanguageImpl langImpl,
+        @Nullable ILanguageImpl dialect, IOException e, boolean pardoned, Collection<FileObject> changedResources,
+        Collection<IMessage> extraMessages, RefBool success) {
+        final String message = logger.format("Getting source text for {} failed unexpectedly", resource);
+        final boolean noErrors = printMessage(resource, message, e, input, pardoned);
+        success.and(noErrors);
+        final I inputUnit = unitService.emptyInputUnit(resource, langImpl, dialect);
+        parseResultUpdater.error(resource, new ParseException(inputUnit, e));
+        extraMessages.add(MessageFactory.newParseErrorAtTop(resource, "Getting source text failed unexpectedly", e));
+        changedResources.add(resource);
+    }
+
     private Multimap<IContext, A> analyze(BuildInput input, ILanguageImpl langImpl, FileObject location,
         Multimap<IContext, P> sourceParseUnits, Iterable<P> includeParseUnits, boolean pardoned,
         Collection<AU> analyzeUpdates, Set<FileName> removedResources, Collection<IMessage> extraMessages,
@@ -468,6 +564,18 @@ public class Builder<I extends IInputUnit, P extends IParseUnit, A extends IAnal
                     }
 
                     try(IClosableLock lock = context.read()) {
+                        if(parallelTransform(input, context, analysisResults)) {
+                            // Workers transform while this thread holds the read lock. The lock is shared with them,
+                            // since their reads would otherwise queue behind a waiting writer, which in turn waits for
+                            // this thread to release the lock.
+                            try(IClosableLock sharedLock = context.shareRead()) {
+                                transformParallel(input, location, goal, analysisResults, IAnalyzeUnit::valid,
+                                    analysisResult -> transformService.transform(analysisResult, context, goal),
+                                    includeFiles, pardoned, removedResources, allTransformUnits, extraMessages,
+                                    success, transformProgress, cancel);
+                            }
+                            continue;
+                        }
                         for(A analysisResult : analysisResults) {
                             cancel.throwIfCancelled();
 
@@ -529,6 +637,14 @@ public class Builder<I extends IInputUnit, P extends IParseUnit, A extends IAnal
                         continue;
                     }
 
+                    if(parallelTransform(input, context, parseResults)) {
+                        transformParallel(input, location, goal, parseResults, IParseUnit::valid,
+                            parseResult -> transformService.transform(parseResult, context, goal), includeFiles,
+                            pardoned, removedResources, allTransformUnits, extraMessages, success, transformProgress,
+                            cancel);
+                        continue;
+                    }
+
                     for(P parseResult : parseResults) {
                         cancel.throwIfCancelled();
 
@@ -576,6 +692,90 @@ public class Builder<I extends IInputUnit, P extends IParseUnit, A extends IAnal
         return allTransformUnits;
     }
 
+    private boolean parallelTransform(BuildInput input, IContext context, Collection<?> units) {
+        if(input.transformWorkers <= 1 || units.size() <= 1) {
+            return false;
+        }
+        for(ILanguageComponent component : context.language().components()) {
+            if(component.config().parallelTransform()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Transforms given units on worker threads, and collects the results in the order of the units.
+     */
+    private <U extends IUnit, R extends ITransformUnit<?>> void transformParallel(BuildInput input,
+        FileObject location, ITransformGoal goal, Collection<U> units, Predicate<U> valid,
+        ITransformFunction<U, R> transformer, Set<FileName> includeFiles, boolean pardoned,
+        Set<FileName> removedResources, Collection<T> allTransformUnits, Collection<IMessage> extraMessages,
+        RefBool success, IProgress progress, ICancel cancel) throws InterruptedException {
+        final ExecutorService executor =
+            ParallelUtils.newExecutor(Math.min(input.transformWorkers, units.size()), "transform-worker");
+        try {
+            // Submit all transformations first. Skipped units get a null future.
+            final List<Future<Collection<R>>> futures = Lists.newArrayListWithCapacity(units.size());
+            for(U unit : units) {
+                cancel.throwIfCancelled();
+                final FileObject source = unit.source();
+                final FileName name = source != null ? source.getName() : null;
+                if(name != null && (removedResources.contains(name) || includeFiles.contains(name))) {
+                    futures.add(null);
+                } else if(!valid.test(unit)) {
+                    logger.warn("Input result for {} is invalid, cannot transform it",
+                        name != null ? name.getPath() : "detached source");
+                    futures.add(null);
+                } else {
+                    futures.add(executor.submit(() -> {
+                        cancel.throwIfCancelled();
+                        return transformer.transform(unit);
+                    }));
+                }
+            }
+
+            int i = 0;
+            for(U unit : units) {
+                final Future<Collection<R>> future = futures.get(i++);
+                if(future == null) {
+                    progress.work(1);
+                    continue;
+                }
+
+                final FileObject source = unit.source();
+                try {
+                    for(R result : ParallelUtils.await(future, cancel)) {
+                        final boolean noErrors =
+                            printMessages(result.messages(), goal + " transformation", input, pardoned);
+                        success.and(noErrors);
+                        @SuppressWarnings("unchecked") final T genericResult = (T) result;
+                        allTransformUnits.add(genericResult);
+                    }
+                    progress.work(1);
+                } catch(ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if(!(cause instanceof TransformException)) {
+                        throw ParallelUtils.rethrow(cause);
+                    }
+                    final String message = String.format("Transformation failed unexpectedly for %s",
+                        source != null ? source.getName() : "detached source");
+                    logger.error(message, cause);
+                    final boolean noErrors = printMessage(source, message, cause, input, pardoned);
+                    success.and(noErrors);
+                    extraMessages.add(
+                        MessageFactory.newBuilderErrorAtTop(location, "Transformation failed unexpectedly", cause));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface private interface ITransformFunction<U, R> {
+        Collection<R> transform(U unit) throws TransformException;
+    }
+
     private boolean printMessages(Iterable<IMessage> messages, String phase, BuildInput input, boolean pardoned) {
         final IMessagePrinter printer = input.messagePrinter;
         if(printer != null) {
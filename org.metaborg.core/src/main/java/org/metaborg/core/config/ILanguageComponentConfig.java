@@ -104,6 +104,22 @@ public interface ILanguageComponentConfig extends IProjectConfig {
      */
     boolean statixConcurrentComponent();
 
+    /**
+     * Gets whether the transformations of this language are independent per file, such that the builder may run them
+     * in parallel.
+     * 
+     * @return true if transformations may run in parallel.
+     */
+    boolean parallelTransform();
+
+    /**
+     * Gets whether the multi-file analysis strategy of this language accepts only the added, changed, and removed
+     * files, and retrieves the analyses of unchanged files from the context when it needs them.
+     * 
+     * @return true if only changed files are passed to the analysis strategy.
+     */
+    boolean deltaAnalysis();
+
     /**
      * Gets the file exports.
      *
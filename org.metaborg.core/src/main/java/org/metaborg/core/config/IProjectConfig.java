@@ -2,6 +2,8 @@ package org.metaborg.core.config;
 
 import java.util.Collection;
 
+import javax.annotation.Nullable;
+
 import org.metaborg.core.language.LanguageIdentifier;
 
 public interface IProjectConfig {
@@ -32,4 +34,10 @@ public interface IProjectConfig {
      */
     Collection<LanguageIdentifier> javaDeps();
 
+    /**
+     * @return Name of the character encoding of source and output files, or null to detect the encoding of source files
+     *         or use the platform default encoding, and write output files with {@link ProjectConfig#DEFAULT_ENCODING}.
+     */
+    @Nullable String encoding();
+
 }
\ No newline at end of file
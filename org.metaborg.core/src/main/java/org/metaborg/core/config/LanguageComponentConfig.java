@@ -43,6 +43,9 @@ public class LanguageComponentConfig extends AConfig implements ILanguageCompone
     private static final String PROP_STATIX = PROP_LANGUAGE + ".statix";
     private static final String PROP_STATIX_CONCURRENT = PROP_STATIX + ".concurrent";
 
+    private static final String PROP_TRANSFORM_PARALLEL = PROP_LANGUAGE + ".transform.parallel";
+    private static final String PROP_ANALYSIS_DELTA = PROP_LANGUAGE + ".analysis.delta";
+
     private final ProjectConfig projectConfig;
 
     private static final ILogger logger = LoggerUtils.logger(LanguageComponentConfig.class);
@@ -133,6 +136,10 @@ public class LanguageComponentConfig extends AConfig implements ILanguageCompone
         return projectConfig.javaDeps();
     }
 
+    @Override public @Nullable String encoding() {
+        return projectConfig.encoding();
+    }
+
 
     @Override public LanguageIdentifier identifier() {
         return config.get(LanguageIdentifier.class, PROP_IDENTIFIER);
@@ -292,4 +299,12 @@ public class LanguageComponentConfig extends AConfig implements ILanguageCompone
         return config.getBoolean(PROP_STATIX_CONCURRENT, false);
     }
 
+    @Override public boolean parallelTransform() {
+        return config.getBoolean(PROP_TRANSFORM_PARALLEL, false);
+    }
+
+    @Override public boolean deltaAnalysis() {
+        return config.getBoolean(PROP_ANALYSIS_DELTA, false);
+    }
+
 }
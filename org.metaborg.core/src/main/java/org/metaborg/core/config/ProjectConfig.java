@@ -1,5 +1,8 @@
 package org.metaborg.core.config;
 
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -21,6 +24,12 @@ import com.google.common.collect.Lists;
  * {@link ImmutableConfiguration} object.
  */
 public class ProjectConfig extends AConfig implements IProjectConfig, IConfig {
+    /**
+     * Encoding of output files of projects that do not configure an {@link #encoding()}. Source files of those projects
+     * are read with the platform default encoding, unless they start with a byte order mark.
+     */
+    public static final Charset DEFAULT_ENCODING = StandardCharsets.UTF_8;
+
     private static final String PROP_METABORG_VERSION = "metaborgVersion";
 
     private static final String PROP_SOURCES = "sources";
@@ -30,6 +39,8 @@ public class ProjectConfig extends AConfig implements IProjectConfig, IConfig {
     private static final String PROP_SOURCE_DEPENDENCIES = PROP_DEPENDENCIES + ".source";
     private static final String PROP_JAVA_DEPENDENCIES = PROP_DEPENDENCIES + ".java";
 
+    private static final String PROP_ENCODING = "encoding";
+
     public ProjectConfig(HierarchicalConfiguration<ImmutableNode> config) {
         super(config);
 
@@ -96,15 +107,31 @@ public class ProjectConfig extends AConfig implements IProjectConfig, IConfig {
                 Collections.<LanguageIdentifier>emptyList());
     }
 
+    @Override public @Nullable String encoding() {
+        return config.getString(PROP_ENCODING, null);
+    }
+
 
     public Collection<IMessage> validate(MessageBuilder mb) {
         final Collection<IMessage> messages = Lists.newArrayList();
         validateDeps(config, PROP_COMPILE_DEPENDENCIES, "compile", mb, messages);
         validateDeps(config, PROP_SOURCE_DEPENDENCIES, "source", mb, messages);
         validateDeps(config, PROP_JAVA_DEPENDENCIES, "java", mb, messages);
+        final String encoding = encoding();
+        if(encoding != null && !isSupportedCharset(encoding)) {
+            messages.add(mb.withMessage("Unsupported encoding " + encoding).build());
+        }
         return messages;
     }
 
+    private static boolean isSupportedCharset(String encoding) {
+        try {
+            return Charset.isSupported(encoding);
+        } catch(IllegalCharsetNameException e) {
+            return false;
+        }
+    }
+
     private static void validateDeps(ImmutableConfiguration config, String key, String name, MessageBuilder mb,
             Collection<IMessage> messages) {
         final List<String> depStrs = config.getList(String.class, key, Lists.<String>newArrayList());
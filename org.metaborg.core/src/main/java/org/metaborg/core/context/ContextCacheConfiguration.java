@@ -0,0 +1,23 @@
+package org.metaborg.core.context;
+
+/**
+ * Configuration for the contexts that {@link ContextService} keeps loaded in memory.
+ */
+public class ContextCacheConfiguration {
+    public static final int defaultMaxLoadedContexts = 0;
+
+    /**
+     * Maximum number of contexts that are kept loaded. When more contexts are used, the least recently used contexts
+     * are persisted and unloaded, and are loaded again when they are used next. Contexts are never unloaded when this
+     * is 0.
+     */
+    public final int maxLoadedContexts;
+
+    public ContextCacheConfiguration() {
+        this(defaultMaxLoadedContexts);
+    }
+
+    public ContextCacheConfiguration(int maxLoadedContexts) {
+        this.maxLoadedContexts = maxLoadedContexts;
+    }
+}
@@ -1,7 +1,12 @@
 package org.metaborg.core.context;
 
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.commons.vfs2.FileObject;
 import org.metaborg.core.language.ILanguageImpl;
@@ -11,23 +16,51 @@ import org.metaborg.util.log.ILogger;
 import org.metaborg.util.log.LoggerUtils;
 
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
 
-public class ContextService implements IContextService, IContextProcessor {
+public class ContextService implements IContextService, IContextProcessor, AutoCloseable {
     private static final ILogger logger = LoggerUtils.logger(ContextService.class);
 
     private final Injector injector;
+    private final ContextCacheConfiguration cacheConfig;
 
     private final ConcurrentMap<ContextIdentifier, IContextInternal> idToContext = Maps.newConcurrentMap();
     private final ConcurrentMap<ILanguageImpl, ContextIdentifier> langToContextId = Maps.newConcurrentMap();
     private final Multimap<ILanguageImpl, ContextIdentifier> langToDownstreamContextIds = Multimaps.synchronizedMultimap(HashMultimap.create());
+    // Loaded contexts, in order of last use. Guarded by itself.
+    private final LinkedHashMap<ContextIdentifier, IContextInternal> recentlyUsed =
+        new LinkedHashMap<>(16, 0.75f, true);
+    private final ExecutorService evictor;
+
+    @Inject public ContextService(Injector injector, ContextCacheConfiguration cacheConfig) {
+        this(injector, cacheConfig, Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "context-evictor");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
 
-    @Inject public ContextService(Injector injector) {
+    /**
+     * Creates a context service that persists and unloads least recently used contexts on given executor, which is
+     * shut down when this service is closed.
+     */
+    public ContextService(Injector injector, ContextCacheConfiguration cacheConfig, ExecutorService evictor) {
         this.injector = injector;
+        this.cacheConfig = cacheConfig;
+        this.evictor = evictor;
+    }
+
+    @Override public void close() {
+        // Pending evictions are dropped; their contexts stay loaded, so no state is lost.
+        evictor.shutdownNow();
+        synchronized(recentlyUsed) {
+            recentlyUsed.clear();
+        }
     }
 
 
@@ -36,7 +69,9 @@ public class ContextService implements IContextService, IContextProcessor {
         if(available(language)) {
             final ContextFacet facet = getFacet(resource, language);
             final ContextIdentifier identifier = facet.strategy.get(resource, project, language);
-            return getOrCreate(facet.factory, identifier);
+            final IContextInternal context = getOrCreate(facet.factory, identifier);
+            used(context);
+            return context;
         } else {
             return createNullContext(project, language);
         }
@@ -64,6 +99,7 @@ public class ContextService implements IContextService, IContextProcessor {
         final IContextInternal contextInternal = (IContextInternal) context;
         contextInternal.unload();
         final ContextIdentifier identifier = contextInternal.identifier();
+        forget(identifier);
         idToContext.remove(identifier);
         langToContextId.remove(identifier.language);
     }
@@ -73,6 +109,7 @@ public class ContextService implements IContextService, IContextProcessor {
             case Remove:
                 final ContextIdentifier removedId = langToContextId.remove(change.impl);
                 if(removedId != null) {
+                    forget(removedId);
                     final IContextInternal removed = idToContext.remove(removedId);
                     if(removed != null) {
                         removed.unload();
@@ -82,6 +119,7 @@ public class ContextService implements IContextService, IContextProcessor {
                 break;
             case Reload:
                 for(ContextIdentifier reloadedId : langToDownstreamContextIds.get(change.impl)) {
+                    forget(reloadedId);
                     final IContextInternal reloaded = idToContext.remove(reloadedId);
                     if(reloaded != null) {
                         try {
@@ -99,6 +137,68 @@ public class ContextService implements IContextService, IContextProcessor {
     }
 
 
+    /**
+     * Marks given context as most recently used, and unloads the least recently used contexts when more contexts are
+     * loaded than configured. Contexts are persisted and unloaded on the evictor, such that callers do not wait for
+     * persisting.
+     */
+    private void used(IContextInternal context) {
+        final int maxLoadedContexts = cacheConfig.maxLoadedContexts;
+        if(maxLoadedContexts <= 0) {
+            return;
+        }
+        final List<IContextInternal> evicted = Lists.newArrayList();
+        synchronized(recentlyUsed) {
+            recentlyUsed.put(context.identifier(), context);
+            final Iterator<IContextInternal> iterator = recentlyUsed.values().iterator();
+            while(recentlyUsed.size() - evicted.size() > maxLoadedContexts && iterator.hasNext()) {
+                evicted.add(iterator.next());
+            }
+            for(IContextInternal evictedContext : evicted) {
+                recentlyUsed.remove(evictedContext.identifier());
+            }
+        }
+        for(IContextInternal evictedContext : evicted) {
+            evictor.execute(() -> evict(evictedContext));
+        }
+    }
+
+    private void evict(IContextInternal context) {
+        final ContextIdentifier identifier = context.identifier();
+        try {
+            // Persisting and unloading happen under the write lock of the context, such that no concurrent changes
+            // are lost, and the context is only unloaded if it was not used again since it was selected. Contexts that
+            // are locked, for example by a long build, are skipped instead of waited for.
+            if(context.persistAndUnload(() -> !recentlyUsed(identifier))) {
+                logger.debug("Unloaded least recently used {}", context);
+                return;
+            }
+        } catch(IOException e) {
+            // The context is not unloaded when it could not be persisted, since that would lose its state.
+            logger.warn("Persisting {} failed, not unloading it", e, context);
+        }
+        // Keep tracking a context that is still loaded, such that it is unloaded when more contexts are used later.
+        // Other contexts are not evicted in its place, which would unload all contexts in turn while it is locked.
+        synchronized(recentlyUsed) {
+            if(idToContext.get(identifier) == context) {
+                recentlyUsed.putIfAbsent(identifier, context);
+            }
+        }
+    }
+
+    private boolean recentlyUsed(ContextIdentifier identifier) {
+        synchronized(recentlyUsed) {
+            return recentlyUsed.containsKey(identifier);
+        }
+    }
+
+    private void forget(ContextIdentifier identifier) {
+        synchronized(recentlyUsed) {
+            recentlyUsed.remove(identifier);
+        }
+    }
+
+
     private boolean available(ILanguageImpl language) {
         final ContextFacet facet = language.facet(ContextFacet.class);
         return facet != null;
@@ -6,6 +6,7 @@ import org.apache.commons.vfs2.FileObject;
 import org.metaborg.core.language.ILanguageImpl;
 import org.metaborg.core.project.IProject;
 import org.metaborg.util.concurrent.IClosableLock;
+import org.metaborg.util.concurrent.NullClosableLock;
 
 import com.google.inject.Injector;
 
@@ -50,6 +51,18 @@ public interface IContext {
      */
     IClosableLock write();
 
+    /**
+     * Shares the read lock that the calling thread holds with other threads, until the returned lock is closed. While it
+     * is shared, {@link #read()} does not wait for the lock, such that work which the calling thread hands off to other
+     * threads and waits for, cannot queue behind a waiting writer. Must be called while holding the read lock. Closing
+     * the returned lock waits until all reads that started while sharing are done.
+     * 
+     * @return Closable lock which ends sharing when closed.
+     */
+    default IClosableLock shareRead() {
+        return new NullClosableLock();
+    }
+
     
     /**
      * Persist context data from memory to permanent storing. Acquires a read lock. Can be called while holding the
@@ -1,5 +1,8 @@
 package org.metaborg.core.context;
 
+import java.io.IOException;
+import java.util.function.BooleanSupplier;
+
 /**
  * Extension of {@link IContext} with methods that should not be exposed to clients.
  */
@@ -27,4 +30,19 @@ public interface IContextInternal extends IContext {
      * lock.
      */
     void unload();
+
+    /**
+     * Persists and then unloads the context, while holding the write lock throughout, such that no changes made in
+     * between are lost. Does nothing if the context is not loaded, if it is locked by any thread, or if given condition
+     * does not hold once the write lock is acquired. Never waits for the lock. By default, does nothing.
+     * 
+     * @param condition
+     *            Condition that is checked while holding the write lock.
+     * @return True if the context was unloaded, false otherwise.
+     * @throws IOException
+     *             When persisting fails unexpectedly. The context is not unloaded in that case.
+     */
+    default boolean persistAndUnload(BooleanSupplier condition) throws IOException {
+        return false;
+    }
 }
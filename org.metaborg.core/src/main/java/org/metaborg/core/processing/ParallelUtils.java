@@ -0,0 +1,173 @@
+package org.metaborg.core.processing;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.metaborg.core.MetaborgRuntimeException;
+import org.metaborg.core.syntax.IInputUnit;
+import org.metaborg.core.syntax.IParseUnit;
+import org.metaborg.core.syntax.ParseException;
+import org.metaborg.util.task.ICancel;
+import org.metaborg.util.task.IProgress;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Utilities for running work on a pool of worker threads, shared by the parse and transform phases.
+ */
+public final class ParallelUtils {
+    /**
+     * Function that parses a single input unit.
+     */
+    @FunctionalInterface public interface IParseFunction<I extends IInputUnit, P extends IParseUnit> {
+        P parse(I input) throws ParseException, InterruptedException;
+    }
+
+
+    /**
+     * Interval in milliseconds at which a thread waiting for a result checks for cancellation.
+     */
+    private static final long cancelPollInterval = 50;
+
+    private static final AtomicInteger workerCount = new AtomicInteger();
+
+
+    private ParallelUtils() {
+    }
+
+
+    /**
+     * Creates an executor with daemon worker threads, named after given prefix. The caller is responsible for shutting
+     * down the executor.
+     *
+     * @param workers
+     *            Number of worker threads.
+     * @param name
+     *            Prefix of worker thread names.
+     * @return Executor with given number of worker threads.
+     */
+    public static ExecutorService newExecutor(int workers, String name) {
+        return Executors.newFixedThreadPool(Math.max(1, workers), runnable -> {
+            final Thread thread = new Thread(runnable, name + "-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Waits for given future to complete, while periodically checking the cancellation token.
+     *
+     * @param future
+     *            Future to wait for.
+     * @param cancel
+     *            Cancellation token.
+     * @return Result of the future.
+     * @throws ExecutionException
+     *             When the computation of the future threw an exception.
+     * @throws InterruptedException
+     *             When cancelled, or when the computation of the future was cancelled.
+     */
+    public static <T> T await(Future<T> future, ICancel cancel) throws ExecutionException, InterruptedException {
+        while(true) {
+            cancel.throwIfCancelled();
+            try {
+                return future.get(cancelPollInterval, TimeUnit.MILLISECONDS);
+            } catch(TimeoutException e) {
+                // Check for cancellation and try again.
+            } catch(CancellationException e) {
+                throw new InterruptedException("Work was cancelled");
+            }
+        }
+    }
+
+    /**
+     * Parses given input units with given number of workers. Results are always returned in the order of the inputs,
+     * regardless of the order in which parsing finishes.
+     *
+     * @param parser
+     *            Function that parses a single input unit. Must be safe to call from multiple threads at once.
+     * @param inputs
+     *            Input units to parse.
+     * @param workers
+     *            Maximum number of worker threads. Inputs are parsed on the calling thread when this is 1 or lower.
+     * @param progress
+     *            Progress reporter, only called from the calling thread.
+     * @param cancel
+     *            Cancellation token.
+     * @return Parse units, in the same order as given input units.
+     * @throws ParseException
+     *             When parsing fails unexpectedly. Parsing of the remaining inputs is cancelled.
+     * @throws InterruptedException
+     *             When parsing is cancelled.
+     */
+    public static <I extends IInputUnit, P extends IParseUnit> List<P> parseAll(IParseFunction<I, P> parser,
+        Iterable<I> inputs, int workers, IProgress progress, ICancel cancel)
+        throws ParseException, InterruptedException {
+        final List<I> inputList = Lists.newArrayList(inputs);
+        final int size = inputList.size();
+        final List<P> results = Lists.newArrayListWithCapacity(size);
+        progress.setWorkRemaining(size);
+
+        if(workers <= 1 || size <= 1) {
+            for(I input : inputList) {
+                cancel.throwIfCancelled();
+                results.add(parser.parse(input));
+                progress.work(1);
+            }
+            return results;
+        }
+
+        final ExecutorService executor = newExecutor(Math.min(workers, size), "parse-worker");
+        try {
+            final List<Future<P>> futures = Lists.newArrayListWithCapacity(size);
+            for(I input : inputList) {
+                futures.add(executor.submit(() -> {
+                    cancel.throwIfCancelled();
+                    return parser.parse(input);
+                }));
+            }
+            for(int i = 0; i < size; ++i) {
+                try {
+                    results.add(await(futures.get(i), cancel));
+                } catch(ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if(cause instanceof ParseException) {
+                        throw (ParseException) cause;
+                    }
+                    throw rethrow(cause);
+                }
+                progress.work(1);
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Rethrows an exception that was thrown by a worker thread and is not a checked exception of the caller.
+     *
+     * @param cause
+     *            Exception thrown by a worker thread.
+     * @return Never returns, declared such that callers can use {@code throw rethrow(cause)}.
+     * @throws InterruptedException
+     *             When {@code cause} is an {@link InterruptedException}.
+     */
+    public static RuntimeException rethrow(Throwable cause) throws InterruptedException {
+        if(cause instanceof InterruptedException) {
+            throw (InterruptedException) cause;
+        } else if(cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if(cause instanceof Error) {
+            throw (Error) cause;
+        }
+        throw new MetaborgRuntimeException(cause);
+    }
+}
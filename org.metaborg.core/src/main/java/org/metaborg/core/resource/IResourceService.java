@@ -112,7 +112,8 @@ public interface IResourceService extends AutoCloseable {
 
     /**
      * Attempts to get a local file for given resource, or copies the resource to the local file system if it does not
-     * reside on the local file system.
+     * reside on the local file system. Copies of files are cached by their contents, and reused as long as the contents
+     * do not change.
      * 
      * @param resource
      *            Resource to get a local file for.
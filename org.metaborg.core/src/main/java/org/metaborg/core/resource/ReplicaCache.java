@@ -0,0 +1,298 @@
+package org.metaborg.core.resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.vfs2.FileContent;
+import org.apache.commons.vfs2.FileObject;
+import org.metaborg.util.log.ILogger;
+import org.metaborg.util.log.LoggerUtils;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.BaseEncoding;
+import com.google.inject.Inject;
+
+/**
+ * Cache of local copies of files that are not on the local file system, such as JAR files inside language archives.
+ * Copies of files inside an archive are stored in a directory named after the hash of the archive, under the path of
+ * the file inside the archive, such that all files of an archive share a single hash of the archive, and a copy is
+ * reused by later requests and later JVM sessions for as long as the archive does not change. Copies of other files
+ * are stored in a directory named after the hash of their own contents. Within a session, the hash of a file is
+ * remembered by its URI, modification time, and size, such that repeated requests do not read the file at all.
+ *
+ * The default cache directory is private to the current user. A copy that was not written or checked by this instance
+ * is only reused when its size matches the size of the file, such that truncated copies are replaced instead of loaded.
+ * Directories of copies that were not used for {@link ReplicaCacheConfiguration#maxUnusedDays} days are deleted when
+ * the cache is first used in a session.
+ */
+public class ReplicaCache {
+    private static final ILogger logger = LoggerUtils.logger(ReplicaCache.class);
+
+    private static final int bufferSize = 64 * 1024;
+
+    private final @Nullable Path directory;
+    private final int maxUnusedDays;
+    private final Map<Key, String> hashes = Maps.newConcurrentMap();
+    // Copies that were written or checked by this instance, which are reused without checking them again.
+    private final Set<Path> checked = Sets.newConcurrentHashSet();
+
+    private volatile boolean cleaned = false;
+
+
+    @Inject public ReplicaCache(ReplicaCacheConfiguration config) {
+        this.directory = config.directory != null ? config.directory.toPath() : null;
+        this.maxUnusedDays = config.maxUnusedDays;
+    }
+
+    public ReplicaCache(File directory) {
+        this(new ReplicaCacheConfiguration(directory, ReplicaCacheConfiguration.defaultMaxUnusedDays));
+    }
+
+
+    /**
+     * @return Per-user cache directory: {@code $XDG_CACHE_HOME/metaborg/replicas} when that variable is set,
+     *         {@code ~/.cache/metaborg/replicas} otherwise.
+     */
+    public static File defaultDirectory() {
+        final String cacheHome = System.getenv("XDG_CACHE_HOME");
+        final File base;
+        if(cacheHome != null && !cacheHome.isEmpty()) {
+            base = new File(cacheHome);
+        } else {
+            base = new File(System.getProperty("user.home"), ".cache");
+        }
+        return new File(new File(base, "metaborg"), "replicas").getAbsoluteFile();
+    }
+
+
+    /**
+     * @return Whether this cache is enabled. When it is not, {@link #replicate} must not be called.
+     */
+    public boolean enabled() {
+        return directory != null;
+    }
+
+    /**
+     * Gets a local copy of given file, copying it into the cache when there is no copy of the same contents yet.
+     *
+     * @param resource
+     *            File to get a local copy for.
+     * @return Local copy.
+     * @throws IOException
+     *             When reading the file or writing the copy fails.
+     * @throws IllegalStateException
+     *             When this cache is disabled.
+     */
+    public File replicate(FileObject resource) throws IOException {
+        if(directory == null) {
+            throw new IllegalStateException("Cannot replicate " + resource + ", the replica cache is disabled");
+        }
+        if(!cleaned) {
+            cleanUp();
+        }
+
+        final FileObject archive = resource.getFileSystem().getParentLayer();
+        final Path replicaDir;
+        final Path replica;
+        if(archive != null) {
+            replicaDir = directory.resolve(hash(archive));
+            replica = replicaDir.resolve(entryPath(resource));
+        } else {
+            replicaDir = directory.resolve(hash(resource));
+            replica = replicaDir.resolve(resource.getName().getBaseName());
+        }
+        if(checked.contains(replica) && Files.isRegularFile(replica)) {
+            return replica.toFile();
+        }
+
+        if(!Files.isRegularFile(replica) || Files.size(replica) != resource.getContent().getSize()) {
+            createPrivateDirectories(replica.getParent());
+            // Copy to a temporary file first, such that concurrent readers, possibly in other JVMs, never observe a
+            // partial copy.
+            final Path temporary = Files.createTempFile(replica.getParent(), "replica", ".tmp");
+            try {
+                try(final InputStream stream = resource.getContent().getInputStream()) {
+                    Files.copy(stream, temporary, StandardCopyOption.REPLACE_EXISTING);
+                }
+                move(temporary, replica);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+            logger.debug("Replicated {} to {}", resource, replica);
+        }
+        // Mark the copies as used, such that they are not cleaned up.
+        Files.setLastModifiedTime(replicaDir, FileTime.fromMillis(System.currentTimeMillis()));
+
+        checked.add(replica);
+        return replica.toFile();
+    }
+
+    /**
+     * Deletes directories of copies that were not used for the configured number of days. Directories that cannot be
+     * deleted, for example because a copy is opened by another process, are skipped.
+     */
+    public synchronized void cleanUp() {
+        if(cleaned) {
+            return;
+        }
+        cleaned = true;
+        if(directory == null || maxUnusedDays <= 0 || !Files.isDirectory(directory)) {
+            return;
+        }
+        final long threshold = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(maxUnusedDays);
+        try(final DirectoryStream<Path> dirs = Files.newDirectoryStream(directory)) {
+            for(Path dir : dirs) {
+                if(Files.isDirectory(dir) && Files.getLastModifiedTime(dir).toMillis() < threshold) {
+                    try {
+                        deleteAll(dir);
+                        logger.debug("Deleted unused replicas in {}", dir);
+                    } catch(IOException e) {
+                        logger.debug("Deleting unused replicas in {} failed", e, dir);
+                    }
+                }
+            }
+        } catch(IOException e) {
+            logger.warn("Cleaning up replica cache {} failed", e, directory);
+        }
+    }
+
+
+    private void createPrivateDirectories(Path dir) throws IOException {
+        if(!Files.isDirectory(directory)) {
+            Files.createDirectories(directory);
+            try {
+                Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwx------"));
+            } catch(UnsupportedOperationException e) {
+                // Not a POSIX file system, rely on the permissions of the user's cache directory.
+            }
+        }
+        Files.createDirectories(dir);
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            // Replaces a corrupt copy; a concurrent replica of the same hash has the same contents.
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch(AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void deleteAll(Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override public FileVisitResult postVisitDirectory(Path visitedDir, IOException e) throws IOException {
+                if(e != null) {
+                    throw e;
+                }
+                Files.delete(visitedDir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * @return Path of given file inside its archive, relative to the root of the archive.
+     */
+    private static String entryPath(FileObject resource) {
+        final String path = resource.getName().getPath();
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+
+    private String hash(FileObject resource) throws IOException {
+        final @Nullable Key key = key(resource);
+        if(key != null) {
+            final String hash = hashes.get(key);
+            if(hash != null) {
+                return hash;
+            }
+        }
+        final String hash;
+        try(final InputStream stream = resource.getContent().getInputStream()) {
+            hash = hash(stream);
+        }
+        if(key != null) {
+            hashes.put(key, hash);
+        }
+        return hash;
+    }
+
+    private static String hash(InputStream stream) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch(NoSuchAlgorithmException e) {
+            throw new IOException("Could not create replica hash", e);
+        }
+        final byte[] buffer = new byte[bufferSize];
+        int read;
+        while((read = stream.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return BaseEncoding.base16().lowerCase().encode(digest.digest());
+    }
+
+    private static @Nullable Key key(FileObject resource) {
+        try {
+            final FileContent content = resource.getContent();
+            return new Key(resource.getName().getURI(), content.getLastModifiedTime(), content.getSize());
+        } catch(IOException e) {
+            // Modification time or size is unknown, always compute the hash.
+            return null;
+        }
+    }
+
+
+    private static class Key {
+        private final String uri;
+        private final long lastModified;
+        private final long size;
+
+
+        public Key(String uri, long lastModified, long size) {
+            this.uri = uri;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+
+        @Override public boolean equals(Object o) {
+            if(this == o)
+                return true;
+            if(o == null || getClass() != o.getClass())
+                return false;
+            final Key other = (Key) o;
+            return lastModified == other.lastModified && size == other.size && uri.equals(other.uri);
+        }
+
+        @Override public int hashCode() {
+            int result = uri.hashCode();
+            result = 31 * result + Long.hashCode(lastModified);
+            result = 31 * result + Long.hashCode(size);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.metaborg.core.resource;
+
+import java.io.File;
+
+import javax.annotation.Nullable;
+
+/**
+ * Configuration for the {@link ReplicaCache} that {@link ResourceService} uses for local copies of files that are not
+ * on the local file system.
+ */
+public class ReplicaCacheConfiguration {
+    public static final int defaultMaxUnusedDays = 30;
+
+    /**
+     * Directory that holds the copies, or null to disable the cache. When the cache is disabled, copies are made in the
+     * temporary directory of the file system manager, and are not reused by later sessions.
+     */
+    public final @Nullable File directory;
+
+    /**
+     * Number of days after which copies that were not used are deleted. Copies are never deleted when this is 0.
+     */
+    public final int maxUnusedDays;
+
+    public ReplicaCacheConfiguration() {
+        this(ReplicaCache.defaultDirectory(), defaultMaxUnusedDays);
+    }
+
+    public ReplicaCacheConfiguration(@Nullable File directory, int maxUnusedDays) {
+        this.directory = directory;
+        this.maxUnusedDays = maxUnusedDays;
+    }
+
+    /**
+     * @return Configuration that disables the cache.
+     */
+    public static ReplicaCacheConfiguration disabled() {
+        return new ReplicaCacheConfiguration(null, 0);
+    }
+}
@@ -1,6 +1,7 @@
 package org.metaborg.core.resource;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 
@@ -29,12 +30,14 @@ public class ResourceService implements IResourceService {
 
     private final FileSystemManager fileSystemManager;
     private final FileSystemOptions fileSystemOptions;
+    private final ReplicaCache replicaCache;
 
 
     @Inject public ResourceService(FileSystemManager fileSystemManager,
-        @Named("ResourceClassLoader") ClassLoader classLoader) {
+        @Named("ResourceClassLoader") ClassLoader classLoader, ReplicaCache replicaCache) {
         this.fileSystemManager = fileSystemManager;
         this.fileSystemOptions = new FileSystemOptions();
+        this.replicaCache = replicaCache;
 
         if(classLoader == null) {
             classLoader = this.getClass().getClassLoader();
@@ -43,6 +46,10 @@ public class ResourceService implements IResourceService {
         ResourceFileSystemConfigBuilder.getInstance().setClassLoader(fileSystemOptions, classLoader);
     }
 
+    public ResourceService(FileSystemManager fileSystemManager, ClassLoader classLoader) {
+        this(fileSystemManager, classLoader, new ReplicaCache(new ReplicaCacheConfiguration()));
+    }
+
     @Override public void close() {
         if(fileSystemManager instanceof DefaultFileSystemManager) {
             final DefaultFileSystemManager defaultFileSystemManager = (DefaultFileSystemManager) fileSystemManager;
@@ -132,8 +139,16 @@ public class ResourceService implements IResourceService {
         }
 
         try {
+            if(replicaCache.enabled() && resource.getType() == FileType.FILE) {
+                try {
+                    return replicaCache.replicate(resource);
+                } catch(IOException e) {
+                    logger.warn("Replica cache failed for {}, replicating into the file system cache instead", e,
+                        resource);
+                }
+            }
             return resource.getFileSystem().replicateFile(resource, new AllFileSelector());
-        } catch(FileSystemException e) {
+        } catch(IOException e) {
             throw new MetaborgRuntimeException("Could not get local file for " + resource, e);
         }
     }
@@ -1,16 +1,168 @@
 package org.metaborg.core.source;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.nio.file.Files;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.provider.local.LocalFile;
+import org.metaborg.core.config.IProjectConfig;
+import org.metaborg.core.project.IProject;
+import org.metaborg.core.project.IProjectService;
+import org.metaborg.util.file.FileUtils;
+import org.metaborg.util.log.ILogger;
+import org.metaborg.util.log.LoggerUtils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.inject.Inject;
 
+/**
+ * Source text service that reads local files through NIO. The encoding of a file is detected from its byte order mark,
+ * or taken from the configuration of the project the file belongs to, and falls back to the platform default encoding.
+ * Texts of local files are cached, keyed by path and encoding, and reused while the content of the file has the same
+ * hash, such that reading the same file several times during a build decodes it only once.
+ */
 public class SourceTextService implements ISourceTextService {
+    private static final ILogger logger = LoggerUtils.logger(SourceTextService.class);
+
+    /**
+     * Memory budget of the text cache, measured in characters.
+     */
+    private static final long maxCachedCharacters = 4 * 1024 * 1024;
+
+    private final IProjectService projectService;
+
+    private final Cache<Key, CachedText> cache = CacheBuilder.newBuilder().maximumWeight(maxCachedCharacters)
+        .weigher((Key key, CachedText cachedText) -> Math.max(1, cachedText.text.length())).build();
+
+
+    @Inject public SourceTextService(IProjectService projectService) {
+        this.projectService = projectService;
+    }
+
+
     @Override public String text(FileObject resource) throws IOException {
-        try(final InputStream inputStream = resource.getContent().getInputStream()) {
-            return IOUtils.toString(inputStream, Charset.defaultCharset());
+        final Charset configuredCharset = configuredCharset(resource);
+        if(!(resource instanceof LocalFile)) {
+            try(final InputStream inputStream = resource.getContent().getInputStream()) {
+                return decode(ByteBuffer.wrap(IOUtils.toByteArray(inputStream)), configuredCharset);
+            }
+        }
+
+        // Read into a heap buffer rather than memory-mapping: mapped buffers are only unmapped when garbage collected,
+        // which keeps files open and locked on Windows long after they were read.
+        final File file = FileUtils.toFile(resource);
+        final byte[] bytes = Files.readAllBytes(file.toPath());
+        // Compare contents instead of modification times and sizes, which do not change for edits within the
+        // resolution of the file system clock that keep the size the same.
+        final HashCode hash = Hashing.murmur3_128().hashBytes(bytes);
+        final Key key = new Key(file.getPath(), configuredCharset);
+        final CachedText cachedText = cache.getIfPresent(key);
+        if(cachedText != null && cachedText.hash.equals(hash)) {
+            return cachedText.text;
+        }
+
+        final String text = decode(ByteBuffer.wrap(bytes), configuredCharset);
+        cache.put(key, new CachedText(hash, text));
+        return text;
+    }
+
+
+    private static String decode(ByteBuffer buffer, Charset configuredCharset) throws CharacterCodingException {
+        final Charset charset = detectCharset(buffer);
+        if(charset != null) {
+            // Skip the byte order mark; it is not part of the text.
+            buffer.position(buffer.position() + bomLength(charset));
+        }
+        return (charset != null ? charset : configuredCharset).newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE)
+            .decode(buffer).toString();
+    }
+
+    private static @Nullable Charset detectCharset(ByteBuffer buffer) {
+        final int start = buffer.position();
+        final int remaining = buffer.remaining();
+        if(remaining >= 3 && (buffer.get(start) & 0xFF) == 0xEF && (buffer.get(start + 1) & 0xFF) == 0xBB
+            && (buffer.get(start + 2) & 0xFF) == 0xBF) {
+            return StandardCharsets.UTF_8;
+        }
+        if(remaining >= 2 && (buffer.get(start) & 0xFF) == 0xFE && (buffer.get(start + 1) & 0xFF) == 0xFF) {
+            return StandardCharsets.UTF_16BE;
+        }
+        if(remaining >= 2 && (buffer.get(start) & 0xFF) == 0xFF && (buffer.get(start + 1) & 0xFF) == 0xFE) {
+            return StandardCharsets.UTF_16LE;
+        }
+        return null;
+    }
+
+    private static int bomLength(Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8) ? 3 : 2;
+    }
+
+    private Charset configuredCharset(FileObject resource) {
+        final IProject project = projectService.get(resource);
+        final IProjectConfig config = project != null ? project.config() : null;
+        final String encoding = config != null ? config.encoding() : null;
+        if(encoding != null) {
+            try {
+                return Charset.forName(encoding);
+            } catch(IllegalCharsetNameException | UnsupportedCharsetException e) {
+                logger.warn("Unsupported encoding {} configured for project {}, using default encoding", encoding,
+                    project.location());
+            }
+        }
+        return Charset.defaultCharset();
+    }
+
+
+    private static class Key {
+        private final String path;
+        private final Charset charset;
+
+
+        public Key(String path, Charset charset) {
+            this.path = path;
+            this.charset = charset;
+        }
+
+
+        @Override public boolean equals(Object o) {
+            if(this == o)
+                return true;
+            if(o == null || getClass() != o.getClass())
+                return false;
+            final Key other = (Key) o;
+            return path.equals(other.path) && charset.equals(other.charset);
+        }
+
+        @Override public int hashCode() {
+            return Objects.hash(path, charset);
+        }
+    }
+
+    private static class CachedText {
+        private final HashCode hash;
+        private final String text;
+
+
+        public CachedText(HashCode hash, String text) {
+            this.hash = hash;
+            this.text = text;
         }
     }
 }
@@ -4,6 +4,7 @@ import java.util.Collection;
 
 import org.metaborg.core.MetaborgRuntimeException;
 import org.metaborg.core.language.ILanguageImpl;
+import org.metaborg.core.processing.ParallelUtils;
 import org.metaborg.util.task.ICancel;
 import org.metaborg.util.task.IProgress;
 import org.metaborg.util.task.NullCancel;
@@ -81,6 +82,29 @@ public interface ISyntaxService<I extends IInputUnit, P extends IParseUnit> {
     Collection<P> parseAll(Iterable<I> inputs, IProgress progress, ICancel cancel)
         throws ParseException, InterruptedException;
 
+    /**
+     * Parses all given input units into a parse units, using multiple worker threads.
+     * 
+     * @param inputs
+     *            Input units to parse.
+     * @param workers
+     *            Maximum number of worker threads to parse with. Parses sequentially when 1 or lower.
+     * @param progress
+     *            Progress reporter.
+     * @param cancel
+     *            Cancellation token.
+     * @return Parse units, in the same order as given input units.
+     * @throws ParseException
+     *             When parsing fails unexpectedly.
+     * @throws InterruptedException
+     *             When parsing is cancelled.
+     */
+    default Collection<P> parseAll(Iterable<I> inputs, int workers, IProgress progress, ICancel cancel)
+        throws ParseException, InterruptedException {
+        return ParallelUtils.parseAll(input -> parse(input, new NullProgress(), cancel), inputs, workers, progress,
+            cancel);
+    }
+
     /**
      * Parses all given input units into a parse units.
      * 
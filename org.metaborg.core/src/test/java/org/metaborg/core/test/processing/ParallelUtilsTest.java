@@ -0,0 +1,277 @@
+package org.metaborg.core.test.processing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.vfs2.FileObject;
+import org.junit.Test;
+import org.metaborg.core.MetaborgRuntimeException;
+import org.metaborg.core.language.ILanguageImpl;
+import org.metaborg.core.messages.IMessage;
+import org.metaborg.core.processing.CancellationToken;
+import org.metaborg.core.processing.ParallelUtils;
+import org.metaborg.core.syntax.IInputUnit;
+import org.metaborg.core.syntax.IParseUnit;
+import org.metaborg.core.syntax.ParseException;
+import org.metaborg.core.unit.IUnitContrib;
+import org.metaborg.util.task.NullCancel;
+import org.metaborg.util.task.NullProgress;
+
+import com.google.common.collect.Lists;
+
+public class ParallelUtilsTest {
+    private static final int inputCount = 64;
+
+
+    @Test(timeout = 10000) public void executorUsesNamedDaemonThreads() throws Exception {
+        final ExecutorService executor = ParallelUtils.newExecutor(2, "test-worker");
+        try {
+            final Thread thread = executor.submit(Thread::currentThread).get();
+            assertTrue(thread.isDaemon());
+            assertTrue(thread.getName().startsWith("test-worker-"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 10000) public void awaitReturnsResult() throws Exception {
+        final ExecutorService executor = ParallelUtils.newExecutor(1, "test-worker");
+        try {
+            final Future<String> future = executor.submit(() -> {
+                Thread.sleep(200);
+                return "result";
+            });
+            assertEquals("result", ParallelUtils.await(future, new NullCancel()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 10000) public void awaitStopsWhenCancelled() throws ExecutionException {
+        final CancellationToken cancel = new CancellationToken();
+        final Thread canceller = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            cancel.cancel();
+        });
+        canceller.start();
+        try {
+            ParallelUtils.await(new CompletableFuture<String>(), cancel);
+            fail("Expected waiting to be cancelled");
+        } catch(InterruptedException e) {
+            // Expected.
+        }
+    }
+
+    @Test(timeout = 10000, expected = InterruptedException.class) public void awaitOfCancelledFutureIsInterrupted()
+        throws ExecutionException, InterruptedException {
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        future.cancel(true);
+        ParallelUtils.await(future, new NullCancel());
+    }
+
+    @Test public void rethrowKeepsUncheckedExceptions() throws InterruptedException {
+        final IllegalStateException runtimeException = new IllegalStateException();
+        try {
+            throw ParallelUtils.rethrow(runtimeException);
+        } catch(IllegalStateException e) {
+            assertSame(runtimeException, e);
+        }
+
+        final AssertionError error = new AssertionError();
+        try {
+            throw ParallelUtils.rethrow(error);
+        } catch(AssertionError e) {
+            assertSame(error, e);
+        }
+    }
+
+    @Test public void rethrowKeepsInterruption() {
+        final InterruptedException interruptedException = new InterruptedException();
+        try {
+            throw ParallelUtils.rethrow(interruptedException);
+        } catch(InterruptedException e) {
+            assertSame(interruptedException, e);
+        }
+    }
+
+    @Test public void rethrowWrapsCheckedExceptions() throws InterruptedException {
+        final IOException checkedException = new IOException();
+        try {
+            throw ParallelUtils.rethrow(checkedException);
+        } catch(MetaborgRuntimeException e) {
+            assertSame(checkedException, e.getCause());
+        }
+    }
+
+    /**
+     * Later inputs finish first, such that results would be out of order if they were collected in completion order.
+     */
+    @Test public void parallelParseKeepsInputOrder() throws Exception {
+        final List<TestInput> inputs = inputs(inputCount);
+        final List<TestParse> results = ParallelUtils.parseAll(input -> {
+            Thread.sleep(inputCount - input.index);
+            return new TestParse(input);
+        }, inputs, 8, new NullProgress(), new NullCancel());
+
+        assertEquals(inputCount, results.size());
+        for(int i = 0; i < inputCount; ++i) {
+            assertSame(inputs.get(i), results.get(i).input());
+        }
+    }
+
+    @Test public void parallelParseEqualsSequentialParse() throws Exception {
+        final List<TestInput> inputs = inputs(inputCount);
+        final List<TestParse> sequential =
+            ParallelUtils.parseAll(TestParse::new, inputs, 1, new NullProgress(), new NullCancel());
+        final List<TestParse> parallel =
+            ParallelUtils.parseAll(TestParse::new, inputs, 4, new NullProgress(), new NullCancel());
+
+        assertEquals(sequential.size(), parallel.size());
+        for(int i = 0; i < sequential.size(); ++i) {
+            assertSame(sequential.get(i).input(), parallel.get(i).input());
+        }
+    }
+
+    @Test(expected = ParseException.class) public void parseExceptionIsRethrown() throws Exception {
+        ParallelUtils.parseAll(input -> {
+            if(input.index == inputCount / 2) {
+                throw new ParseException(input, "Failed");
+            }
+            return new TestParse(input);
+        }, inputs(inputCount), 4, new NullProgress(), new NullCancel());
+    }
+
+    @Test public void runtimeExceptionIsRethrown() throws Exception {
+        final IllegalStateException exception = new IllegalStateException("Failed");
+        try {
+            ParallelUtils.parseAll(input -> {
+                throw exception;
+            }, inputs(inputCount), 4, new NullProgress(), new NullCancel());
+            fail("Expected an exception");
+        } catch(IllegalStateException e) {
+            assertSame(exception, e);
+        }
+    }
+
+    @Test(expected = InterruptedException.class) public void cancelledParseIsInterrupted() throws Exception {
+        final CancellationToken cancel = new CancellationToken();
+        ParallelUtils.parseAll(input -> {
+            cancel.cancel();
+            return new TestParse(input);
+        }, inputs(inputCount), 4, new NullProgress(), cancel);
+    }
+
+
+    private static List<TestInput> inputs(int count) {
+        final List<TestInput> inputs = Lists.newArrayListWithCapacity(count);
+        for(int i = 0; i < count; ++i) {
+            inputs.add(new TestInput(i));
+        }
+        return inputs;
+    }
+
+
+    private static class TestInput implements IInputUnit {
+        private final int index;
+
+
+        public TestInput(int index) {
+            this.index = index;
+        }
+
+
+        @Override public String text() {
+            return Integer.toString(index);
+        }
+
+        @Override public @Nullable ILanguageImpl langImpl() {
+            return null;
+        }
+
+        @Override public @Nullable ILanguageImpl dialect() {
+            return null;
+        }
+
+        @Override public @Nullable FileObject source() {
+            return null;
+        }
+
+        @Override public boolean detached() {
+            return true;
+        }
+
+        @Override public @Nullable IUnitContrib unitContrib(String id) {
+            return null;
+        }
+
+        @Override public Iterable<IUnitContrib> unitContribs() {
+            return Collections.emptyList();
+        }
+    }
+
+    private static class TestParse implements IParseUnit {
+        private final TestInput input;
+
+
+        public TestParse(TestInput input) {
+            this.input = input;
+        }
+
+
+        @Override public boolean valid() {
+            return true;
+        }
+
+        @Override public boolean success() {
+            return true;
+        }
+
+        @Override public boolean isAmbiguous() {
+            return false;
+        }
+
+        @Override public Iterable<IMessage> messages() {
+            return Collections.emptyList();
+        }
+
+        @Override public TestInput input() {
+            return input;
+        }
+
+        @Override public long duration() {
+            return -1;
+        }
+
+        @Override public @Nullable FileObject source() {
+            return null;
+        }
+
+        @Override public boolean detached() {
+            return true;
+        }
+
+        @Override public @Nullable IUnitContrib unitContrib(String id) {
+            return null;
+        }
+
+        @Override public Iterable<IUnitContrib> unitContribs() {
+            return Collections.emptyList();
+        }
+    }
+}
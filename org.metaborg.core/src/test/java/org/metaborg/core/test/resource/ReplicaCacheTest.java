@@ -0,0 +1,161 @@
+package org.metaborg.core.test.resource;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.VFS;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.metaborg.core.resource.ReplicaCache;
+import org.metaborg.core.resource.ReplicaCacheConfiguration;
+import org.metaborg.core.resource.ResourceService;
+
+public class ReplicaCacheTest {
+    @Rule public TemporaryFolder temp = new TemporaryFolder();
+
+    private File directory;
+
+
+    @Before public void createDirectory() {
+        directory = new File(temp.getRoot(), "replicas");
+    }
+
+
+    @Test public void replicaHasSameContents() throws IOException {
+        final FileObject resource = write("ram:///replicas/a/lang.jar", "contents");
+        final File replica = new ReplicaCache(directory).replicate(resource);
+        assertEquals("lang.jar", replica.getName());
+        assertTrue(replica.toPath().startsWith(directory.toPath()));
+        assertArrayEquals(bytes("contents"), Files.readAllBytes(replica.toPath()));
+    }
+
+    @Test public void sameContentsShareReplica() throws IOException {
+        final ReplicaCache cache = new ReplicaCache(directory);
+        final File replicaA = cache.replicate(write("ram:///replicas/a/lang.jar", "contents"));
+        final File replicaB = cache.replicate(write("ram:///replicas/b/lang.jar", "contents"));
+        assertEquals(replicaA, replicaB);
+    }
+
+    @Test public void changedContentsGetNewReplica() throws IOException {
+        final ReplicaCache cache = new ReplicaCache(directory);
+        final File replica = cache.replicate(write("ram:///replicas/a/lang.jar", "contents"));
+        final File changedReplica = cache.replicate(write("ram:///replicas/a/lang.jar", "changed contents"));
+        assertNotEquals(replica, changedReplica);
+        assertArrayEquals(bytes("changed contents"), Files.readAllBytes(changedReplica.toPath()));
+    }
+
+    @Test public void replicaIsReusedAcrossInstances() throws IOException {
+        final FileObject resource = write("ram:///replicas/a/lang.jar", "contents");
+        final File replica = new ReplicaCache(directory).replicate(resource);
+        final long lastModified = replica.lastModified();
+        assertEquals(replica, new ReplicaCache(directory).replicate(resource));
+        assertEquals(lastModified, replica.lastModified());
+    }
+
+    @Test public void truncatedReplicaIsReplaced() throws IOException {
+        final FileObject resource = write("ram:///replicas/a/lang.jar", "contents");
+        final File replica = new ReplicaCache(directory).replicate(resource);
+        Files.write(replica.toPath(), bytes("cont"));
+
+        // A new instance, as in a later JVM session, checks the copy before reusing it.
+        assertEquals(replica, new ReplicaCache(directory).replicate(resource));
+        assertArrayEquals(bytes("contents"), Files.readAllBytes(replica.toPath()));
+    }
+
+    @Test public void archiveEntriesAreKeyedByArchiveAndPath() throws IOException {
+        final File archive = temp.newFile("lang.spoofax-language");
+        try(final ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(archive.toPath()))) {
+            for(String name : new String[] { "target/a/lang.jar", "target/b/lang.jar" }) {
+                output.putNextEntry(new ZipEntry(name));
+                output.write(bytes("contents"));
+                output.closeEntry();
+            }
+        }
+        final String root = "zip:" + archive.toURI() + "!/";
+        final ReplicaCache cache = new ReplicaCache(directory);
+        final File replicaA = cache.replicate(VFS.getManager().resolveFile(root + "target/a/lang.jar"));
+        final File replicaB = cache.replicate(VFS.getManager().resolveFile(root + "target/b/lang.jar"));
+
+        // Files of the same archive share the directory of the archive hash, and keep their path inside the archive.
+        assertNotEquals(replicaA, replicaB);
+        final Path archiveDir = directory.toPath().resolve(directory.toPath().relativize(replicaA.toPath()).getName(0));
+        assertEquals(archiveDir.resolve("target/a/lang.jar"), replicaA.toPath());
+        assertEquals(archiveDir.resolve("target/b/lang.jar"), replicaB.toPath());
+        assertArrayEquals(bytes("contents"), Files.readAllBytes(replicaB.toPath()));
+    }
+
+    @Test public void unusedReplicasAreDeleted() throws IOException {
+        final FileObject resource = write("ram:///replicas/a/lang.jar", "contents");
+        final File replica = new ReplicaCache(directory).replicate(resource);
+        final File unused = new File(directory, "unused");
+        assertTrue(new File(unused, "lib").mkdirs());
+        Files.write(new File(unused, "lib/old.jar").toPath(), bytes("old"));
+        final long longAgo = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2);
+        Files.setLastModifiedTime(unused.toPath(), FileTime.fromMillis(longAgo));
+
+        new ReplicaCache(new ReplicaCacheConfiguration(directory, 1)).cleanUp();
+        assertFalse(unused.exists());
+        assertTrue(replica.exists());
+    }
+
+    @Test public void disabledCacheIsNotUsed() throws IOException {
+        final ReplicaCache cache = new ReplicaCache(ReplicaCacheConfiguration.disabled());
+        assertFalse(cache.enabled());
+        final ResourceService resourceService = new ResourceService(VFS.getManager(), null, cache);
+        final File replica = resourceService.localFile(write("ram:///replicas/a/lang.jar", "contents"));
+        assertArrayEquals(bytes("contents"), Files.readAllBytes(replica.toPath()));
+        assertFalse(directory.exists());
+    }
+
+    @Test public void cacheDirectoryIsPrivate() throws IOException {
+        new ReplicaCache(directory).replicate(write("ram:///replicas/a/lang.jar", "contents"));
+        if(Files.getFileAttributeView(directory.toPath(), PosixFileAttributeView.class) != null) {
+            assertEquals(PosixFilePermissions.fromString("rwx------"),
+                Files.getPosixFilePermissions(directory.toPath()));
+        }
+    }
+
+    @Test public void defaultDirectoryIsPerUser() {
+        final File defaultDirectory = ReplicaCache.defaultDirectory();
+        assertTrue(defaultDirectory.isAbsolute());
+        assertEquals("replicas", defaultDirectory.getName());
+        assertEquals("metaborg", defaultDirectory.getParentFile().getName());
+        final String cacheHome = System.getenv("XDG_CACHE_HOME");
+        if(cacheHome == null || cacheHome.isEmpty()) {
+            assertEquals(new File(System.getProperty("user.home"), ".cache").getAbsoluteFile(),
+                defaultDirectory.getParentFile().getParentFile());
+        }
+    }
+
+
+    private static FileObject write(String uri, String contents) throws IOException {
+        final FileObject resource = VFS.getManager().resolveFile(uri);
+        try(final OutputStream output = resource.getContent().getOutputStream()) {
+            output.write(bytes(contents));
+        }
+        return resource;
+    }
+
+    private static byte[] bytes(String contents) {
+        return contents.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,118 @@
+package org.metaborg.core.test.source;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.commons.configuration2.BaseHierarchicalConfiguration;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.VFS;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.metaborg.core.config.ProjectConfig;
+import org.metaborg.core.project.Project;
+import org.metaborg.core.source.SourceTextService;
+
+public class SourceTextServiceTest {
+    @Rule public TemporaryFolder temp = new TemporaryFolder();
+
+    private final BaseHierarchicalConfiguration config = new BaseHierarchicalConfiguration();
+    private final SourceTextService service =
+        new SourceTextService(resource -> new Project(resource, new ProjectConfig(config)));
+
+
+    @Test public void defaultEncodingIsPlatformDefault() throws IOException {
+        final byte[] bytes = "entity Gr\u00F6\u00DFe { na\u00EFve : String }".getBytes(StandardCharsets.UTF_8);
+        assertEquals(new String(bytes, Charset.defaultCharset()), service.text(file(bytes)));
+    }
+
+    @Test public void configuredEncodingIsUsed() throws IOException {
+        final String text = "entity Gr\u00F6\u00DFe";
+        config.setProperty("encoding", "UTF-16BE");
+        assertEquals(text, service.text(file(text.getBytes(StandardCharsets.UTF_16BE))));
+    }
+
+    @Test public void utf8ByteOrderMarkIsSkipped() throws IOException {
+        final String text = "module \u00DCn\u00EFcode";
+        final byte[] bom = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+        assertEquals(text, service.text(file(bom, text.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test public void utf16ByteOrderMarksSelectEncoding() throws IOException {
+        final String text = "module \u00DCn\u00EFcode";
+        final byte[] bigEndianBom = { (byte) 0xFE, (byte) 0xFF };
+        final byte[] littleEndianBom = { (byte) 0xFF, (byte) 0xFE };
+        assertEquals(text, service.text(file(bigEndianBom, text.getBytes(StandardCharsets.UTF_16BE))));
+        assertEquals(text, service.text(file(littleEndianBom, text.getBytes(StandardCharsets.UTF_16LE))));
+    }
+
+    @Test public void malformedInputIsReplaced() throws IOException {
+        final byte[] bytes = { 'a', (byte) 0xC3, 'b' };
+        assertEquals("a\uFFFDb", service.text(file(bytes)));
+    }
+
+    @Test public void unchangedFileIsDecodedOnce() throws IOException {
+        final FileObject resource = file("module a".getBytes(StandardCharsets.UTF_8));
+        assertSame(service.text(resource), service.text(resource));
+    }
+
+    @Test public void changedFileIsDecodedAgain() throws IOException {
+        final FileObject resource = file("module a".getBytes(StandardCharsets.UTF_8));
+        final String first = service.text(resource);
+        Files.write(new File(resource.getName().getPath()).toPath(), "module ab".getBytes(StandardCharsets.UTF_8));
+        resource.refresh();
+        final String second = service.text(resource);
+        assertNotSame(first, second);
+        assertEquals("module ab", second);
+    }
+
+    @Test public void editWithSameSizeAndTimeIsDecodedAgain() throws IOException {
+        final FileObject resource = file("module a".getBytes(StandardCharsets.UTF_8));
+        final File file = new File(resource.getName().getPath());
+        final long lastModified = file.lastModified();
+        assertEquals("module a", service.text(resource));
+        Files.write(file.toPath(), "module b".getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(lastModified);
+        resource.refresh();
+        assertEquals("module b", service.text(resource));
+    }
+
+    @Test public void changedEncodingIsDecodedAgain() throws IOException {
+        final String text = "entity Gr\u00F6\u00DFe";
+        final FileObject resource = file(text.getBytes(StandardCharsets.UTF_8));
+        config.setProperty("encoding", "ISO-8859-1");
+        assertEquals(new String(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1),
+            service.text(resource));
+        config.setProperty("encoding", "UTF-8");
+        assertEquals(text, service.text(resource));
+    }
+
+    @Test public void nonLocalFileIsDecoded() throws IOException {
+        final String text = "module \u00DCn\u00EFcode";
+        final FileObject resource = VFS.getManager().resolveFile("ram:///source/nonlocal.ent");
+        try(final OutputStream output = resource.getContent().getOutputStream()) {
+            output.write(text.getBytes(StandardCharsets.UTF_16BE));
+        }
+        config.setProperty("encoding", "UTF-16BE");
+        assertEquals(text, service.text(resource));
+    }
+
+
+    private FileObject file(byte[]... parts) throws IOException {
+        final File file = temp.newFile();
+        try(final OutputStream output = Files.newOutputStream(file.toPath())) {
+            for(byte[] part : parts) {
+                output.write(part);
+            }
+        }
+        return VFS.getManager().toFileObject(file);
+    }
+}
@@ -60,7 +60,9 @@ import org.metaborg.spoofax.core.config.SpoofaxProjectConfigBuilder;
 import org.metaborg.spoofax.core.config.SpoofaxProjectConfigService;
 import org.metaborg.spoofax.core.context.IndexTaskContextFactory;
 import org.metaborg.spoofax.core.context.LegacyContextFactory;
+import org.metaborg.spoofax.core.context.constraint.ConstraintContextConfiguration;
 import org.metaborg.spoofax.core.context.constraint.ConstraintContextFactory;
+import org.metaborg.spoofax.core.context.constraint.TermInterner;
 import org.metaborg.spoofax.core.dialogs.ISpoofaxDialogService;
 import org.metaborg.spoofax.core.dialogs.NullSpoofaxDialogService;
 import org.metaborg.spoofax.core.dynamicclassloading.DynamicClassLoadingService;
@@ -88,6 +90,8 @@ import org.metaborg.spoofax.core.processing.parse.SpoofaxParseResultProcessor;
 import org.metaborg.spoofax.core.stratego.IStrategoCommon;
 import org.metaborg.spoofax.core.stratego.IStrategoRuntimeService;
 import org.metaborg.spoofax.core.stratego.StrategoCommon;
+import org.metaborg.spoofax.core.stratego.StrategoProfiler;
+import org.metaborg.spoofax.core.stratego.StrategoRuntimeConfiguration;
 import org.metaborg.spoofax.core.stratego.StrategoRuntimeService;
 import org.metaborg.spoofax.core.stratego.primitive.AbsolutePathPrimitive;
 import org.metaborg.spoofax.core.stratego.primitive.CallStrategyPrimitive;
@@ -146,6 +150,9 @@ import org.metaborg.spoofax.core.syntax.ISpoofaxParser;
 import org.metaborg.spoofax.core.syntax.ISpoofaxSyntaxService;
 import org.metaborg.spoofax.core.syntax.JSGLRParseService;
 import org.metaborg.spoofax.core.syntax.JSGLRParserConfiguration;
+import org.metaborg.spoofax.core.syntax.ParseCancelWatcher;
+import org.metaborg.spoofax.core.syntax.ParseResultCacheConfiguration;
+import org.metaborg.spoofax.core.syntax.ParseTablePreloadConfiguration;
 import org.metaborg.spoofax.core.syntax.SpoofaxSyntaxService;
 import org.metaborg.spoofax.core.tracing.HoverService;
 import org.metaborg.spoofax.core.tracing.ISpoofaxHoverService;
@@ -336,6 +343,8 @@ public class SpoofaxModule extends MetaborgModule {
 
         binder.addBinding(IndexTaskContextFactory.name).to(IndexTaskContextFactory.class).in(Singleton.class);
         binder.addBinding(LegacyContextFactory.name).to(LegacyContextFactory.class).in(Singleton.class);
+        bind(ConstraintContextConfiguration.class).toInstance(new ConstraintContextConfiguration());
+        bind(TermInterner.class).in(Singleton.class);
         binder.addBinding(ConstraintContextFactory.name).to(ConstraintContextFactory.class)
                 .in(Singleton.class);
     }
@@ -346,6 +355,9 @@ public class SpoofaxModule extends MetaborgModule {
         bind(new TypeLiteral<ISyntaxService<ISpoofaxInputUnit, ISpoofaxParseUnit>>() {}).to(SpoofaxSyntaxService.class);
         bind(new TypeLiteral<ISyntaxService<?, ?>>() {}).to(SpoofaxSyntaxService.class);
         bind(ISyntaxService.class).to(SpoofaxSyntaxService.class);
+        languageCacheBinder.addBinding().to(SpoofaxSyntaxService.class);
+        autoClosableBinder.addBinding().to(SpoofaxSyntaxService.class);
+        bind(ParseResultCacheConfiguration.class).toInstance(new ParseResultCacheConfiguration());
 
         bind(ITermFactory.class).toInstance(new ImploderOriginTermFactory(new TermFactory()));
     }
@@ -359,6 +371,9 @@ public class SpoofaxModule extends MetaborgModule {
         autoClosableBinder.addBinding().to(JSGLRParseService.class);
 
         bind(JSGLRParserConfiguration.class).toInstance(new JSGLRParserConfiguration());
+        bind(ParseTablePreloadConfiguration.class).toInstance(new ParseTablePreloadConfiguration());
+        bind(ParseCancelWatcher.class).in(Singleton.class);
+        autoClosableBinder.addBinding().to(ParseCancelWatcher.class);
     }
 
     /**
@@ -380,6 +395,7 @@ public class SpoofaxModule extends MetaborgModule {
         languageCacheBinder.addBinding().to(DynamicClassLoadingService.class);
 
         // Stratego runtime
+        bind(StrategoRuntimeConfiguration.class).toInstance(new StrategoRuntimeConfiguration());
         bind(StrategoRuntimeService.class).in(Singleton.class);
         bind(IStrategoRuntimeService.class).to(StrategoRuntimeService.class);
         languageCacheBinder.addBinding().to(StrategoRuntimeService.class);
@@ -388,6 +404,7 @@ public class SpoofaxModule extends MetaborgModule {
 
         // Utilities
         bind(IStrategoCommon.class).to(StrategoCommon.class).in(Singleton.class);
+        bind(StrategoProfiler.class).in(Singleton.class);
         bind(AnalysisCommon.class).in(Singleton.class);
 
         // Stratego primitives
@@ -15,6 +15,7 @@ import org.metaborg.core.MetaborgException;
 import org.metaborg.core.analysis.AnalysisException;
 import org.metaborg.core.context.IContext;
 import org.metaborg.core.language.FacetContribution;
+import org.metaborg.core.language.ILanguageComponent;
 import org.metaborg.core.language.ILanguageImpl;
 import org.metaborg.core.messages.IMessage;
 import org.metaborg.core.messages.MessageFactory;
@@ -28,6 +29,7 @@ import org.metaborg.spoofax.core.analysis.ISpoofaxAnalyzer;
 import org.metaborg.spoofax.core.analysis.SpoofaxAnalyzeResult;
 import org.metaborg.spoofax.core.analysis.SpoofaxAnalyzeResults;
 import org.metaborg.spoofax.core.context.constraint.IConstraintContext;
+import org.metaborg.spoofax.core.context.constraint.TermDigest;
 import org.metaborg.spoofax.core.stratego.IStrategoCommon;
 import org.metaborg.spoofax.core.stratego.IStrategoRuntimeService;
 import org.metaborg.spoofax.core.tracing.ISpoofaxTracingService;
@@ -91,6 +93,14 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
 
     protected abstract boolean multifile();
 
+    /**
+     * @return Whether only added, changed, and removed files are passed to the analysis strategy of given component,
+     *         instead of passing all files in the context.
+     */
+    protected boolean deltaAnalysis(ILanguageComponent component) {
+        return false;
+    }
+
     @Override public ISpoofaxAnalyzeResult analyze(ISpoofaxParseUnit input, IContext genericContext, IProgress progress,
             ICancel cancel) throws AnalysisException {
         final ISpoofaxAnalyzeResults results =
@@ -119,6 +129,7 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
             return new SpoofaxAnalyzeResults(context);
         }
         final AnalysisFacet facet = facetContribution.facet;
+        final boolean delta = deltaAnalysis(facetContribution.contributor);
 
         final HybridInterpreter runtime;
         try {
@@ -150,7 +161,8 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
 
         final Timer timer = new Timer(true);
         try {
-            return doAnalysis(changed, removed, invalid, context, runtime, facet.strategyName, progress, cancel);
+            return doAnalysis(changed, removed, invalid, context, runtime, facet.strategyName, delta, progress,
+                    cancel);
         } finally {
             logger.debug("Analysis finished in {} s", timer.stop() / 1_000_000_000d);
         }
@@ -162,8 +174,8 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
 
     private ISpoofaxAnalyzeResults doAnalysis(Map<String, ISpoofaxParseUnit> changed,
             Map<String, ISpoofaxAnalyzeUnit> removed, Map<String, ISpoofaxAnalyzeUnit> invalid,
-            IConstraintContext context, HybridInterpreter runtime, String strategy, IProgress progress, ICancel cancel)
-            throws AnalysisException {
+            IConstraintContext context, HybridInterpreter runtime, String strategy, boolean delta, IProgress progress,
+            ICancel cancel) throws AnalysisException {
 
         /*******************************************************************
          * 1. Compute changeset, and remove invalidated units from context *
@@ -173,7 +185,7 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
         final List<IStrategoTerm> changes = new ArrayList<>();
         final Map<String, Expect> expects = new HashMap<>();
 
-        final boolean realChange = computeChanges(context, changed, removed, projectChange, changes, expects);
+        final boolean realChange = computeChanges(context, changed, removed, projectChange, changes, expects, delta);
 
         /***************************************
          * 2. Call analysis, and parse results *
@@ -183,8 +195,8 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
 
         if(realChange) {
 
-            callAnalysis(context, changed, projectChange.get(), changes, expects, runtime, strategy, cancel, progress,
-                    results);
+            callAnalysis(context, changed, projectChange.get(), changes, expects, runtime, strategy, delta, cancel,
+                    progress, results);
 
         }
 
@@ -194,7 +206,7 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
 
         final ListMultimap<FileName, IMessage> messages = ArrayListMultimap.create();
 
-        processResults(changed, expects, results, messages);
+        processResults(context, changed, expects, results, messages, delta);
 
         /************************************
          * 4. Create Spoofax analysis units *
@@ -214,7 +226,7 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
 
     private boolean computeChanges(IConstraintContext context, Map<String, ISpoofaxParseUnit> changed,
             Map<String, ISpoofaxAnalyzeUnit> removed, Ref<IStrategoTerm> projectChange,
-            final List<IStrategoTerm> changes, final Map<String, Expect> expects) {
+            final List<IStrategoTerm> changes, final Map<String, Expect> expects, boolean delta) {
         boolean realChange = false;
 
         // project entry
@@ -226,12 +238,12 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
             if(context.contains(resource)) {
                 final IConstraintContext.Entry ctxEntry = context.get(resource);
                 change = build("Cached", ctxEntry.analysis());
-                expect = new CachedUpdate(resource, projectAst.hashCode(), projectAst, ctxEntry.analysis(),
+                expect = new CachedUpdate(resource, TermDigest.of(projectAst), projectAst, ctxEntry.analysis(),
                         ctxEntry.errors(), ctxEntry.warnings(), ctxEntry.notes(), ctxEntry.exceptions(), context);
                 context.remove(resource);
             } else {
                 change = build("Added", projectAst);
-                expect = new ProjectFull(resource, projectAst.hashCode(), projectAst, context);
+                expect = new ProjectFull(resource, TermDigest.of(projectAst), projectAst, context);
                 realChange = true;
             }
             expects.put(resource, expect);
@@ -257,24 +269,24 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
             final String resource = entry.getKey();
             final ISpoofaxParseUnit input = entry.getValue();
             final IStrategoTerm parseAst = input.ast();
-            final int parseHash = parseAst.hashCode();
+            final TermDigest parseDigest = TermDigest.of(parseAst);
             final IStrategoTerm change;
             final Expect expect;
             if(context.contains(resource)) {
                 final IConstraintContext.Entry ctxEntry = context.get(resource);
                 final IStrategoTerm analyzedAst = ctxEntry.analyzedAst();
-                if(ctxEntry.parseHash() != parseHash || analyzedAst == null) {
+                if(!parseDigest.equals(ctxEntry.parseDigest()) || analyzedAst == null) {
                     change = build("Changed", parseAst, ctxEntry.analysis());
-                    expect = new ChangedFull(resource, parseHash, input, context);
+                    expect = new ChangedFull(resource, parseDigest, input, context);
                     realChange = true;
                 } else {
                     change = build("Cached", ctxEntry.analysis());
-                    expect = new UpdateFull(resource, parseHash, analyzedAst, ctxEntry.analysis(), ctxEntry.errors(),
+                    expect = new UpdateFull(resource, parseDigest, analyzedAst, ctxEntry.analysis(), ctxEntry.errors(),
                             ctxEntry.warnings(), ctxEntry.notes(), ctxEntry.exceptions(), input, context);
                 }
             } else {
                 change = build("Added", parseAst);
-                expect = new ChangedFull(resource, parseHash, input, context);
+                expect = new ChangedFull(resource, parseDigest, input, context);
                 realChange = true;
             }
             context.remove(resource);
@@ -282,8 +294,9 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
             changes.add(termFactory.makeTuple(termFactory.makeString(resource), change));
         }
 
-        // cached files
-        if(multifile()) {
+        // cached files, which are not passed when the analysis only accepts changes, and retrieves cached analyses from
+        // the context on demand
+        if(multifile() && !delta) {
             for(Map.Entry<String, IConstraintContext.Entry> entry : context.entrySet()) {
                 final String resource = entry.getKey();
                 if(!changed.containsKey(resource)) {
@@ -291,7 +304,7 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
                     final IStrategoTerm analyzedAst = ctxEntry.analyzedAst();
                     final IStrategoTerm analysis = ctxEntry.analysis();
                     final IStrategoTerm change = build("Cached", analysis);
-                    expects.put(resource, new CachedUpdate(resource, ctxEntry.parseHash(), analyzedAst, analysis,
+                    expects.put(resource, new CachedUpdate(resource, ctxEntry.parseDigest(), analyzedAst, analysis,
                             ctxEntry.errors(), ctxEntry.warnings(), ctxEntry.notes(), ctxEntry.exceptions(), context));
                     changes.add(termFactory.makeTuple(termFactory.makeString(resource), change));
                 }
@@ -303,11 +316,14 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
 
     private void callAnalysis(IConstraintContext context, Map<String, ISpoofaxParseUnit> changed,
             final IStrategoTerm projectChange, final List<IStrategoTerm> changes, Map<String, Expect> expects,
-            HybridInterpreter runtime, String strategy, ICancel cancel, IProgress progress,
+            HybridInterpreter runtime, String strategy, boolean delta, ICancel cancel, IProgress progress,
             final Map<String, IStrategoTerm> results) throws AnalysisException {
 
         final IStrategoTerm action;
-        if(multifile()) {
+        if(delta) {
+            action = build("AnalyzeMultiDelta", projectChange, termFactory.makeList(changes), B.blob(progress),
+                    B.blob(cancel));
+        } else if(multifile()) {
             action = build("AnalyzeMulti", projectChange, termFactory.makeList(changes), B.blob(progress),
                     B.blob(cancel));
         } else {
@@ -355,13 +371,22 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
 
     }
 
-    private void processResults(Map<String, ISpoofaxParseUnit> changed, final Map<String, Expect> expects,
-            final Map<String, IStrategoTerm> results, ListMultimap<FileName, IMessage> messages) {
+    private void processResults(IConstraintContext context, Map<String, ISpoofaxParseUnit> changed,
+            final Map<String, Expect> expects, final Map<String, IStrategoTerm> results,
+            ListMultimap<FileName, IMessage> messages, boolean delta) {
 
         // call expects with result
         for(Map.Entry<String, IStrategoTerm> entry : results.entrySet()) {
             final String resource = entry.getKey();
             final IStrategoTerm result = entry.getValue();
+            if(delta && !expects.containsKey(resource) && context.contains(resource)) {
+                // Cached file that was not passed to the analysis, but of which the analysis was updated.
+                final IConstraintContext.Entry ctxEntry = context.get(resource);
+                expects.put(resource,
+                        new CachedUpdate(resource, ctxEntry.parseDigest(), ctxEntry.analyzedAst(),
+                                ctxEntry.analysis(), ctxEntry.errors(), ctxEntry.warnings(), ctxEntry.notes(),
+                                ctxEntry.exceptions(), context));
+            }
             if(expects.containsKey(resource)) {
                 expects.get(resource).accept(result);
             } else {
@@ -381,7 +406,7 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
     private abstract class Expect {
 
         protected final String resource;
-        protected final int parseHash;
+        protected final TermDigest parseDigest;
         protected final IConstraintContext context;
 
         protected IStrategoTerm errors;
@@ -389,10 +414,10 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
         protected IStrategoTerm notes;
         protected List<String> exceptions;
 
-        protected Expect(String resource, int parseHash, IStrategoTerm errors, IStrategoTerm warnings,
+        protected Expect(String resource, TermDigest parseDigest, IStrategoTerm errors, IStrategoTerm warnings,
                 IStrategoTerm notes, List<String> exceptions, IConstraintContext context) {
             this.resource = resource;
-            this.parseHash = parseHash;
+            this.parseDigest = parseDigest;
             this.errors = errors;
             this.warnings = warnings;
             this.notes = notes;
@@ -457,8 +482,9 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
         private IStrategoTerm analyzedAst;
         private IStrategoTerm analysis;
 
-        public ChangedFull(String resource, int parseHash, ISpoofaxParseUnit input, IConstraintContext context) {
-            super(resource, parseHash, null, null, null, null, context);
+        public ChangedFull(String resource, TermDigest parseDigest, ISpoofaxParseUnit input,
+                IConstraintContext context) {
+            super(resource, parseDigest, null, null, null, null, context);
             this.input = input;
         }
 
@@ -486,7 +512,7 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
                 Collection<ISpoofaxAnalyzeUnitUpdate> updateResults) {
             if(!input.detached()) {
                 if(analysis != null) {
-                    context.put(resource, parseHash, analyzedAst, analysis, errors, warnings, notes, exceptions);
+                    context.put(resource, parseDigest, analyzedAst, analysis, errors, warnings, notes, exceptions);
                 } else {
                     context.remove(resource);
                 }
@@ -506,10 +532,10 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
         // 2. initialized by constructor, overwritten by accept
         private IStrategoTerm analysis;
 
-        public UpdateFull(String resource, int parseHash, IStrategoTerm analyzedAst, IStrategoTerm analysis,
+        public UpdateFull(String resource, TermDigest parseDigest, IStrategoTerm analyzedAst, IStrategoTerm analysis,
                 IStrategoTerm errors, IStrategoTerm warnings, IStrategoTerm notes, List<String> exceptions,
                 ISpoofaxParseUnit input, IConstraintContext context) {
-            super(resource, parseHash, errors, warnings, notes, exceptions, context);
+            super(resource, parseDigest, errors, warnings, notes, exceptions, context);
             this.input = input;
             this.analyzedAst = analyzedAst;
             this.analysis = analysis;
@@ -537,7 +563,7 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
         @Override public void result(Collection<IMessage> messages, Collection<ISpoofaxAnalyzeUnit> fullResults,
                 Collection<ISpoofaxAnalyzeUnitUpdate> updateResults) {
             if(analysis != null) {
-                context.put(resource, parseHash, analyzedAst, analysis, errors, warnings, notes, exceptions);
+                context.put(resource, parseDigest, analyzedAst, analysis, errors, warnings, notes, exceptions);
             } else {
                 context.remove(resource);
             }
@@ -555,10 +581,10 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
         // 2. initialized by constructor, overwritten by accept
         private IStrategoTerm analysis;
 
-        private CachedUpdate(String resource, int parseHash, IStrategoTerm analyzedAst, IStrategoTerm analysis,
+        private CachedUpdate(String resource, TermDigest parseDigest, IStrategoTerm analyzedAst, IStrategoTerm analysis,
                 IStrategoTerm errors, IStrategoTerm warnings, IStrategoTerm notes, List<String> exceptions,
                 IConstraintContext context) {
-            super(resource, parseHash, errors, warnings, notes, exceptions, context);
+            super(resource, parseDigest, errors, warnings, notes, exceptions, context);
             this.analyzedAst = analyzedAst;
             this.analysis = analysis;
         }
@@ -585,7 +611,7 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
         @Override public void result(Collection<IMessage> messages, Collection<ISpoofaxAnalyzeUnit> fullResults,
                 Collection<ISpoofaxAnalyzeUnitUpdate> updateResults) {
             if(analysis != null) {
-                context.put(resource, parseHash, analyzedAst, analysis, errors, warnings, notes, exceptions);
+                context.put(resource, parseDigest, analyzedAst, analysis, errors, warnings, notes, exceptions);
             } else {
                 context.remove(resource);
             }
@@ -601,8 +627,9 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
         // 2. initialized by accept
         private IStrategoTerm analysis;
 
-        public ProjectFull(String resource, int parseHash, IStrategoTerm analyzedAst, IConstraintContext context) {
-            super(resource, parseHash, null, null, null, null, context);
+        public ProjectFull(String resource, TermDigest parseDigest, IStrategoTerm analyzedAst,
+                IConstraintContext context) {
+            super(resource, parseDigest, null, null, null, null, context);
             this.analyzedAst = analyzedAst;
         }
 
@@ -628,7 +655,7 @@ public abstract class AbstractConstraintAnalyzer implements ISpoofaxAnalyzer {
         @Override public void result(Collection<IMessage> messages, Collection<ISpoofaxAnalyzeUnit> fullResults,
                 Collection<ISpoofaxAnalyzeUnitUpdate> updateResults) {
             if(analysis != null) {
-                context.put(resource, parseHash, analyzedAst, analysis, errors, warnings, notes, exceptions);
+                context.put(resource, parseDigest, analyzedAst, analysis, errors, warnings, notes, exceptions);
             } else {
                 context.remove(resource);
             }
@@ -1,5 +1,6 @@
 package org.metaborg.spoofax.core.analysis.constraint;
 
+import org.metaborg.core.language.ILanguageComponent;
 import org.metaborg.core.resource.IResourceService;
 import org.metaborg.spoofax.core.analysis.AnalysisCommon;
 import org.metaborg.spoofax.core.processing.analyze.ISpoofaxAnalysisResultRequester;
@@ -27,4 +28,8 @@ public class MultiFileConstraintAnalyzer extends AbstractConstraintAnalyzer {
         return true;
     }
 
+    @Override protected boolean deltaAnalysis(ILanguageComponent component) {
+        return component.config().deltaAnalysis();
+    }
+
 }
\ No newline at end of file
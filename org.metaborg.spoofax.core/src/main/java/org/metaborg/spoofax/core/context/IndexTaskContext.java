@@ -1,6 +1,7 @@
 package org.metaborg.spoofax.core.context;
 
 import java.io.IOException;
+import java.util.function.BooleanSupplier;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -39,8 +40,8 @@ public class IndexTaskContext implements IContext, IContextInternal, IIndexTaskC
 
     private final ContextIdentifier identifier;
 
-    private IIndex index;
-    private ITaskEngine taskEngine;
+    private volatile IIndex index;
+    private volatile ITaskEngine taskEngine;
 
 
     public IndexTaskContext(Injector injector, ITermFactory termFactory, ContextIdentifier identifier) {
@@ -84,27 +85,35 @@ public class IndexTaskContext implements IContext, IContextInternal, IIndexTaskC
 
 
     @Override public IClosableLock read() {
-        if(index == null || taskEngine == null) {
-            // THREADING: temporarily acquire a write lock when initializing the index, need exclusive access.
-            try(IClosableLock lock = writeLock()) {
-                /*
-                 * THREADING: re-check if index/task engine are still null now that we have exclusive access, there
-                 * could have been a context switch before acquiring the lock. Check is also needed because the null
-                 * check before is disjunct.
-                 */
-                if(index == null) {
-                    index = loadIndex();
-                }
-                if(taskEngine == null) {
-                    taskEngine = loadTaskEngine();
+        while(true) {
+            if(index == null || taskEngine == null) {
+                // THREADING: temporarily acquire a write lock when initializing the index, need exclusive access.
+                try(IClosableLock lock = writeLock()) {
+                    /*
+                     * THREADING: re-check if index/task engine are still null now that we have exclusive access, there
+                     * could have been a context switch before acquiring the lock. Check is also needed because the
+                     * null check before is disjunct.
+                     */
+                    if(index == null) {
+                        index = loadIndex();
+                    }
+                    if(taskEngine == null) {
+                        taskEngine = loadTaskEngine();
+                    }
                 }
             }
-        }
-
-        index.recover();
-        taskEngine.recover();
 
-        return readLock();
+            final IClosableLock lock = readLock();
+            final IIndex index = this.index;
+            final ITaskEngine taskEngine = this.taskEngine;
+            if(index != null && taskEngine != null) {
+                index.recover();
+                taskEngine.recover();
+                return lock;
+            }
+            // THREADING: the context was unloaded before the read lock was acquired, load it again.
+            lock.close();
+        }
     }
 
     private IClosableLock readLock() {
@@ -142,6 +151,8 @@ public class IndexTaskContext implements IContext, IContextInternal, IIndexTaskC
         }
 
         try(IClosableLock lock = readLock()) {
+            final IIndex index = this.index;
+            final ITaskEngine taskEngine = this.taskEngine;
             if(index != null) {
                 IndexManager.write(index, indexFile(), termFactory);
             }
@@ -212,6 +223,27 @@ public class IndexTaskContext implements IContext, IContextInternal, IIndexTaskC
         }
     }
 
+    @Override public boolean persistAndUnload(BooleanSupplier condition) throws IOException {
+        // THREADING: never wait for the lock, since a waiting writer blocks all readers of this context with the fair
+        // lock.
+        final Lock writeLock = lock.writeLock();
+        if(!writeLock.tryLock()) {
+            return false;
+        }
+        try {
+            if((index == null && taskEngine == null) || !condition.getAsBoolean()) {
+                return false;
+            }
+            // THREADING: persisting acquires the read lock, which is allowed while holding the write lock.
+            persist();
+            index = null;
+            taskEngine = null;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
 
     private FileObject indexFile() throws FileSystemException {
         final CommonPaths paths = new CommonPaths(identifier.location);
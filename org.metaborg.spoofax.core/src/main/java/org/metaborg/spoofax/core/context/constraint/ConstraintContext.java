@@ -1,20 +1,34 @@
 package org.metaborg.spoofax.core.context.constraint;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.NotSerializableException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
 import java.io.Serializable;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BooleanSupplier;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import javax.annotation.Nullable;
+
 import org.apache.commons.io.input.ClassLoaderObjectInputStream;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.provider.local.LocalFile;
 import org.metaborg.core.MetaborgRuntimeException;
 import org.metaborg.core.build.CommonPaths;
 import org.metaborg.core.context.ContextIdentifier;
@@ -31,24 +45,45 @@ import org.spoofax.interpreter.terms.IStrategoTerm;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 import com.google.inject.Injector;
 
 public class ConstraintContext implements IConstraintContext {
 
     private static final ILogger logger = LoggerUtils.logger(ConstraintContext.class);
 
+    private static final String indexFileName = "index";
+    private static final String entryFileExtension = ".entry";
+    private static final String temporaryFileExtension = ".tmp";
+
     private final ContextIdentifier identifier;
     private final String persistentIdentifier;
     private final Injector injector;
-    private final ReadWriteLock lock;
-
-    private State state = null;
-
-    public ConstraintContext(Injector injector, ContextIdentifier identifier) {
+    private final ReentrantReadWriteLock lock;
+    private final @Nullable TermInterner termInterner;
+    private final Object persistLock = new Object();
+    // Number of open shares of a held read lock, and number of reads that borrowed a shared read lock.
+    private final Object shareLock = new Object();
+    private int shares = 0;
+    private int borrowedReads = 0;
+
+    private volatile State state = null;
+    // Keys of entries that were put or removed since the state was last persisted.
+    private final Set<String> dirtyKeys = Sets.newConcurrentHashSet();
+    // Whether all entries must be written on the next persist, because the persisted state was replaced.
+    private volatile boolean fullWrite = false;
+
+    public ConstraintContext(Injector injector, ContextIdentifier identifier, @Nullable TermInterner termInterner) {
         this.identifier = identifier;
         this.persistentIdentifier = FileUtils.sanitize(identifier.language.id().toString());
         this.injector = injector;
         this.lock = new ReentrantReadWriteLock(true);
+        this.termInterner = termInterner;
+    }
+
+    public ConstraintContext(Injector injector, ContextIdentifier identifier) {
+        this(injector, identifier, null);
     }
 
     @Override public String resourceKey(FileObject resource) {
@@ -64,28 +99,47 @@ public class ConstraintContext implements IConstraintContext {
     }
 
     @Override public boolean contains(FileObject resource) {
-        return state.entries.containsKey(resourceKey(resource));
-    }
-
-    @Override public boolean put(FileObject resource, int parseHash, IStrategoTerm analyzedAst, IStrategoTerm analysis,
-            IStrategoTerm errors, IStrategoTerm warnings, IStrategoTerm notes, List<String> exceptions) {
-        return state.entries.put(resourceKey(resource),
-                new Entry(parseHash, analyzedAst, analysis, errors, warnings, notes, exceptions)) != null;
+        final Entry entry = (Entry) state.entries.get(resourceKey(resource));
+        return entry != null && entry.readable();
+    }
+
+    @Override public boolean put(FileObject resource, TermDigest parseDigest, IStrategoTerm analyzedAst,
+            IStrategoTerm analysis, IStrategoTerm errors, IStrategoTerm warnings, IStrategoTerm notes,
+            List<String> exceptions) {
+        if(termInterner != null) {
+            // The analyzed AST is not interned, since it carries origins on nearly all of its subterms.
+            analysis = termInterner.intern(analysis);
+            errors = termInterner.intern(errors);
+            warnings = termInterner.intern(warnings);
+            notes = termInterner.intern(notes);
+        }
+        final String key = resourceKey(resource);
+        dirtyKeys.add(key);
+        return state.entries.put(key,
+                new Entry(parseDigest, analyzedAst, analysis, errors, warnings, notes, exceptions)) != null;
     }
 
     @Override public IConstraintContext.Entry get(FileObject resource) {
-        return state.entries.get(resourceKey(resource));
+        final Entry entry = (Entry) state.entries.get(resourceKey(resource));
+        return entry != null && entry.readable() ? entry : null;
     }
 
     @Override public boolean remove(FileObject resource) {
-        return state.entries.remove(resourceKey(resource)) != null;
+        final String key = resourceKey(resource);
+        if(state.entries.remove(key) == null) {
+            return false;
+        }
+        dirtyKeys.add(key);
+        return true;
     }
 
     @Override public Set<Map.Entry<String, IConstraintContext.Entry>> entrySet() {
-        return state.entries.entrySet();
+        // Entries of which the analysis cannot be read are left out, so iterating reads the analyses of all entries.
+        return Maps.filterValues(state.entries, entry -> ((Entry) entry).readable()).entrySet();
     }
 
     @Override public void clear() {
+        dirtyKeys.addAll(state.entries.keySet());
         state.entries.clear();
     }
 
@@ -108,14 +162,70 @@ public class ConstraintContext implements IConstraintContext {
     }
 
     @Override public IClosableLock read() {
-        if(state == null) {
-            try(IClosableLock lock = writeLock()) {
-                if(state == null) {
-                    state = loadOrInitState();
+        final IClosableLock borrowedLock = borrowSharedRead();
+        if(borrowedLock != null) {
+            return borrowedLock;
+        }
+        while(true) {
+            if(state == null) {
+                try(IClosableLock lock = writeLock()) {
+                    if(state == null) {
+                        state = loadOrInitState();
+                    }
+                }
+            }
+            final IClosableLock lock = readLock();
+            if(state != null) {
+                return lock;
+            }
+            // The context was unloaded before the read lock was acquired, load it again.
+            lock.close();
+        }
+    }
+
+    @Override public IClosableLock shareRead() {
+        if(lock.getReadHoldCount() == 0) {
+            throw new IllegalStateException("Cannot share the read lock of " + this + ", it is not held");
+        }
+        synchronized(shareLock) {
+            ++shares;
+        }
+        return new IClosableLock() {
+            @Override public void close() {
+                boolean interrupted = false;
+                synchronized(shareLock) {
+                    --shares;
+                    // Reads that borrowed the shared lock must be done before the read lock itself is released.
+                    while(shares == 0 && borrowedReads > 0) {
+                        try {
+                            shareLock.wait();
+                        } catch(InterruptedException e) {
+                            interrupted = true;
+                        }
+                    }
                 }
+                if(interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    private @Nullable IClosableLock borrowSharedRead() {
+        synchronized(shareLock) {
+            if(shares == 0) {
+                return null;
             }
+            ++borrowedReads;
         }
-        return readLock();
+        return new IClosableLock() {
+            @Override public void close() {
+                synchronized(shareLock) {
+                    --borrowedReads;
+                    shareLock.notifyAll();
+                }
+            }
+        };
     }
 
     private IClosableLock readLock() {
@@ -148,7 +258,10 @@ public class ConstraintContext implements IConstraintContext {
         }
 
         try(IClosableLock lock = readLock()) {
-            persistState();
+            // Re-check, since the context may have been unloaded before the read lock was acquired.
+            if(state != null) {
+                persistState();
+            }
         }
     }
 
@@ -157,8 +270,9 @@ public class ConstraintContext implements IConstraintContext {
             if(state != null) {
                 state = null;
             }
-            final FileObject contextFile = contextFile();
-            contextFile.delete();
+            dirtyKeys.clear();
+            contextDir().deleteAll();
+            legacyContextFile().delete();
         }
     }
 
@@ -184,25 +298,57 @@ public class ConstraintContext implements IConstraintContext {
         }
     }
 
+    @Override public boolean persistAndUnload(BooleanSupplier condition) throws IOException {
+        // Never wait for the lock, since a waiting writer blocks all readers of this context with the fair lock.
+        final Lock writeLock = lock.writeLock();
+        if(!writeLock.tryLock()) {
+            return false;
+        }
+        try {
+            if(state == null || !condition.getAsBoolean()) {
+                return false;
+            }
+            synchronized(persistLock) {
+                writeContext(contextDir());
+            }
+            state = null;
+            dirtyKeys.clear();
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
     @Override public void unload() {
         if(state == null) {
             return;
         }
         try(IClosableLock lock = writeLock()) {
             state = null;
+            dirtyKeys.clear();
         }
     }
 
     private State loadOrInitState() {
         try {
-            final FileObject contextFile = contextFile();
+            final FileObject contextDir = contextDir();
+            final FileObject legacyFile = legacyContextFile();
             try {
-                if(contextFile.exists()) {
-                    return readContext(contextFile);
+                if(contextDir.resolveFile(indexFileName).exists()) {
+                    final State fileState = readContext(contextDir);
+                    fullWrite = false;
+                    return fileState;
+                }
+                if(legacyFile.exists()) {
+                    // Convert to segments on the next persist, which also deletes the legacy file.
+                    final State fileState = readLegacyContext(legacyFile);
+                    fullWrite = true;
+                    return fileState;
                 }
             } catch(IOException | ClassNotFoundException e) {
-                logger.warn("Load context {} failed: {}", contextFile, e.getMessage());
-                deleteContextFile(contextFile);
+                logger.warn("Load context {} failed: {}", contextDir, e.getMessage());
+                deleteContextFile(contextDir);
+                deleteContextFile(legacyFile);
             }
         } catch(IOException e) {
             logger.warn("Failed to locate context: {}", e.getMessage());
@@ -211,23 +357,85 @@ public class ConstraintContext implements IConstraintContext {
     }
 
     private State initState() {
+        // A new state replaces everything that was persisted before.
+        fullWrite = true;
+        dirtyKeys.clear();
         return new State();
     }
 
-    private FileObject contextFile() throws FileSystemException {
+    private FileObject analysisDir() throws FileSystemException {
         final CommonPaths paths = new CommonPaths(identifier.location);
-        return paths.targetDir().resolveFile("analysis").resolveFile(persistentIdentifier).resolveFile("constraint");
+        return paths.targetDir().resolveFile("analysis").resolveFile(persistentIdentifier);
+    }
+
+    private FileObject contextDir() throws FileSystemException {
+        return analysisDir().resolveFile("constraint-entries");
+    }
+
+    /**
+     * @return File of the format in which the whole state was stored in a single file, which is still read.
+     */
+    private FileObject legacyContextFile() throws FileSystemException {
+        return analysisDir().resolveFile("constraint");
     }
 
-    private State readContext(FileObject file) throws IOException, ClassNotFoundException, ClassCastException {
-        try(ObjectInputStream ois =
-                new ClassLoaderObjectInputStream(getClass().getClassLoader(), file.getContent().getInputStream())) {
+    private static String entryFileName(String key) {
+        return Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString() + entryFileExtension;
+    }
+
+    /**
+     * Reads the index of the context, which holds the parse hash and messages of every entry. Analysis terms are not
+     * read until they are requested.
+     */
+    private State readContext(FileObject dir) throws IOException, ClassNotFoundException {
+        final Timer timer = new Timer(true);
+        deleteTemporaryFiles(dir);
+        final State fileState = new State();
+        final Map<String, Summary> index = readIndex(dir);
+        for(Map.Entry<String, Summary> summary : index.entrySet()) {
+            final String key = summary.getKey();
+            fileState.entries.put(key, new Entry(summary.getValue(), () -> readAnalysis(key)));
+        }
+        logger.debug("Context index with {} entries read in {} s", index.size(), timer.stop() / 1_000_000_000d);
+        return fileState;
+    }
+
+    @SuppressWarnings("unchecked") private Map<String, Summary> readIndex(FileObject dir)
+            throws IOException, ClassNotFoundException {
+        final FileObject indexFile = dir.resolveFile(indexFileName);
+        try(ObjectInputStream ois = new ClassLoaderObjectInputStream(getClass().getClassLoader(),
+                indexFile.getContent().getInputStream())) {
+            return (Map<String, Summary>) ois.readObject();
+        } catch(ClassCastException ex) {
+            throw new IOException("Context index file " + indexFile + " could not be read", ex);
+        }
+    }
+
+    /**
+     * Reads the analysis term of an entry from its entry file.
+     */
+    private IStrategoTerm readAnalysis(String key) throws IOException, ClassNotFoundException {
+        final FileObject entryFile = contextDir().resolveFile(entryFileName(key));
+        try(ObjectInputStream ois = new ClassLoaderObjectInputStream(getClass().getClassLoader(),
+                new BufferedInputStream(entryFile.getContent().getInputStream()))) {
+            final String fileKey = (String) ois.readObject();
+            if(!key.equals(fileKey)) {
+                throw new IOException("Context entry file " + entryFile + " does not belong to " + key);
+            }
+            return (IStrategoTerm) ois.readObject();
+        } catch(ClassCastException ex) {
+            throw new IOException("Context entry file " + entryFile + " could not be read", ex);
+        }
+    }
+
+    private State readLegacyContext(FileObject file) throws IOException, ClassNotFoundException, ClassCastException {
+        try(ObjectInputStream ois = new LegacyFormatInputStream(file.getContent().getInputStream())) {
             State fileState;
             try {
                 fileState = (State) ois.readObject();
             } catch(NotSerializableException ex) {
                 logger.warn("Context could not be read: {}", ex.getMessage());
-                fileState = initState();
+                fileState = new State();
             } catch(Exception ex) {
                 final String msg = logger.format("Context file could not be read: {}", ex.getMessage());
                 throw new IOException(msg);
@@ -241,33 +449,150 @@ public class ConstraintContext implements IConstraintContext {
 
     private void persistState() {
         try {
-            final FileObject contextFile = contextFile();
+            final FileObject contextDir = contextDir();
             try {
-                writeContext(contextFile);
+                synchronized(persistLock) {
+                    writeContext(contextDir);
+                }
+            } catch(NotSerializableException e) {
+                logger.warn("Constraint context persistence not serializable: {}", e.getMessage());
             } catch(IOException e) {
-                logger.warn("Store context {} failed: {}", contextFile, e.getMessage());
+                logger.warn("Store context {} failed: {}", contextDir, e.getMessage());
             }
         } catch(IOException e) {
             logger.warn("Failed to locate context: {}", e.getMessage());
         }
     }
 
-    private void writeContext(FileObject file) throws IOException {
-        Timer timer = new Timer(true);
-        try(ObjectOutputStream oos = new ObjectOutputStream(file.getContent().getOutputStream())) {
-            oos.writeObject(state);
-        } catch(NotSerializableException ex) {
-            logger.warn("Constraint context persistence not serializable: {}", ex.getMessage());
-        } catch(Exception ex) {
-            throw new IOException("Context file could not be written.", ex);
+    /**
+     * Writes the analysis terms that changed since the last write, each into its own file, followed by an index that
+     * holds the parse hashes and messages of all entries. Entries that did not change are not written again.
+     */
+    private void writeContext(FileObject dir) throws IOException {
+        final Timer timer = new Timer(true);
+        int written = 0;
+        try {
+            final Collection<String> keys = ImmutableList.copyOf(fullWrite ? state.entries.keySet() : dirtyKeys);
+            dir.createFolder();
+
+            // Keys of which the entry file could not be written. They stay dirty and are left out of the index, such
+            // that an outdated entry file is never read back as the current one.
+            final Set<String> failedKeys = Sets.newHashSet();
+            IOException failure = null;
+            for(String key : keys) {
+                final FileObject entryFile = dir.resolveFile(entryFileName(key));
+                final Entry entry = (Entry) state.entries.get(key);
+                try {
+                    final IStrategoTerm analysis = entry != null ? entry.analysis() : null;
+                    if(entry == null || entry.unreadable()) {
+                        entryFile.delete();
+                    } else {
+                        writeFile(entryFile, oos -> {
+                            oos.writeObject(key);
+                            oos.writeObject(analysis);
+                        });
+                        // Now that the analysis is stored, it can be released under memory pressure and read again.
+                        entry.persisted(() -> readAnalysis(key));
+                        ++written;
+                    }
+                    dirtyKeys.remove(key);
+                } catch(IOException e) {
+                    failedKeys.add(key);
+                    if(failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+
+            final HashMap<String, Summary> index = Maps.newHashMap();
+            for(Map.Entry<String, IConstraintContext.Entry> entry : state.entries.entrySet()) {
+                // Entries of which the analysis could not be read are left out, such that they are analyzed again.
+                if(!failedKeys.contains(entry.getKey()) && !((Entry) entry.getValue()).unreadable()) {
+                    index.put(entry.getKey(), ((Entry) entry.getValue()).summary);
+                }
+            }
+            writeFile(dir.resolveFile(indexFileName), oos -> oos.writeObject(index));
+
+            if(fullWrite) {
+                deleteStaleEntryFiles(dir);
+                deleteContextFile(legacyContextFile());
+                fullWrite = false;
+            }
+
+            if(failure != null) {
+                throw failure;
+            }
         } finally {
-            logger.debug("Context written in {} s", timer.stop() / 1_000_000_000d);
+            logger.debug("Context entries written: {}, in {} s", written, timer.stop() / 1_000_000_000d);
         }
     }
 
+    private void deleteStaleEntryFiles(FileObject dir) throws FileSystemException {
+        final Set<String> entryFileNames = Sets.newHashSet();
+        for(String key : state.entries.keySet()) {
+            entryFileNames.add(entryFileName(key));
+        }
+        for(FileObject file : dir.getChildren()) {
+            final String name = file.getName().getBaseName();
+            if(name.endsWith(entryFileExtension) && !entryFileNames.contains(name)) {
+                file.delete();
+            }
+        }
+        deleteTemporaryFiles(dir);
+    }
+
+    /**
+     * Deletes temporary files that were left behind by writes that were interrupted.
+     */
+    private static void deleteTemporaryFiles(FileObject dir) throws FileSystemException {
+        for(FileObject file : dir.getChildren()) {
+            if(file.getName().getBaseName().endsWith(temporaryFileExtension)) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Writes a file through a temporary file, such that a failed write does not leave a partial file behind. Local
+     * files are replaced atomically where the file system supports it, such that readers never observe a partially
+     * replaced file.
+     */
+    private static void writeFile(FileObject file, ObjectWriter writer) throws IOException {
+        final FileObject temporary =
+            file.getParent().resolveFile(file.getName().getBaseName() + temporaryFileExtension);
+        try {
+            try(ObjectOutputStream oos = new ObjectOutputStream(temporary.getContent().getOutputStream())) {
+                writer.write(oos);
+            }
+            if(file instanceof LocalFile && temporary instanceof LocalFile) {
+                final Path source = FileUtils.toFile(temporary).toPath();
+                final Path target = FileUtils.toFile(file).toPath();
+                try {
+                    Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch(AtomicMoveNotSupportedException e) {
+                    Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                // The files were changed outside of VFS, so its cached state is outdated.
+                temporary.refresh();
+                file.refresh();
+            } else {
+                temporary.moveTo(file);
+            }
+        } catch(IOException e) {
+            temporary.delete();
+            throw e;
+        }
+    }
+
+    @FunctionalInterface private interface ObjectWriter {
+        void write(ObjectOutputStream oos) throws IOException;
+    }
+
     private void deleteContextFile(FileObject file) {
         try {
-            file.delete();
+            file.deleteAll();
         } catch(FileSystemException e) {
             logger.warn("Deleting context {} failed: {}", file, e.getMessage());
         }
@@ -297,9 +622,7 @@ public class ConstraintContext implements IConstraintContext {
         return String.format("Constraint context for %s, %s", identifier.location, identifier.language);
     }
 
-    private static class State implements Serializable {
-
-        private static final long serialVersionUID = 1L;
+    private static class State {
 
         public final Map<String, IConstraintContext.Entry> entries;
 
@@ -309,31 +632,89 @@ public class ConstraintContext implements IConstraintContext {
 
     }
 
-    private static class Entry implements IConstraintContext.Entry, Serializable {
+    /**
+     * Part of an entry that is kept in the index, and is therefore always loaded.
+     */
+    private static class Summary implements Serializable {
 
-        private static final long serialVersionUID = 1L;
+        private static final long serialVersionUID = 2L;
 
-        public final int parseHash;
-        public transient IStrategoTerm analyzedAst;
-        public final IStrategoTerm analysis;
+        public final @Nullable TermDigest parseDigest;
         public final IStrategoTerm errors;
         public final IStrategoTerm warnings;
         public final IStrategoTerm notes;
         public final List<String> exceptions;
 
-        Entry(int parseHash, IStrategoTerm analyzedAst, IStrategoTerm analysis, IStrategoTerm errors,
-                IStrategoTerm warnings, IStrategoTerm notes, List<String> exceptions) {
-            this.parseHash = parseHash;
-            this.analyzedAst = analyzedAst;
-            this.analysis = analysis;
+        Summary(@Nullable TermDigest parseDigest, IStrategoTerm errors, IStrategoTerm warnings, IStrategoTerm notes,
+                List<String> exceptions) {
+            this.parseDigest = parseDigest;
             this.errors = errors;
             this.warnings = warnings;
             this.notes = notes;
             this.exceptions = ImmutableList.copyOf(exceptions);
         }
 
-        @Override public int parseHash() {
-            return parseHash;
+    }
+
+    @FunctionalInterface private interface AnalysisLoader {
+        IStrategoTerm load() throws IOException, ClassNotFoundException;
+    }
+
+    /**
+     * Entry of which the analysis term is held strongly until it is persisted. After that, it is only softly
+     * reachable, and read again from its entry file when it was released.
+     */
+    private static class Entry implements IConstraintContext.Entry {
+
+        private final Summary summary;
+        private final @Nullable IStrategoTerm analyzedAst;
+        private volatile @Nullable IStrategoTerm analysis;
+        private volatile SoftReference<IStrategoTerm> releasableAnalysis;
+        private volatile @Nullable AnalysisLoader analysisLoader;
+        // Whether the analysis could not be read from its entry file, in which case the entry is analyzed again.
+        private volatile boolean unreadable = false;
+
+        Entry(@Nullable TermDigest parseDigest, @Nullable IStrategoTerm analyzedAst, IStrategoTerm analysis,
+                IStrategoTerm errors, IStrategoTerm warnings, IStrategoTerm notes, List<String> exceptions) {
+            this.summary = new Summary(parseDigest, errors, warnings, notes, exceptions);
+            this.analyzedAst = analyzedAst;
+            this.analysis = analysis;
+        }
+
+        Entry(Summary summary, AnalysisLoader analysisLoader) {
+            this.summary = summary;
+            this.analyzedAst = null;
+            this.releasableAnalysis = new SoftReference<>(null);
+            this.analysisLoader = analysisLoader;
+        }
+
+        void persisted(AnalysisLoader analysisLoader) {
+            final IStrategoTerm analysis = this.analysis;
+            if(analysis == null) {
+                return;
+            }
+            this.releasableAnalysis = new SoftReference<>(analysis);
+            this.analysisLoader = analysisLoader;
+            this.analysis = null;
+        }
+
+        /**
+         * @return Whether the analysis of this entry can be read, which reads it if it was released.
+         */
+        boolean readable() {
+            analysis();
+            return !unreadable;
+        }
+
+        /**
+         * @return Whether reading the analysis of this entry failed. Does not read the analysis.
+         */
+        boolean unreadable() {
+            return unreadable;
+        }
+
+        @Override public TermDigest parseDigest() {
+            return summary.parseDigest;
         }
 
         @Override public IStrategoTerm analyzedAst() {
@@ -341,23 +722,105 @@ public class ConstraintContext implements IConstraintContext {
         }
 
         @Override public IStrategoTerm analysis() {
-            return analysis;
+            final IStrategoTerm analysis = this.analysis;
+            if(analysis != null) {
+                return analysis;
+            }
+            final AnalysisLoader analysisLoader = this.analysisLoader;
+            if(analysisLoader == null || unreadable) {
+                // Entry without analysis that was never persisted, or of which the analysis could not be read.
+                return null;
+            }
+            synchronized(this) {
+                IStrategoTerm releasedAnalysis = releasableAnalysis.get();
+                if(releasedAnalysis == null) {
+                    try {
+                        releasedAnalysis = analysisLoader.load();
+                    } catch(IOException | ClassNotFoundException e) {
+                        logger.warn("Reading analysis of context entry failed, it will be analyzed again: {}",
+                            e.getMessage());
+                        unreadable = true;
+                        return null;
+                    }
+                    releasableAnalysis = new SoftReference<>(releasedAnalysis);
+                }
+                return releasedAnalysis;
+            }
         }
 
         @Override public IStrategoTerm errors() {
-            return errors;
+            return summary.errors;
         }
 
         @Override public IStrategoTerm warnings() {
-            return warnings;
+            return summary.warnings;
         }
 
         @Override public IStrategoTerm notes() {
-            return notes;
+            return summary.notes;
         }
 
         @Override public List<String> exceptions() {
-            return exceptions;
+            return summary.exceptions;
+        }
+
+    }
+
+    /**
+     * Object input stream for the format in which the whole state was stored in a single file. The state and entry
+     * classes of that format are read as {@link LegacyState} and {@link LegacyEntry}, which have the same serialized
+     * form, and resolve to the current {@link State} and {@link Entry} classes.
+     */
+    private static class LegacyFormatInputStream extends ClassLoaderObjectInputStream {
+
+        private static final String stateClassName = ConstraintContext.class.getName() + "$State";
+        private static final String entryClassName = ConstraintContext.class.getName() + "$Entry";
+
+        LegacyFormatInputStream(InputStream inputStream) throws IOException {
+            super(ConstraintContext.class.getClassLoader(), inputStream);
+        }
+
+        @Override protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            final ObjectStreamClass descriptor = super.readClassDescriptor();
+            if(stateClassName.equals(descriptor.getName())) {
+                return ObjectStreamClass.lookup(LegacyState.class);
+            } else if(entryClassName.equals(descriptor.getName())) {
+                return ObjectStreamClass.lookup(LegacyEntry.class);
+            }
+            return descriptor;
+        }
+
+    }
+
+    private static class LegacyState implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Map<String, IConstraintContext.Entry> entries;
+
+        private Object readResolve() {
+            final State state = new State();
+            state.entries.putAll(entries);
+            return state;
+        }
+
+    }
+
+    private static class LegacyEntry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        // 32-bit hash code of the parsed AST, which is not converted into a digest, such that converted entries are
+        // analyzed again.
+        @SuppressWarnings("unused") private int parseHash;
+        private IStrategoTerm analysis;
+        private IStrategoTerm errors;
+        private IStrategoTerm warnings;
+        private IStrategoTerm notes;
+        private List<String> exceptions;
+
+        private Object readResolve() {
+            return new Entry(null, null, analysis, errors, warnings, notes, exceptions);
         }
 
     }
@@ -0,0 +1,22 @@
+package org.metaborg.spoofax.core.context.constraint;
+
+/**
+ * Configuration for constraint contexts.
+ */
+public class ConstraintContextConfiguration {
+    public static final boolean defaultInternTerms = false;
+
+    /**
+     * Whether analysis results stored in constraint contexts are interned, such that structurally equal subterms are
+     * shared between entries and contexts instead of being kept alive separately.
+     */
+    public final boolean internTerms;
+
+    public ConstraintContextConfiguration() {
+        this(defaultInternTerms);
+    }
+
+    public ConstraintContextConfiguration(boolean internTerms) {
+        this.internTerms = internTerms;
+    }
+}
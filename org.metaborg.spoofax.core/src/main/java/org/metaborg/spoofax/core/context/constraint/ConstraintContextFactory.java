@@ -11,13 +11,18 @@ public class ConstraintContextFactory implements IContextFactory {
     public static final String name = "constraint";
 
     private final Injector injector;
+    private final ConstraintContextConfiguration config;
+    private final TermInterner termInterner;
 
-    @Inject public ConstraintContextFactory(Injector injector) {
+    @Inject public ConstraintContextFactory(Injector injector, ConstraintContextConfiguration config,
+            TermInterner termInterner) {
         this.injector = injector;
+        this.config = config;
+        this.termInterner = termInterner;
     }
 
     @Override public IConstraintContext create(ContextIdentifier identifier) {
-        return new ConstraintContext(injector, identifier);
+        return new ConstraintContext(injector, identifier, config.internTerms ? termInterner : null);
     }
 
     @Override public TemporaryConstraintContext createTemporary(ContextIdentifier identifier) {
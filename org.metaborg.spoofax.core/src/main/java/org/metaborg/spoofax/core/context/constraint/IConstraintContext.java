@@ -26,12 +26,12 @@ public interface IConstraintContext extends IContextInternal {
     boolean contains(FileObject resource);
 
 
-    default boolean put(String resource, int parseHash, IStrategoTerm analyzedAst, IStrategoTerm analysis,
+    default boolean put(String resource, TermDigest parseDigest, IStrategoTerm analyzedAst, IStrategoTerm analysis,
             IStrategoTerm errors, IStrategoTerm warnings, IStrategoTerm notes, List<String> exceptions) {
-        return put(keyResource(resource), parseHash, analyzedAst, analysis, errors, warnings, notes, exceptions);
+        return put(keyResource(resource), parseDigest, analyzedAst, analysis, errors, warnings, notes, exceptions);
     }
 
-    boolean put(FileObject resource, int parseHash, IStrategoTerm analyzedAst, IStrategoTerm analysis,
+    boolean put(FileObject resource, TermDigest parseDigest, IStrategoTerm analyzedAst, IStrategoTerm analysis,
             IStrategoTerm errors, IStrategoTerm warnings, IStrategoTerm notes, List<String> exceptions);
 
 
@@ -56,7 +56,10 @@ public interface IConstraintContext extends IContextInternal {
 
     interface Entry {
 
-        int parseHash();
+        /**
+         * @return Digest of the parsed AST the entry was analyzed from, or null if it is unknown.
+         */
+        TermDigest parseDigest();
 
         IStrategoTerm analyzedAst();
 
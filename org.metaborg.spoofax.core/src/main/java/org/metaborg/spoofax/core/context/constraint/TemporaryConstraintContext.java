@@ -39,9 +39,10 @@ public class TemporaryConstraintContext implements IConstraintContext, ITemporar
         return context.contains(resource);
     }
 
-    @Override public boolean put(FileObject resource, int contentHash, IStrategoTerm analyzedAst, IStrategoTerm value,
-            IStrategoTerm errors, IStrategoTerm warnings, IStrategoTerm notes, List<String> exceptions) {
-        return context.put(resource, contentHash, analyzedAst, value, errors, warnings, notes, exceptions);
+    @Override public boolean put(FileObject resource, TermDigest parseDigest, IStrategoTerm analyzedAst,
+            IStrategoTerm value, IStrategoTerm errors, IStrategoTerm warnings, IStrategoTerm notes,
+            List<String> exceptions) {
+        return context.put(resource, parseDigest, analyzedAst, value, errors, warnings, notes, exceptions);
     }
 
     @Override public Entry get(FileObject resource) {
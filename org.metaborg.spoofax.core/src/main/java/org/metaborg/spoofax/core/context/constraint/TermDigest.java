@@ -0,0 +1,128 @@
+package org.metaborg.spoofax.core.context.constraint;
+
+import java.io.Serializable;
+
+import org.spoofax.interpreter.terms.IStrategoAppl;
+import org.spoofax.interpreter.terms.IStrategoConstructor;
+import org.spoofax.interpreter.terms.IStrategoInt;
+import org.spoofax.interpreter.terms.IStrategoList;
+import org.spoofax.interpreter.terms.IStrategoReal;
+import org.spoofax.interpreter.terms.IStrategoString;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.interpreter.terms.IStrategoTuple;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * 128-bit digest of the structure of a term, used to detect whether a file changed since it was last analyzed. Unlike
+ * the 32-bit hash code of a term, collisions are too unlikely to cause a changed file to be skipped.
+ *
+ * Digests are cached per term instance, such that the digest of a parsed AST is computed only once, however often the
+ * AST is analyzed.
+ */
+public final class TermDigest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // Weak keys are compared by identity, and do not keep ASTs alive.
+    private static final Cache<IStrategoTerm, TermDigest> digests = CacheBuilder.newBuilder().weakKeys().build();
+
+    private final long high;
+    private final long low;
+
+
+    private TermDigest(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+
+    /**
+     * Gets the digest of given term, computing it if it was not computed for this instance before.
+     *
+     * @param term
+     *            Term to get the digest of.
+     * @return Digest of the structure of the term, including annotations.
+     */
+    public static TermDigest of(IStrategoTerm term) {
+        final TermDigest cached = digests.getIfPresent(term);
+        if(cached != null) {
+            return cached;
+        }
+        final Hasher hasher = Hashing.murmur3_128().newHasher();
+        digest(term, hasher);
+        final HashCode hash = hasher.hash();
+        final byte[] bytes = hash.asBytes();
+        long high = 0;
+        long low = 0;
+        for(int i = 0; i < 8; ++i) {
+            high = (high << 8) | (bytes[i] & 0xFF);
+            low = (low << 8) | (bytes[i + 8] & 0xFF);
+        }
+        final TermDigest digest = new TermDigest(high, low);
+        digests.put(term, digest);
+        return digest;
+    }
+
+    private static void digest(IStrategoTerm term, Hasher hasher) {
+        if(term instanceof IStrategoAppl) {
+            final IStrategoConstructor constructor = ((IStrategoAppl) term).getConstructor();
+            hasher.putByte((byte) 'A').putUnencodedChars(constructor.getName()).putInt(constructor.getArity());
+        } else if(term instanceof IStrategoTuple) {
+            hasher.putByte((byte) 'T');
+        } else if(term instanceof IStrategoList) {
+            hasher.putByte((byte) 'L');
+        } else if(term instanceof IStrategoString) {
+            final String value = ((IStrategoString) term).stringValue();
+            hasher.putByte((byte) 'S').putInt(value.length()).putUnencodedChars(value);
+        } else if(term instanceof IStrategoInt) {
+            hasher.putByte((byte) 'I').putInt(((IStrategoInt) term).intValue());
+        } else if(term instanceof IStrategoReal) {
+            hasher.putByte((byte) 'R').putDouble(((IStrategoReal) term).realValue());
+        } else {
+            hasher.putByte((byte) '?').putUnencodedChars(term.getClass().getName());
+        }
+
+        hasher.putInt(term.getSubtermCount());
+        if(term instanceof IStrategoList) {
+            // Walk lists through their tails, since getting the i-th subterm of a cons list takes time linear in i.
+            for(IStrategoList list = (IStrategoList) term; !list.isEmpty(); list = list.tail()) {
+                digest(list.head(), hasher);
+            }
+        } else {
+            final int count = term.getSubtermCount();
+            for(int i = 0; i < count; ++i) {
+                digest(term.getSubterm(i), hasher);
+            }
+        }
+
+        final IStrategoList annotations = term.getAnnotations();
+        if(annotations != null && !annotations.isEmpty()) {
+            hasher.putByte((byte) '{');
+            digest(annotations, hasher);
+        }
+    }
+
+
+    @Override public int hashCode() {
+        return (int) (high ^ (high >>> 32) ^ low ^ (low >>> 32));
+    }
+
+    @Override public boolean equals(Object obj) {
+        if(this == obj)
+            return true;
+        if(obj == null)
+            return false;
+        if(getClass() != obj.getClass())
+            return false;
+        final TermDigest other = (TermDigest) obj;
+        return high == other.high && low == other.low;
+    }
+
+    @Override public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+}
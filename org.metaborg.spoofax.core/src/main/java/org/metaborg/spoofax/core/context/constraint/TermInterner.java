@@ -0,0 +1,116 @@
+package org.metaborg.spoofax.core.context.constraint;
+
+import javax.annotation.Nullable;
+
+import org.spoofax.interpreter.terms.IStrategoAppl;
+import org.spoofax.interpreter.terms.IStrategoList;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.interpreter.terms.IStrategoTuple;
+import org.spoofax.interpreter.terms.ITermFactory;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.inject.Inject;
+
+/**
+ * Interns terms, such that structurally equal terms share a single instance. Canonical instances are weakly
+ * referenced, and are garbage collected once no interned term refers to them anymore.
+ * 
+ * Only subtrees without attachments are interned, since attachments such as origins are not part of term equality,
+ * and attachments added later to a shared instance would be observed through all terms that share it. Terms with
+ * attachments are kept as they are, including their subterms, since they are usually shared with the AST. Their
+ * attachment-free siblings are still interned, and their attachment-free parents are rebuilt to refer to the
+ * interned siblings.
+ */
+public class TermInterner {
+    private final ITermFactory termFactory;
+    private final Interner<IStrategoTerm> interner = Interners.newWeakInterner();
+
+
+    @Inject public TermInterner(ITermFactory termFactory) {
+        this.termFactory = termFactory;
+    }
+
+
+    /**
+     * Interns the attachment-free subtrees of given term.
+     * 
+     * @param term
+     *            Term to intern.
+     * @return Structurally equal term, sharing attachment-free subtrees with previously interned terms.
+     */
+    public IStrategoTerm intern(IStrategoTerm term) {
+        return intern(term, new boolean[1]);
+    }
+
+
+    /**
+     * Interns the attachment-free subtrees of given term.
+     * 
+     * @param canonical
+     *            Set to whether the returned term is a canonical instance, which is the case if neither the term nor
+     *            any of its subterms has attachments.
+     * @return Structurally equal term, sharing attachment-free subtrees with previously interned terms.
+     */
+    private IStrategoTerm intern(IStrategoTerm term, boolean[] canonical) {
+        if(term.getAttachment(null) != null) {
+            canonical[0] = false;
+            return term;
+        }
+
+        final IStrategoTerm[] subterms = subterms(term);
+        IStrategoTerm[] internedSubterms = null;
+        boolean canonicalSubterms = true;
+        for(int i = 0; i < subterms.length; ++i) {
+            final IStrategoTerm subterm = subterms[i];
+            final IStrategoTerm internedSubterm = intern(subterm, canonical);
+            canonicalSubterms &= canonical[0];
+            if(internedSubterm != subterm) {
+                if(internedSubterms == null) {
+                    // Copy, since the subterm array may be the internal array of the term.
+                    internedSubterms = subterms.clone();
+                }
+                internedSubterms[i] = internedSubterm;
+            }
+        }
+
+        final IStrategoTerm rebuilt = internedSubterms != null ? rebuild(term, internedSubterms) : term;
+        if(rebuilt == null) {
+            canonical[0] = false;
+            return term;
+        }
+        canonical[0] = canonicalSubterms;
+        return canonicalSubterms ? interner.intern(rebuilt) : rebuilt;
+    }
+
+    /**
+     * @return Subterms of given term. Lists are walked through their tails, since getting the i-th subterm of a cons
+     *         list takes time linear in i.
+     */
+    private static IStrategoTerm[] subterms(IStrategoTerm term) {
+        if(!(term instanceof IStrategoList)) {
+            return term.getAllSubterms();
+        }
+        final IStrategoTerm[] subterms = new IStrategoTerm[term.getSubtermCount()];
+        int i = 0;
+        for(IStrategoList list = (IStrategoList) term; !list.isEmpty(); list = list.tail()) {
+            subterms[i++] = list.head();
+        }
+        return subterms;
+    }
+
+    /**
+     * @return Term of the same kind as given term, with given subterms, or null if this kind of term cannot be rebuilt.
+     */
+    private @Nullable IStrategoTerm rebuild(IStrategoTerm term, IStrategoTerm[] subterms) {
+        final IStrategoList annotations = term.getAnnotations();
+        if(term instanceof IStrategoAppl) {
+            return termFactory.makeAppl(((IStrategoAppl) term).getConstructor(), subterms, annotations);
+        } else if(term instanceof IStrategoTuple) {
+            return termFactory.makeTuple(subterms, annotations);
+        } else if(term instanceof IStrategoList) {
+            return termFactory.makeList(subterms, annotations);
+        }
+        return null;
+    }
+}
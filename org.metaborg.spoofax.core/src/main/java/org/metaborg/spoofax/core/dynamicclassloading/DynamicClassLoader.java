@@ -2,35 +2,100 @@ package org.metaborg.spoofax.core.dynamicclassloading;
 
 import org.strategoxt.HybridInterpreter;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 public class DynamicClassLoader extends ClassLoader {
+    public static final int defaultMaxCachedLookups = 4096;
+
     private final ClassLoader strategoClassLoader = HybridInterpreter.class.getClassLoader();
     private final Iterable<ClassLoader> additionalClassLoaders;
 
+    // Classes resolved through the Stratego or additional class loaders, which are not recorded by findLoadedClass.
+    // Weakly referenced, such that the cache does not keep classes alive.
+    private final Cache<String, Class<?>> resolved;
+    // Names of classes that could not be resolved by any class loader. The language class loader that uses this class
+    // loader as parent asks for each of its own classes first, so misses are frequent.
+    private final Cache<String, Boolean> unresolved;
+
 
     public DynamicClassLoader(Iterable<ClassLoader> additionalClassLoaders) {
+        this(additionalClassLoaders, defaultMaxCachedLookups);
+    }
+
+    /**
+     * @param maxCachedLookups
+     *            Maximum number of resolved classes, and of names of unresolved classes, that are cached.
+     */
+    public DynamicClassLoader(Iterable<ClassLoader> additionalClassLoaders, int maxCachedLookups) {
         super(DynamicClassLoader.class.getClassLoader());
         this.additionalClassLoaders = additionalClassLoaders;
+        this.resolved = CacheBuilder.newBuilder().maximumSize(maxCachedLookups).weakValues().build();
+        this.unresolved = CacheBuilder.newBuilder().maximumSize(maxCachedLookups).build();
+    }
+
+
+    /**
+     * Removes all cached lookups.
+     */
+    public void clearCache() {
+        resolved.invalidateAll();
+        unresolved.invalidateAll();
     }
 
 
     @Override protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if(unresolved.getIfPresent(name) != null) {
+            throw new UnresolvedClassException(name);
+        }
+        final Class<?> resolvedClass = resolved.getIfPresent(name);
+        if(resolvedClass != null) {
+            return resolvedClass;
+        }
+
         try {
             return super.loadClass(name, resolve);
         } catch(ClassNotFoundException e) {
         }
 
-        try {
-            return strategoClassLoader.loadClass(name);
-        } catch(ClassNotFoundException e) {
+        if(strategoClassLoader != getParent()) {
+            try {
+                return resolved(name, strategoClassLoader.loadClass(name));
+            } catch(ClassNotFoundException e) {
+            }
         }
 
         for(ClassLoader classLoader : additionalClassLoaders) {
             try {
-                return classLoader.loadClass(name);
+                return resolved(name, classLoader.loadClass(name));
             } catch(ClassNotFoundException e) {
             }
         }
 
-        throw new ClassNotFoundException("Class " + name + " could not be resolved inside a Stratego runtime");
+        unresolved.put(name, true);
+        throw new UnresolvedClassException(name);
+    }
+
+    private Class<?> resolved(String name, Class<?> resolvedClass) {
+        resolved.put(name, resolvedClass);
+        return resolvedClass;
+    }
+
+
+    /**
+     * Exception for classes that could not be resolved, without a stack trace since it is thrown for every miss.
+     */
+    private static class UnresolvedClassException extends ClassNotFoundException {
+        private static final long serialVersionUID = 6318095329478385187L;
+
+
+        public UnresolvedClassException(String name) {
+            super("Class " + name + " could not be resolved inside a Stratego runtime");
+        }
+
+
+        @Override public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
     }
 }
@@ -30,10 +30,11 @@ public class DynamicClassLoadingService implements IDynamicClassLoadingService,
     private static final ILogger logger = LoggerUtils.logger(DynamicClassLoadingService.class);
 
     private final IResourceService resourceService;
+
     private final Set<ClassLoader> additionalClassLoaders;
 
-    private final Map<ILanguageComponent, ClassLoader> classLoaderCache = Maps.newHashMap();
-    private final Map<ILanguageComponent, Map<Class<?>, ServiceLoader<?>>> serviceLoaderCache = Maps.newHashMap();
+    private final Map<ILanguageComponent, URLClassLoader> classLoaderCache = Maps.newConcurrentMap();
+    private final Map<ILanguageComponent, Map<Class<?>, ServiceLoader<?>>> serviceLoaderCache = Maps.newConcurrentMap();
     private final Injector injector;
 
 
@@ -101,10 +102,11 @@ public class DynamicClassLoadingService implements IDynamicClassLoadingService,
         return result;
     }
 
-    private ClassLoader classLoader(ILanguageComponent component) {
-        if(classLoaderCache.containsKey(component)) {
-            return classLoaderCache.get(component);
-        }
+    @Override public ClassLoader classLoader(ILanguageComponent component) {
+        return classLoaderCache.computeIfAbsent(component, this::createClassLoader);
+    }
+
+    private URLClassLoader createClassLoader(ILanguageComponent component) {
         final Collection<FileObject> jarFiles = component.facet(DynamicClassLoadingFacet.class).jarFiles;
         final URL[] classpath = new URL[jarFiles.size()];
         try {
@@ -118,15 +120,17 @@ public class DynamicClassLoadingService implements IDynamicClassLoadingService,
             throw new MetaborgRuntimeException(e);
         }
         logger.trace("Loading jar files {}", (Object) classpath);
-        URLClassLoader classLoader = new URLClassLoader(classpath, new DynamicClassLoader(additionalClassLoaders));
-        classLoaderCache.put(component, classLoader);
-        return classLoader;
+        // Each component gets its own parent, such that its cached lookups are dropped with the component.
+        return new URLClassLoader(classpath, new DynamicClassLoader(additionalClassLoaders));
     }
 
     @Override
     public void invalidateCache(ILanguageComponent component) {
         serviceLoaderCache.remove(component);
-        classLoaderCache.remove(component);
+        final URLClassLoader classLoader = classLoaderCache.remove(component);
+        if(classLoader != null) {
+            ((DynamicClassLoader) classLoader.getParent()).clearCache();
+        }
     }
 
     @Override
@@ -33,4 +33,16 @@ public interface IDynamicClassLoadingService {
      *             on failure to find, instantiate, access, or cast the class
      */
     <T> List<T> loadClasses(ILanguageComponent component, Class<T> type) throws MetaborgException;
+
+    /**
+     * Get the class loader of a language component, which loads classes from the provider jars of the component. The
+     * class loader is created once per component and shared by all users, such that classes are only defined once.
+     * 
+     * @param component
+     *            language component that may have provider jars
+     * @return the class loader of the component
+     * @throws MetaborgRuntimeException
+     *             on failure to locate a provider jar
+     */
+    ClassLoader classLoader(ILanguageComponent component);
 }
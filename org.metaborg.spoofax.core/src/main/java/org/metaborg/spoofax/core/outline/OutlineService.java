@@ -98,6 +98,7 @@ public class OutlineService implements ISpoofaxOutlineService {
             }
             final IStrategoTerm input = common.builderInputTerm(result.ast(), source, source);
             final IStrategoTerm outlineTerm = common.invoke(interpreter, input, strategy);
+            strategoRuntimeService.recycle(interpreter);
             if(outlineTerm == null) {
                 return null;
             }
@@ -126,6 +127,7 @@ public class OutlineService implements ISpoofaxOutlineService {
             final HybridInterpreter interpreter = strategoRuntimeService.runtime(contributor, context);
             final IStrategoTerm input = common.builderInputTerm(result.ast(), source, context.location());
             final IStrategoTerm outlineTerm = common.invoke(interpreter, input, strategy);
+            strategoRuntimeService.recycle(interpreter);
             if(outlineTerm == null) {
                 return null;
             }
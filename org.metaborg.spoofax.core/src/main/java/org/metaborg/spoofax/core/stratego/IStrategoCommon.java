@@ -1,5 +1,7 @@
 package org.metaborg.spoofax.core.stratego;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 
 import javax.annotation.Nullable;
@@ -219,6 +221,20 @@ public interface IStrategoCommon {
      */
     String toString(IStrategoTerm term);
 
+    /**
+     * Writes given term to given writer, in the same representation as {@link #toString(IStrategoTerm)}. Strings are
+     * written directly, without creating intermediate copies, such that large generated outputs can be written to
+     * files without holding them in memory several times.
+     * 
+     * @param term
+     *            Term to write.
+     * @param writer
+     *            Writer to write to. Not closed by this method.
+     * @throws IOException
+     *             When writing fails.
+     */
+    void write(IStrategoTerm term, Writer writer) throws IOException;
+
     /**
      * Pretty prints an ATerm.
      * 
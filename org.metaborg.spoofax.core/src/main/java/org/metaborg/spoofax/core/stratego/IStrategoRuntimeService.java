@@ -40,8 +40,42 @@ public interface IStrategoRuntimeService extends ILanguageCache {
     HybridInterpreter runtime(ILanguageComponent component, FileObject location)
         throws MetaborgException;
 
+    /**
+     * Loads the Stratego CTree and JAR files of given components in parallel, such that later requests for runtimes of
+     * these components do not have to load them. Components without Stratego facets are skipped. Components that are
+     * already loaded, or being loaded by another thread, are not loaded again.
+     * 
+     * @param components
+     *            Language components to load.
+     * @param threads
+     *            Maximum number of components to load at the same time.
+     * @throws MetaborgException
+     *             When loading a Stratego CTree or JAR fails for one or more components.
+     */
+    void warm(Iterable<ILanguageComponent> components, int threads) throws MetaborgException;
+
+    /**
+     * Returns a runtime obtained from {@link #runtime} after use, such that it can be reused for later requests of the
+     * same component, skipping cloning and initialization. The runtime must not be used by the caller afterwards.
+     * Recycling is optional; runtimes that are not recycled are garbage collected as usual.
+     * 
+     * @param runtime
+     *            Runtime to recycle.
+     */
+    void recycle(HybridInterpreter runtime);
+
     /**
      * @return Generic Stratego runtime, with just the standard libraries loaded.
      */
     HybridInterpreter genericRuntime();
+
+    /**
+     * Returns a generic Stratego runtime, with the standard libraries and the stratego_aterm library loaded, that is
+     * cached for the calling thread. Subsequent calls from the same thread return the same runtime, avoiding the
+     * creation of a new runtime for small tasks such as pretty-printing. The runtime is not thread-safe and must not be
+     * passed to other threads. Cached runtimes are released when this service is closed.
+     * 
+     * @return Generic Stratego runtime of the calling thread.
+     */
+    HybridInterpreter threadGenericRuntime();
 }
@@ -1,5 +1,7 @@
 package org.metaborg.spoofax.core.stratego;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 
 import javax.annotation.Nullable;
@@ -42,12 +44,14 @@ public class StrategoCommon implements IStrategoCommon {
 
     private final IStrategoRuntimeService strategoRuntimeService;
     private final ITermFactory termFactory;
+    private final StrategoProfiler profiler;
 
 
-    @Inject public StrategoCommon(IStrategoRuntimeService strategoRuntimeService,
-        ITermFactory termFactory) {
+    @Inject public StrategoCommon(IStrategoRuntimeService strategoRuntimeService, ITermFactory termFactory,
+        StrategoProfiler profiler) {
         this.strategoRuntimeService = strategoRuntimeService;
         this.termFactory = termFactory;
+        this.profiler = profiler;
     }
 
 
@@ -57,7 +61,9 @@ public class StrategoCommon implements IStrategoCommon {
             return null;
         }
         final HybridInterpreter runtime = strategoRuntimeService.runtime(component, context);
-        return invoke(runtime, input, strategy);
+        final IStrategoTerm result = invoke(runtime, input, strategy);
+        strategoRuntimeService.recycle(runtime);
+        return result;
     }
 
     @Override public @Nullable IStrategoTerm invoke(ILanguageImpl impl, IContext context, IStrategoTerm input,
@@ -71,6 +77,7 @@ public class StrategoCommon implements IStrategoCommon {
             final HybridInterpreter runtime = strategoRuntimeService.runtime(component, context);
             try {
                 final IStrategoTerm result = invoke(runtime, input, strategy);
+                strategoRuntimeService.recycle(runtime);
                 return result;
             } catch(MetaborgException ex) {
                 exceptions.add(ex);
@@ -91,6 +98,7 @@ public class StrategoCommon implements IStrategoCommon {
                 final HybridInterpreter runtime = strategoRuntimeService.runtime(component, context);
                 try {
                     final IStrategoTerm result = invoke(runtime, input, strategy, termArguments);
+                    strategoRuntimeService.recycle(runtime);
                     return result;
                 } catch(MetaborgException ex) {
                     exceptions.add(ex);
@@ -111,6 +119,7 @@ public class StrategoCommon implements IStrategoCommon {
             final HybridInterpreter runtime = strategoRuntimeService.runtime(component, location);
             try {
                 final IStrategoTerm result = invoke(runtime, input, strategy);
+                strategoRuntimeService.recycle(runtime);
                 return result;
             } catch(MetaborgException ex) {
                 exceptions.add(ex);
@@ -131,6 +140,7 @@ public class StrategoCommon implements IStrategoCommon {
                 final HybridInterpreter runtime = strategoRuntimeService.runtime(component, location);
                 try {
                     final IStrategoTerm result = invoke(runtime, input, strategy, termArguments);
+                    strategoRuntimeService.recycle(runtime);
                     return result;
                 } catch(MetaborgException ex) {
                     exceptions.add(ex);
@@ -144,6 +154,7 @@ public class StrategoCommon implements IStrategoCommon {
     @Override public @Nullable IStrategoTerm invoke(HybridInterpreter runtime, IStrategoTerm input, String strategy)
         throws MetaborgException {
         runtime.setCurrent(input);
+        final StrategoProfiler.Call call = profiler.enter(strategy);
         try {
             boolean success = runtime.invoke(strategy);
             if(!success) {
@@ -152,6 +163,8 @@ public class StrategoCommon implements IStrategoCommon {
             return runtime.current();
         } catch(InterpreterException e) {
             throw handleException(e, runtime, strategy);
+        } finally {
+            profiler.exit(call);
         }
     }
     
@@ -165,12 +178,15 @@ public class StrategoCommon implements IStrategoCommon {
 		final IStrategoAppl strategyCallTerm = termFactory.makeAppl("CallT", strategyNameTerm, termFactory.makeList(),
 				termFactory.makeList(termArguments));
 
+		final StrategoProfiler.Call call = profiler.enter(strategy);
 		try {
 			if (runtime.evaluate(strategyCallTerm)) {
 				return runtime.current();
 			}
 		} catch (InterpreterException e) {
 			throw handleException(e, runtime, strategy);
+		} finally {
+			profiler.exit(call);
 		}
 		return null;
 	}
@@ -284,9 +300,22 @@ public class StrategoCommon implements IStrategoCommon {
         }
     }
 
+    @Override public void write(IStrategoTerm term, Writer writer) throws IOException {
+        if(TermUtils.isString(term)) {
+            writer.write(((IStrategoString) term).stringValue());
+        } else {
+            final IStrategoString pp = prettyPrint(term);
+            if(pp != null) {
+                writer.write(pp.stringValue());
+            } else {
+                logger.error("Could not pretty print ATerm, falling back to non-pretty printed ATerm");
+                term.writeAsString(writer, Integer.MAX_VALUE);
+            }
+        }
+    }
+
     @Override public IStrategoString prettyPrint(IStrategoTerm term) {
-        final Context context = strategoRuntimeService.genericRuntime().getCompiledContext();
-        org.strategoxt.stratego_aterm.Main.init(context);
+        final Context context = strategoRuntimeService.threadGenericRuntime().getCompiledContext();
         term = aterm_escape_strings_0_0.instance.invoke(context, term);
         term = pp_aterm_box_0_0.instance.invoke(context, term);
         term = box2text_string_0_1.instance.invoke(context, term, termFactory.makeInt(120));
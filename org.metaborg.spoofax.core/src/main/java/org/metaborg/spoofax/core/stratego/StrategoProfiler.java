@@ -0,0 +1,226 @@
+package org.metaborg.spoofax.core.stratego;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+
+/**
+ * Profiler for Stratego strategy invocations through {@link IStrategoCommon}. Records call counts, inclusive and
+ * exclusive time, and allocated bytes per strategy name, across all invocations and threads. Time spent in a nested
+ * invocation, for example a strategy invoked from a primitive, is excluded from the exclusive time of its caller.
+ * 
+ * Profiling is disabled by default, in which case {@link #enter} only reads a single volatile field.
+ */
+public class StrategoProfiler {
+    private final ConcurrentMap<String, Stats> strategies = Maps.newConcurrentMap();
+    private final ConcurrentMap<String, LongAdder> stacks = Maps.newConcurrentMap();
+    private final ThreadLocal<Deque<Call>> callStacks = ThreadLocal.withInitial(ArrayDeque::new);
+    private final @Nullable com.sun.management.ThreadMXBean allocationBean = allocationBean();
+    private final LongSupplier clock;
+
+    private volatile boolean enabled;
+
+
+    @Inject public StrategoProfiler(StrategoRuntimeConfiguration config) {
+        this(config, System::nanoTime);
+    }
+
+    /**
+     * @param clock
+     *            Clock that returns the current time in nanoseconds.
+     */
+    public StrategoProfiler(StrategoRuntimeConfiguration config, LongSupplier clock) {
+        this.enabled = config.profiling;
+        this.clock = clock;
+    }
+
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Clears all recorded profiles.
+     */
+    public void reset() {
+        strategies.clear();
+        stacks.clear();
+    }
+
+
+    /**
+     * Starts recording an invocation of given strategy on the current thread.
+     * 
+     * @return Call to pass to {@link #exit}, or null when profiling is disabled.
+     */
+    public @Nullable Call enter(String strategy) {
+        if(!enabled) {
+            return null;
+        }
+        final Deque<Call> callStack = callStacks.get();
+        final Call parent = callStack.peek();
+        final String path = parent != null ? parent.path + ";" + strategy : strategy;
+        final Call call = new Call(strategy, path, clock.getAsLong(), allocatedBytes());
+        callStack.push(call);
+        return call;
+    }
+
+    /**
+     * Stops recording given invocation. Must be called on the thread that called {@link #enter}, in reverse order of
+     * entering.
+     * 
+     * @param call
+     *            Call returned by {@link #enter}, or null when profiling was disabled.
+     */
+    public void exit(@Nullable Call call) {
+        if(call == null) {
+            return;
+        }
+        final long inclusiveTime = clock.getAsLong() - call.startTime;
+        final long inclusiveAllocated = Math.max(0, allocatedBytes() - call.startAllocated);
+        final long exclusiveTime = Math.max(0, inclusiveTime - call.childTime);
+
+        final Deque<Call> callStack = callStacks.get();
+        callStack.remove(call);
+        final Call parent = callStack.peek();
+        if(parent != null) {
+            parent.childTime += inclusiveTime;
+        }
+
+        final Stats stats = strategies.computeIfAbsent(call.strategy, s -> new Stats());
+        stats.calls.increment();
+        stats.inclusiveTime.add(inclusiveTime);
+        stats.exclusiveTime.add(exclusiveTime);
+        stats.allocated.add(inclusiveAllocated);
+        stacks.computeIfAbsent(call.path, p -> new LongAdder()).add(exclusiveTime);
+    }
+
+
+    /**
+     * @return Profiles of all recorded strategies, sorted by descending exclusive time.
+     */
+    public List<StrategyProfile> profiles() {
+        final List<StrategyProfile> profiles = Lists.newArrayListWithCapacity(strategies.size());
+        for(Map.Entry<String, Stats> entry : strategies.entrySet()) {
+            final Stats stats = entry.getValue();
+            profiles.add(new StrategyProfile(entry.getKey(), stats.calls.sum(), stats.inclusiveTime.sum(),
+                stats.exclusiveTime.sum(), stats.allocated.sum()));
+        }
+        profiles.sort((p1, p2) -> Long.compare(p2.exclusiveTime, p1.exclusiveTime));
+        return profiles;
+    }
+
+    /**
+     * Writes recorded invocations in collapsed stack format, one line per distinct stack of nested strategy
+     * invocations, with strategies separated by semicolons, followed by the exclusive time in microseconds. This format
+     * is accepted by common flame graph tools.
+     * 
+     * @param writer
+     *            Writer to write to. Not closed by this method.
+     * @throws IOException
+     *             When writing fails.
+     */
+    public void writeCollapsedStacks(Writer writer) throws IOException {
+        for(Map.Entry<String, LongAdder> entry : stacks.entrySet()) {
+            final long micros = entry.getValue().sum() / 1000;
+            if(micros > 0) {
+                writer.write(entry.getKey());
+                writer.write(' ');
+                writer.write(Long.toString(micros));
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+    }
+
+
+    private long allocatedBytes() {
+        if(allocationBean == null) {
+            return 0;
+        }
+        return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static @Nullable com.sun.management.ThreadMXBean allocationBean() {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if(bean instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if(sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean;
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Invocation that is being recorded.
+     */
+    public static class Call {
+        private final String strategy;
+        private final String path;
+        private final long startTime;
+        private final long startAllocated;
+        private long childTime;
+
+
+        private Call(String strategy, String path, long startTime, long startAllocated) {
+            this.strategy = strategy;
+            this.path = path;
+            this.startTime = startTime;
+            this.startAllocated = startAllocated;
+        }
+    }
+
+    private static class Stats {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder inclusiveTime = new LongAdder();
+        private final LongAdder exclusiveTime = new LongAdder();
+        private final LongAdder allocated = new LongAdder();
+    }
+
+    /**
+     * Recorded profile of a single strategy. Times are in nanoseconds. Allocated bytes include allocations of nested
+     * invocations, and are 0 when the JVM does not support measuring allocations per thread.
+     */
+    public static class StrategyProfile {
+        public final String strategy;
+        public final long calls;
+        public final long inclusiveTime;
+        public final long exclusiveTime;
+        public final long allocated;
+
+
+        public StrategyProfile(String strategy, long calls, long inclusiveTime, long exclusiveTime, long allocated) {
+            this.strategy = strategy;
+            this.calls = calls;
+            this.inclusiveTime = inclusiveTime;
+            this.exclusiveTime = exclusiveTime;
+            this.allocated = allocated;
+        }
+
+
+        @Override public String toString() {
+            return String.format("%s: %d calls, %d ns inclusive, %d ns exclusive, %d bytes allocated", strategy, calls,
+                inclusiveTime, exclusiveTime, allocated);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package org.metaborg.spoofax.core.stratego;
+
+/**
+ * Configuration for creating Stratego runtimes.
+ */
+public class StrategoRuntimeConfiguration {
+    public static final boolean defaultProfiling = false;
+
+    /**
+     * Whether strategy invocations are recorded by the {@link StrategoProfiler} from the start. Profiling can also be
+     * enabled later through {@link StrategoProfiler#setEnabled}.
+     */
+    public final boolean profiling;
+
+    public StrategoRuntimeConfiguration() {
+        this(defaultProfiling);
+    }
+
+    public StrategoRuntimeConfiguration(boolean profiling) {
+        this.profiling = profiling;
+    }
+}
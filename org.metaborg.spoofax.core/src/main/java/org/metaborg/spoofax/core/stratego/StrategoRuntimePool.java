@@ -0,0 +1,65 @@
+package org.metaborg.spoofax.core.stratego;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import org.strategoxt.HybridInterpreter;
+
+/**
+ * Bounded pool of initialized Stratego runtimes of a single language component. Cloning a runtime from its prototype
+ * and initializing it is expensive compared to small editor requests, so runtimes are recycled after use.
+ */
+public class StrategoRuntimePool {
+    private final int maxIdle;
+
+    private final Queue<HybridInterpreter> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private volatile boolean closed = false;
+
+
+    public StrategoRuntimePool(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    public StrategoRuntimePool() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+
+    /**
+     * @return Idle runtime taken out of the pool, or null if there is none.
+     */
+    public @Nullable HybridInterpreter poll() {
+        final HybridInterpreter runtime = idle.poll();
+        if(runtime != null) {
+            idleCount.decrementAndGet();
+        }
+        return runtime;
+    }
+
+    /**
+     * Returns a runtime to the pool. The runtime is discarded when the pool is closed or full.
+     */
+    public void offer(HybridInterpreter runtime) {
+        if(closed) {
+            return;
+        }
+        if(idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(runtime);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Closes the pool, discarding all idle runtimes and any runtime that is returned later.
+     */
+    public void close() {
+        closed = true;
+        while(poll() != null) {
+        }
+    }
+}
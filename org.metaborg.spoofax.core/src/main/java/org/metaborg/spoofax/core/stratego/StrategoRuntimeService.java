@@ -4,32 +4,42 @@ import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.annotation.Nullable;
 
 import org.apache.commons.vfs2.FileObject;
+import org.metaborg.core.AggregateMetaborgException;
 import org.metaborg.core.MetaborgException;
 import org.metaborg.core.MetaborgRuntimeException;
 import org.metaborg.core.context.IContext;
 import org.metaborg.core.language.ILanguageComponent;
 import org.metaborg.core.language.ILanguageImpl;
 import org.metaborg.core.resource.IResourceService;
-import org.metaborg.spoofax.core.dynamicclassloading.DynamicClassLoader;
 import org.metaborg.spoofax.core.dynamicclassloading.DynamicClassLoadingFacet;
+import org.metaborg.spoofax.core.dynamicclassloading.IDynamicClassLoadingService;
 import org.metaborg.spoofax.core.stratego.strategies.ParseStrategoFileStrategy;
 import org.metaborg.util.log.ILogger;
 import org.metaborg.util.log.LoggerUtils;
 import org.spoofax.interpreter.core.InterpreterException;
 import org.spoofax.interpreter.library.IOperatorRegistry;
+import org.spoofax.interpreter.library.ssl.SSLLibrary;
 import org.spoofax.interpreter.terms.ITermFactory;
 import org.strategoxt.HybridInterpreter;
 import org.strategoxt.IncompatibleJarException;
 import org.strategoxt.strc.parse_stratego_file_0_0;
 
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 
 public class StrategoRuntimeService implements IStrategoRuntimeService, AutoCloseable {
@@ -39,27 +49,46 @@ public class StrategoRuntimeService implements IStrategoRuntimeService, AutoClos
     private final ITermFactory termFactory;
     private final Set<IOperatorRegistry> strategoLibraries;
     private final ParseStrategoFileStrategy parseStrategoFileStrategy;
-    private final Set<ClassLoader> additionalClassLoaders;
+    private final IDynamicClassLoadingService dynamicClassLoadingService;
 
-    private final Map<ILanguageComponent, HybridInterpreter> prototypes = new HashMap<>();
+    // Prototypes per component. The first request for a component loads its prototype, concurrent requests for the
+    // same component wait for that load to finish.
+    private final ConcurrentMap<ILanguageComponent, CompletableFuture<HybridInterpreter>> prototypes =
+        Maps.newConcurrentMap();
+
+    // Initialized runtimes that were recycled after use, per component. Runtimes are only reused for the component
+    // whose prototype they were cloned from; invalidating a component closes its pool.
+    private final ConcurrentMap<ILanguageComponent, StrategoRuntimePool> pools = Maps.newConcurrentMap();
+    // Weak identity map from handed out runtimes to the pool they are returned to.
+    private final ConcurrentMap<HybridInterpreter, StrategoRuntimePool> owners = new MapMaker().weakKeys().makeMap();
+    // Weak identity map from threads to their generic runtime. Unlike a thread local, it is cleared for all threads
+    // when this service is closed.
+    private final ConcurrentMap<Thread, HybridInterpreter> threadGenericRuntimes =
+        new MapMaker().weakKeys().makeMap();
 
 
     @Inject public StrategoRuntimeService(IResourceService resourceService, ITermFactory termFactory,
         Set<IOperatorRegistry> strategoLibraries, ParseStrategoFileStrategy parseStrategoFileStrategy,
-        Set<ClassLoader> additionalClassLoaders) {
+        IDynamicClassLoadingService dynamicClassLoadingService) {
         this.resourceService = resourceService;
         this.termFactory = termFactory;
         this.strategoLibraries = strategoLibraries;
         this.parseStrategoFileStrategy = parseStrategoFileStrategy;
-        this.additionalClassLoaders = additionalClassLoaders;
+        this.dynamicClassLoadingService = dynamicClassLoadingService;
     }
 
     @Override public void close() {
         // Uninitialize prototype hybrid interpreters and clear the cache.
-        for(HybridInterpreter runtime : prototypes.values()) {
-            runtime.uninit();
+        for(CompletableFuture<HybridInterpreter> prototype : prototypes.values()) {
+            uninit(prototype);
         }
         prototypes.clear();
+        for(StrategoRuntimePool pool : pools.values()) {
+            pool.close();
+        }
+        pools.clear();
+        owners.clear();
+        threadGenericRuntimes.clear();
 
         // Set parse Stratego file strategy to default, freeing reference to services held by ParseStrategoFileStrategy.
         parse_stratego_file_0_0.instance = new parse_stratego_file_0_0();
@@ -68,12 +97,7 @@ public class StrategoRuntimeService implements IStrategoRuntimeService, AutoClos
 
     @Override public HybridInterpreter runtime(ILanguageComponent component, IContext context)
         throws MetaborgException {
-        HybridInterpreter prototype = prototypes.get(component);
-        if(prototype == null) {
-            prototype = createPrototype(component);
-        }
-
-        final HybridInterpreter runtime = clone(prototype, context.location(), component);
+        final HybridInterpreter runtime = acquire(component, context.location());
         runtime.getContext().setContextObject(context);
         runtime.getCompiledContext().setContextObject(context);
         return runtime;
@@ -81,36 +105,171 @@ public class StrategoRuntimeService implements IStrategoRuntimeService, AutoClos
 
     @Override public HybridInterpreter runtime(ILanguageComponent component, FileObject location)
         throws MetaborgException {
-        HybridInterpreter prototype = prototypes.get(component);
-        if(prototype == null) {
-            prototype = createPrototype(component);
+        final HybridInterpreter runtime = acquire(component, location);
+        runtime.getContext().setContextObject(null);
+        runtime.getCompiledContext().setContextObject(null);
+        return runtime;
+    }
+
+    @Override public void recycle(HybridInterpreter runtime) {
+        final @Nullable StrategoRuntimePool pool = owners.remove(runtime);
+        if(pool != null) {
+            reset(runtime);
+            pool.offer(runtime);
         }
+    }
 
-        final HybridInterpreter runtime = clone(prototype, location, component);
-        return runtime;
+    @Override public void warm(Iterable<ILanguageComponent> components, int threads) throws MetaborgException {
+        final List<ILanguageComponent> toLoad = Lists.newArrayList();
+        for(ILanguageComponent component : components) {
+            if(component.facet(StrategoRuntimeFacet.class) != null
+                && component.facet(DynamicClassLoadingFacet.class) != null) {
+                toLoad.add(component);
+            }
+        }
+        if(toLoad.isEmpty()) {
+            return;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, toLoad.size())),
+            runnable -> {
+                final Thread thread = new Thread(runnable, "stratego-prototype-loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        try {
+            final List<Future<?>> futures = Lists.newArrayListWithCapacity(toLoad.size());
+            for(ILanguageComponent component : toLoad) {
+                futures.add(executor.submit(() -> prototype(component)));
+            }
+            final List<MetaborgException> exceptions = Lists.newArrayList();
+            for(Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch(ExecutionException e) {
+                    exceptions.add(toMetaborgException(e.getCause()));
+                }
+            }
+            AggregateMetaborgException.throwIfAny(exceptions);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MetaborgException("Warming Stratego runtimes was interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
     @Override public HybridInterpreter genericRuntime() {
         return createNew(termFactory);
     }
 
+    @Override public HybridInterpreter threadGenericRuntime() {
+        return threadGenericRuntimes.computeIfAbsent(Thread.currentThread(), thread -> {
+            final HybridInterpreter runtime = createNew(termFactory);
+            org.strategoxt.stratego_aterm.Main.init(runtime.getCompiledContext());
+            return runtime;
+        });
+    }
+
 
     @Override public void invalidateCache(ILanguageComponent component) {
         logger.debug("Removing cached stratego runtime for {}", component);
-        final @Nullable HybridInterpreter runtime = prototypes.remove(component);
-        if(runtime != null) {
-            runtime.uninit();
-        }
+        closePool(component);
+        uninit(prototypes.remove(component));
     }
 
     @Override public void invalidateCache(ILanguageImpl impl) {
         logger.debug("Removing cached stratego runtime for {}", impl);
         for(ILanguageComponent component : impl.components()) {
-            final @Nullable HybridInterpreter runtime = prototypes.remove(component);
-            if(runtime != null) {
-                runtime.uninit();
+            closePool(component);
+            uninit(prototypes.remove(component));
+        }
+    }
+
+
+    private HybridInterpreter acquire(ILanguageComponent component, FileObject workingLocation)
+        throws MetaborgException {
+        // Get the pool before the prototype, such that a runtime cloned from an invalidated prototype is returned to a
+        // closed pool, and discarded.
+        final StrategoRuntimePool pool = pools.computeIfAbsent(component, c -> new StrategoRuntimePool());
+        final @Nullable HybridInterpreter pooledRuntime = pool.poll();
+        if(pooledRuntime != null) {
+            pooledRuntime.setIOAgent(createAgent(workingLocation, component));
+            owners.put(pooledRuntime, pool);
+            return pooledRuntime;
+        }
+
+        final HybridInterpreter runtime = clone(prototype(component), workingLocation, component);
+        owners.put(runtime, pool);
+        return runtime;
+    }
+
+    private HybridInterpreter prototype(ILanguageComponent component) throws MetaborgException {
+        CompletableFuture<HybridInterpreter> prototype = prototypes.get(component);
+        if(prototype == null) {
+            final CompletableFuture<HybridInterpreter> newPrototype = new CompletableFuture<>();
+            prototype = prototypes.putIfAbsent(component, newPrototype);
+            if(prototype == null) {
+                // This thread won the race, load the prototype. Failed loads are removed so that they can be retried.
+                try {
+                    newPrototype.complete(createPrototype(component));
+                } catch(MetaborgException | RuntimeException e) {
+                    prototypes.remove(component, newPrototype);
+                    newPrototype.completeExceptionally(e);
+                    throw e;
+                }
+                prototype = newPrototype;
             }
         }
+
+        try {
+            return prototype.get();
+        } catch(ExecutionException e) {
+            throw toMetaborgException(e.getCause());
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MetaborgException("Interrupted while waiting for Stratego runtime of " + component, e);
+        }
+    }
+
+    private static void uninit(@Nullable CompletableFuture<HybridInterpreter> prototype) {
+        // Prototypes that are still loading are not uninitialized, they are garbage collected once the load finishes.
+        if(prototype != null && prototype.isDone() && !prototype.isCompletedExceptionally()) {
+            prototype.join().uninit();
+        }
+    }
+
+    private static MetaborgException toMetaborgException(Throwable cause) {
+        if(cause instanceof MetaborgException) {
+            return (MetaborgException) cause;
+        }
+        return new MetaborgException("Loading Stratego runtime failed unexpectedly", cause);
+    }
+
+    private void closePool(ILanguageComponent component) {
+        final @Nullable StrategoRuntimePool pool = pools.remove(component);
+        if(pool != null) {
+            pool.close();
+        }
+    }
+
+    /**
+     * Resets the per-use state of a recycled runtime: the context object, the current term, and the dynamic rule
+     * tables, such that idle runtimes in the pool do not keep contexts or terms of their last use alive. The IO agent is
+     * replaced when the runtime is acquired again.
+     */
+    private static void reset(HybridInterpreter runtime) {
+        runtime.getContext().setContextObject(null);
+        runtime.getCompiledContext().setContextObject(null);
+        runtime.setCurrent(null);
+        SSLLibrary.instance(runtime.getContext()).getDynamicRuleTable().clear();
+    }
+
+    private ResourceAgent createAgent(FileObject workingLocation, ILanguageComponent component) {
+        final ResourceAgent agent = new ResourceAgent(resourceService);
+        agent.setAbsoluteWorkingDir(workingLocation);
+        agent.setAbsoluteDefinitionDir(component.location());
+        return agent;
     }
 
 
@@ -119,10 +278,7 @@ public class StrategoRuntimeService implements IStrategoRuntimeService, AutoClos
         // TODO: this seems to copy operator registries, but they should be recreated to isolate interpreters?
         final HybridInterpreter runtime = new HybridInterpreter(prototype);
 
-        final ResourceAgent agent = new ResourceAgent(resourceService);
-        agent.setAbsoluteWorkingDir(workingLocation);
-        agent.setAbsoluteDefinitionDir(component.location());
-        runtime.setIOAgent(agent);
+        runtime.setIOAgent(createAgent(workingLocation, component));
 
         runtime.getCompiledContext().getExceptionHandler().setEnabled(false);
 
@@ -159,7 +315,6 @@ public class StrategoRuntimeService implements IStrategoRuntimeService, AutoClos
         logger.debug("Creating prototype runtime for {}", component);
         final HybridInterpreter runtime = createNew(termFactory);
         loadFiles(runtime, component);
-        prototypes.put(component, runtime);
         return runtime;
     }
 
@@ -186,11 +341,12 @@ public class StrategoRuntimeService implements IStrategoRuntimeService, AutoClos
         }
         final Iterable<FileObject> jars = dynamicClassLoadingFacet.jarFiles;
         if(Iterables.size(jars) > 0) {
-            loadJars(runtime, jars);
+            loadJars(runtime, component, jars);
         }
     }
 
-    private void loadJars(HybridInterpreter runtime, Iterable<FileObject> jars) throws MetaborgException {
+    private void loadJars(HybridInterpreter runtime, ILanguageComponent component, Iterable<FileObject> jars)
+        throws MetaborgException {
         try {
             final URL[] classpath = new URL[Iterables.size(jars)];
             int i = 0;
@@ -200,14 +356,16 @@ public class StrategoRuntimeService implements IStrategoRuntimeService, AutoClos
                 ++i;
             }
             logger.trace("Loading jar files {}", (Object) classpath);
-            final ClassLoader classLoader = new DynamicClassLoader(additionalClassLoaders);
+            // Use the class loader of the component as parent, which has the same jars on its classpath, such that
+            // classes are defined once and shared with Java services of the component.
+            final ClassLoader classLoader = dynamicClassLoadingService.classLoader(component);
             runtime.loadJars(classLoader, classpath);
         } catch(IncompatibleJarException | IOException | MetaborgRuntimeException e) {
             throw new MetaborgException("Failed to load JAR", e);
         }
     }
 
-    private static void loadCtrees(HybridInterpreter runtime, Iterable<FileObject> ctrees) throws MetaborgException {
+    private void loadCtrees(HybridInterpreter runtime, Iterable<FileObject> ctrees) throws MetaborgException {
         try {
             for(FileObject file : ctrees) {
                 logger.trace("Loading ctree {}", file.getName());
@@ -4,6 +4,8 @@ import java.io.IOException;
 
 public interface IParseTableProvider {
 	// Return type is Object because JSGLR v1/v2 use different parse table representations and thus the
-	// parse table object is casted to the actual parse table type within the parser implementation itself
+	// parse table object is casted to the actual parse table type within the parser implementation itself.
+	// Implementations must be thread-safe and return the same parse table on every call, since the table is shared
+	// between all parser instances that are created for a language.
 	Object parseTable() throws IOException;
 }
@@ -25,9 +25,11 @@ public interface ISpoofaxParser extends IParser<ISpoofaxInputUnit, ISpoofaxParse
      * @return Parse unit.
      * @throws ParseException
      *             When parsing fails unexpectedly.
+     * @throws InterruptedException
+     *             When parsing is cancelled.
      */
     ISpoofaxParseUnit parse(ISpoofaxInputUnit input, IProgress progress, ICancel cancel,
         @Nullable JSGLRVersion overrideJSGLRVersion, @Nullable ImploderImplementation overrideImploder)
-        throws ParseException;
+        throws ParseException, InterruptedException;
 
 }
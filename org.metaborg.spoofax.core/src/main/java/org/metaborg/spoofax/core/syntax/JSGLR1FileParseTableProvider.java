@@ -21,7 +21,7 @@ public class JSGLR1FileParseTableProvider implements IParseTableProvider {
         this.termFactory = termFactory;
     }
 
-    @Override public ParseTable parseTable() throws IOException {
+    @Override public synchronized ParseTable parseTable() throws IOException {
         if(parseTable != null) {
             return parseTable;
         }
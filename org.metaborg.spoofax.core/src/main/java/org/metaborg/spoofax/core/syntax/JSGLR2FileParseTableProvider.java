@@ -22,7 +22,7 @@ public class JSGLR2FileParseTableProvider implements IParseTableProvider {
         this.termFactory = termFactory;
     }
 
-    @Override public IParseTable parseTable() throws IOException {
+    @Override public synchronized IParseTable parseTable() throws IOException {
         if(parseTable != null) {
             return parseTable;
         }
@@ -49,7 +49,8 @@ public class JSGLR2FileParseTableProvider implements IParseTableProvider {
 
                 // TODO: markRejectableStates(states);
 
-                return parseTableFromSerializable;
+                // Cache the deserialized table as well, such that all parsers created from this provider share it.
+                parseTable = parseTableFromSerializable;
             }
 
         } catch(Exception e) {
@@ -31,13 +31,25 @@ import org.spoofax.jsglr2.messages.Message;
 public class JSGLR2I extends JSGLRI<IParseTable> {
 
     private final JSGLR2<IStrategoTerm> parser;
+    private final @Nullable JSGLR2IncrementalState incrementalState;
 
     public JSGLR2I(IParserConfig config, ITermFactory termFactory, ILanguageImpl language, ILanguageImpl dialect,
-        JSGLRVersion jsglrVersion, JSGLR2Logging jsglr2Logging) throws IOException {
+        JSGLRVersion jsglrVersion, JSGLR2Logging jsglr2Logging, @Nullable JSGLR2IncrementalState incrementalState)
+        throws IOException {
         super(config, termFactory, language, dialect);
 
         this.parseTable = getParseTable(config.getParseTableProvider());
         this.parser = getJSGLR2Spec(jsglrVersion, jsglr2Logging).getJSGLR2(parseTable);
+        this.incrementalState = isIncremental(jsglrVersion) ? incrementalState : null;
+    }
+
+    public JSGLR2I(IParserConfig config, ITermFactory termFactory, ILanguageImpl language, ILanguageImpl dialect,
+        JSGLRVersion jsglrVersion, JSGLR2Logging jsglr2Logging) throws IOException {
+        this(config, termFactory, language, dialect, jsglrVersion, jsglr2Logging, null);
+    }
+
+    public static boolean isIncremental(JSGLRVersion jsglrVersion) {
+        return jsglrVersion == JSGLRVersion.incremental || jsglrVersion == JSGLRVersion.recoveryIncremental;
     }
 
     private JSGLR2Spec getJSGLR2Spec(JSGLRVersion jsglrVersion, JSGLR2Logging jsglr2Logging) {
@@ -95,12 +107,30 @@ public class JSGLR2I extends JSGLRI<IParseTable> {
 
         final Timer timer = new Timer(true);
 
-        JSGLR2Request request = new JSGLR2Request(input, fileName, startSymbol)
-            .withCompletion(parserConfig.completion ? Optional.of(parserConfig.cursorPosition) : Optional.empty())
-            .withAmbiguitiesReporting(true);
+        final JSGLR2Request request = request(parserConfig, input, fileName, startSymbol);
+
+        // Incremental parsing reuses the previous parse of the same resource. Completion parses insert placeholders
+        // and are not stored, since they do not correspond to the resource contents.
+        final boolean incremental = incrementalState != null && !fileName.isEmpty() && !parserConfig.completion;
+        final @Nullable JSGLR2IncrementalState.Entry previous = incremental ? incrementalState.get(fileName) : null;
 
-        final JSGLR2Result<IStrategoTerm> result = parser.parseResult(request);
+        final JSGLR2Result<IStrategoTerm> result;
+        if(previous != null) {
+            result = parser.parseResult(request, previous.input, previous.ast);
+        } else {
+            result = parser.parseResult(request);
+        }
         IStrategoTerm ast = result.isSuccess() ? ((JSGLR2Success<IStrategoTerm>) result).ast : null;
+
+        if(incremental) {
+            if(ast != null) {
+                incrementalState.put(fileName, input, ast);
+            } else if(!parserConfig.fastAttempt()) {
+                // A failed fast attempt keeps the previous parse, such that the recovery attempt can still use it.
+                incrementalState.remove(fileName);
+            }
+        }
+
         boolean isAmbiguous = result.isSuccess() && ((JSGLR2Success<IStrategoTerm>) result).isAmbiguous();
         final Collection<IMessage> messages = mapMessages(resource, result.messages);
 
@@ -115,6 +145,18 @@ public class JSGLR2I extends JSGLRI<IParseTable> {
         return new ParseContrib(hasAst, hasAst && !hasErrors, isAmbiguous, ast, messages, duration);
     }
 
+    /**
+     * Creates the JSGLR2 request for given parser configuration. Ambiguities are reported in every attempt of an
+     * adaptive parse, such that inputs that parse without recovery get the same ambiguity warnings as without adaptive
+     * parsing.
+     */
+    public static JSGLR2Request request(JSGLRParserConfiguration parserConfig, String input, String fileName,
+        @Nullable String startSymbol) {
+        return new JSGLR2Request(input, fileName, startSymbol)
+            .withCompletion(parserConfig.completion ? Optional.of(parserConfig.cursorPosition) : Optional.empty())
+            .withAmbiguitiesReporting(true);
+    }
+
     private Collection<IMessage> mapMessages(FileObject resource, Collection<Message> messages) {
         return messages.stream().map(message -> {
         	ISourceRegion region = null;
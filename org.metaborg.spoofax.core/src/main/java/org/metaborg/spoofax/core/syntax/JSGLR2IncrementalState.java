@@ -0,0 +1,80 @@
+package org.metaborg.spoofax.core.syntax;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.spoofax.interpreter.terms.IStrategoTerm;
+
+/**
+ * Previous inputs and ASTs of resources parsed with an incremental JSGLR2 parser, used to reparse only the changed
+ * parts of a resource. Shared between all incremental parsers of a language, including the pools of parser overrides,
+ * such that a reparse can reuse the previous parse regardless of which parser instance performed it. Only the most
+ * recently parsed resources are kept.
+ */
+public class JSGLR2IncrementalState {
+    public static final int defaultMaxEntries = 256;
+
+
+    /**
+     * Input and AST of the previous successful parse of a resource.
+     */
+    public static class Entry {
+        public final String input;
+        public final IStrategoTerm ast;
+
+
+        public Entry(String input, IStrategoTerm ast) {
+            this.input = input;
+            this.ast = ast;
+        }
+    }
+
+
+    private final Map<String, Entry> entries;
+
+
+    public JSGLR2IncrementalState(int maxEntries) {
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public JSGLR2IncrementalState() {
+        this(defaultMaxEntries);
+    }
+
+
+    /**
+     * @return Previous parse of resource with given name, or null if there is none.
+     */
+    public synchronized @Nullable Entry get(String fileName) {
+        return entries.get(fileName);
+    }
+
+    /**
+     * Stores the result of a successful parse of resource with given name.
+     */
+    public synchronized void put(String fileName, String input, IStrategoTerm ast) {
+        entries.put(fileName, new Entry(input, ast));
+    }
+
+    /**
+     * Removes the previous parse of resource with given name, for example because parsing it failed.
+     */
+    public synchronized void remove(String fileName) {
+        entries.remove(fileName);
+    }
+
+    /**
+     * Removes all previous parses.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+}
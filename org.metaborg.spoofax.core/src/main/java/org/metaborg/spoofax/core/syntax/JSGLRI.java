@@ -8,9 +8,15 @@ import javax.annotation.Nullable;
 import org.apache.commons.vfs2.FileObject;
 import org.metaborg.core.language.ILanguageImpl;
 import org.metaborg.spoofax.core.unit.ParseContrib;
+import org.metaborg.util.task.ICancel;
 import org.spoofax.interpreter.terms.ITermFactory;
 import org.spoofax.jsglr.shared.BadTokenException;
 
+/**
+ * Parser for a single language. Instances hold mutable parser state and are not thread-safe; use a
+ * {@link JSGLRParserPool} to share parsers between threads. The parse table is shared between all instances created
+ * from the same {@link IParserConfig}.
+ */
 abstract public class JSGLRI<PT> {
     protected final IParserConfig config;
     protected final ITermFactory termFactory;
@@ -35,6 +41,39 @@ abstract public class JSGLRI<PT> {
     abstract public ParseContrib parse(@Nullable JSGLRParserConfiguration parserConfig, @Nullable FileObject resource,
         String input);
 
+    /**
+     * Parses given input, and stops parsing shortly after given cancellation token is cancelled.
+     *
+     * @param cancelWatcher
+     *            Watcher that stops the parse when given cancellation token is cancelled.
+     * @throws InterruptedException
+     *             When parsing is cancelled.
+     */
+    public ParseContrib parse(@Nullable JSGLRParserConfiguration parserConfig, @Nullable FileObject resource,
+        String input, ICancel cancel, ParseCancelWatcher cancelWatcher) throws InterruptedException {
+        cancel.throwIfCancelled();
+        final Thread thread = Thread.currentThread();
+        final ParseContrib contrib;
+        try(final ParseCancelWatcher.Watch watch = cancelWatcher.watch(cancel, () -> cancelParse(thread))) {
+            contrib = parse(parserConfig, resource, input);
+        }
+        if(cancel.cancelled()) {
+            // Clear the interrupt that may have been used to stop the parse, and discard its partial result.
+            Thread.interrupted();
+            throw new InterruptedException("Parsing was cancelled");
+        }
+        return contrib;
+    }
+
+    /**
+     * Stops a parse that is running on given thread. Called from the cancellation watcher thread, only while the parse
+     * is running. By default, the parsing thread is interrupted; parsers check for interruption in their parse loop.
+     * Parsers with a cancellation hook of their own should override this to use that hook instead.
+     */
+    protected void cancelParse(Thread thread) {
+        thread.interrupt();
+    }
+
     abstract public Set<BadTokenException> getCollectedErrors();
 
     protected String getOrDefaultStartSymbol(@Nullable JSGLRParserConfiguration parserConfig) {
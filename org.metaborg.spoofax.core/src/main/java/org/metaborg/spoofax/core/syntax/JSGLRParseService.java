@@ -3,6 +3,7 @@ package org.metaborg.spoofax.core.syntax;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.Nullable;
 
@@ -14,6 +15,8 @@ import org.metaborg.core.config.Sdf2tableVersion;
 import org.metaborg.core.language.ILanguageCache;
 import org.metaborg.core.language.ILanguageComponent;
 import org.metaborg.core.language.ILanguageImpl;
+import org.metaborg.core.language.ILanguageService;
+import org.metaborg.core.language.LanguageImplChange;
 import org.metaborg.core.syntax.ParseException;
 import org.metaborg.sdf2table.parsetable.ParseTable;
 import org.metaborg.spoofax.core.stratego.IStrategoRuntimeService;
@@ -21,6 +24,7 @@ import org.metaborg.spoofax.core.unit.ISpoofaxInputUnit;
 import org.metaborg.spoofax.core.unit.ISpoofaxParseUnit;
 import org.metaborg.spoofax.core.unit.ISpoofaxUnitService;
 import org.metaborg.spoofax.core.unit.ParseContrib;
+import org.metaborg.spoofax.core.unit.ParseEscalation;
 import org.metaborg.util.log.ILogger;
 import org.metaborg.util.log.LoggerUtils;
 import org.metaborg.util.resource.ResourceUtils;
@@ -34,6 +38,8 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 
+import io.reactivex.rxjava3.disposables.Disposable;
+
 public class JSGLRParseService implements ISpoofaxParser, ILanguageCache, AutoCloseable {
     public static final String name = "jsglr";
 
@@ -43,34 +49,57 @@ public class JSGLRParseService implements ISpoofaxParser, ILanguageCache, AutoCl
     private final ITermFactory termFactory;
     private final IStrategoRuntimeService strategoRuntimeService;
     private final JSGLRParserConfiguration defaultParserConfig;
+    private final ParseCancelWatcher cancelWatcher;
+
+    private final ConcurrentMap<ILanguageImpl, IParserConfig> parserConfigs = Maps.newConcurrentMap();
+    private final ConcurrentMap<ILanguageImpl, IParserConfig> completionParserConfigs = Maps.newConcurrentMap();
 
-    private final Map<ILanguageImpl, IParserConfig> parserConfigs = Maps.newHashMap();
-    private final Map<ILanguageImpl, IParserConfig> completionParserConfigs = Maps.newHashMap();
+    // Parse tables are shared between configurations for parser overrides and completion that use the same table file.
+    private final ParseTableCache parseTables = new ParseTableCache();
 
-    private final Map<ILanguageImpl, ParseTable> referenceParseTables = Maps.newHashMap();
-    private final Map<ILanguageImpl, ParseTable> referenceCompletionParseTables = Maps.newHashMap();
+    private final Map<ILanguageImpl, ParseTable> referenceParseTables = Maps.newConcurrentMap();
+    private final Map<ILanguageImpl, ParseTable> referenceCompletionParseTables = Maps.newConcurrentMap();
 
-    private final Map<ILanguageImpl, JSGLRI<?>> parsers = Maps.newHashMap();
-    private final Map<ILanguageImpl, JSGLRI<?>> completionParsers = Maps.newHashMap();
+    // Parsers are not thread-safe, so they are pooled per language. All parsers in a pool share the same parse table.
+    private final ConcurrentMap<ILanguageImpl, JSGLRParserPool> parsers = Maps.newConcurrentMap();
+    private final ConcurrentMap<ILanguageImpl, JSGLRParserPool> completionParsers = Maps.newConcurrentMap();
+    // Previous parses of incremental JSGLR2 parsers, per language regardless of parser overrides, such that the fast
+    // and recovery attempts of an adaptive parse, which use different parser versions, share them.
+    private final ConcurrentMap<ILanguageImpl, JSGLR2IncrementalState> incrementalStates = Maps.newConcurrentMap();
+
+    private final ILanguageService languageService;
+    private final @Nullable ParseTablePreloader preloader;
+    private final @Nullable Disposable languageChangesSubscription;
 
     @Inject public JSGLRParseService(ISpoofaxUnitService unitService, ITermFactory termFactory,
-        IStrategoRuntimeService strategoRuntimeService, JSGLRParserConfiguration defaultParserConfig) {
+        IStrategoRuntimeService strategoRuntimeService, JSGLRParserConfiguration defaultParserConfig,
+        ILanguageService languageService, ParseTablePreloadConfiguration preloadConfig,
+        ParseCancelWatcher cancelWatcher) {
         this.unitService = unitService;
         this.termFactory = termFactory;
         this.strategoRuntimeService = strategoRuntimeService;
         this.defaultParserConfig = defaultParserConfig;
+        this.cancelWatcher = cancelWatcher;
+        this.languageService = languageService;
+
+        if(preloadConfig.enabled) {
+            this.preloader = new ParseTablePreloader(preloadConfig.threads);
+            this.languageChangesSubscription = languageService.implChanges().subscribe(this::languageChange);
+        } else {
+            this.preloader = null;
+            this.languageChangesSubscription = null;
+        }
     }
 
     @Override public ISpoofaxParseUnit parse(ISpoofaxInputUnit input, IProgress progress, ICancel cancel)
-        throws ParseException {
+        throws ParseException, InterruptedException {
         return parse(input, progress, cancel, null, null);
     }
 
     @Override public ISpoofaxParseUnit parse(ISpoofaxInputUnit input, IProgress progress, ICancel cancel,
         @Nullable JSGLRVersion overrideJSGLRVersion, @Nullable ImploderImplementation overrideImploder)
-        throws ParseException {
+        throws ParseException, InterruptedException {
         final FileObject source = input.source();
-        final String text = input.text();
 
         final JSGLRParserConfiguration parserConfig;
         if(input.config() == null) {
@@ -82,9 +111,17 @@ public class JSGLRParseService implements ISpoofaxParser, ILanguageCache, AutoCl
         try {
             logger.trace("Parsing {}", source);
 
-            final JSGLRI<?> parser = getParser(input, parserConfig, overrideJSGLRVersion, overrideImploder);
+            if(preloader != null) {
+                // Wait for a background load of the parse table instead of loading it again.
+                preloader.await(input.langImpl());
+            }
 
-            final ParseContrib contrib = parser.parse(parserConfig, source, text);
+            final ParseContrib contrib;
+            if(parserConfig.adaptive && parserConfig.recovery && !parserConfig.completion) {
+                contrib = parseAdaptive(input, parserConfig, overrideJSGLRVersion, overrideImploder, cancel);
+            } else {
+                contrib = parse(input, parserConfig, overrideJSGLRVersion, overrideImploder, cancel);
+            }
 
             return unitService.parseUnit(input, contrib);
         } catch(IOException e) {
@@ -92,8 +129,43 @@ public class JSGLRParseService implements ISpoofaxParser, ILanguageCache, AutoCl
         }
     }
 
+    /**
+     * Parses without error recovery first, and parses again with the requested configuration only if that fails. Most
+     * inputs in a batch build are well-formed, and do not need the recovery machinery.
+     */
+    private ParseContrib parseAdaptive(ISpoofaxInputUnit input, JSGLRParserConfiguration parserConfig,
+        @Nullable JSGLRVersion overrideJSGLRVersion, @Nullable ImploderImplementation overrideImploder, ICancel cancel)
+        throws ParseException, IOException, InterruptedException {
+        final JSGLRParserConfiguration fastConfig = new JSGLRParserConfiguration(parserConfig.implode, false,
+            parserConfig.completion, parserConfig.timeout, parserConfig.cursorPosition,
+            parserConfig.overridingStartSymbol, true);
+        final JSGLRVersion version = jsglrVersion(input, overrideJSGLRVersion);
+        final JSGLRVersion fastVersion = withoutRecovery(version);
+        final ParseContrib fastContrib = parse(input, fastConfig,
+            fastVersion != version ? fastVersion : overrideJSGLRVersion, overrideImploder, cancel);
+        if(fastContrib.success) {
+            return fastContrib.withEscalation(ParseEscalation.Fast, fastContrib.duration);
+        }
+
+        logger.trace("Parsing {} without recovery failed, parsing again with recovery", input.source());
+        final ParseContrib contrib = parse(input, parserConfig, overrideJSGLRVersion, overrideImploder, cancel);
+        return contrib.withEscalation(ParseEscalation.Escalated, fastContrib.duration + contrib.duration);
+    }
+
+    private ParseContrib parse(ISpoofaxInputUnit input, JSGLRParserConfiguration parserConfig,
+        @Nullable JSGLRVersion overrideJSGLRVersion, @Nullable ImploderImplementation overrideImploder, ICancel cancel)
+        throws ParseException, IOException, InterruptedException {
+        final JSGLRParserPool pool = getParserPool(input, parserConfig, overrideJSGLRVersion, overrideImploder);
+        final JSGLRI<?> parser = pool.acquire();
+        try {
+            return parser.parse(parserConfig, input.source(), input.text(), cancel, cancelWatcher);
+        } finally {
+            pool.release(parser);
+        }
+    }
+
     @Override public Collection<ISpoofaxParseUnit> parseAll(Iterable<ISpoofaxInputUnit> inputs, IProgress progress,
-        ICancel cancel) throws ParseException {
+        ICancel cancel) throws ParseException, InterruptedException {
         final Collection<ISpoofaxParseUnit> parseUnits = Lists.newArrayList();
         for(ISpoofaxInputUnit input : inputs) {
             parseUnits.add(parse(input, progress, cancel));
@@ -103,6 +175,11 @@ public class JSGLRParseService implements ISpoofaxParser, ILanguageCache, AutoCl
 
     @SuppressWarnings("StatementWithEmptyBody")
     @Override public void invalidateCache(ILanguageImpl impl) {
+        // Cancel background loading first, such that it cannot publish a parse table after the cache was cleared.
+        if(preloader != null) {
+            preloader.cancel(impl);
+        }
+
         if(hasIncrementalPTGen(impl)) {
             logger.debug("Storing reference parse table for {}", impl);
             updateReferenceParseTables(impl, false, parserConfigs, referenceParseTables);
@@ -110,19 +187,30 @@ public class JSGLRParseService implements ISpoofaxParser, ILanguageCache, AutoCl
         }
 
         logger.debug("Removing cached parse table for {}", impl);
-        parserConfigs.remove(impl);
-        completionParserConfigs.remove(impl);
+        releaseParserConfig(parserConfigs.remove(impl));
+        releaseParserConfig(completionParserConfigs.remove(impl));
         parsers.remove(impl);
         completionParsers.remove(impl);
+        incrementalStates.remove(impl);
 
         ILanguageImpl implWithOverrideMatcher = LanguageImplementationWithParserOverride.matcher(impl);
 
         // Here we remove all override versions of a language implementation that may be in the map. The matcher object
         //   has the same hashCode as all override objects, and may therefore work multiple times when calling remove.
-        while(parserConfigs.remove(implWithOverrideMatcher) != null);
-        while(completionParserConfigs.remove(implWithOverrideMatcher) != null);
+        IParserConfig removedConfig;
+        while((removedConfig = parserConfigs.remove(implWithOverrideMatcher)) != null) {
+            releaseParserConfig(removedConfig);
+        }
+        while((removedConfig = completionParserConfigs.remove(implWithOverrideMatcher)) != null) {
+            releaseParserConfig(removedConfig);
+        }
         while(parsers.remove(implWithOverrideMatcher) != null);
         while(completionParsers.remove(implWithOverrideMatcher) != null);
+
+        // Load the new parse table in the background if the implementation was reloaded rather than removed.
+        if(preloader != null && languageService.getImpl(impl.id()) == impl) {
+            schedulePreload(impl);
+        }
     }
 
     @Override public void invalidateCache(ILanguageComponent component) {
@@ -130,18 +218,58 @@ public class JSGLRParseService implements ISpoofaxParser, ILanguageCache, AutoCl
     }
 
     @Override public void close() {
+        if(languageChangesSubscription != null) {
+            languageChangesSubscription.dispose();
+        }
+        if(preloader != null) {
+            preloader.close();
+        }
         parserConfigs.clear();
         completionParserConfigs.clear();
         referenceParseTables.clear();
         referenceCompletionParseTables.clear();
         parsers.clear();
         completionParsers.clear();
+        incrementalStates.clear();
+        parseTables.clear();
+    }
+
+
+    private void languageChange(LanguageImplChange change) {
+        if(change.impl == null) {
+            return;
+        }
+        switch(change.kind) {
+            case Add:
+            case Reload:
+                schedulePreload(change.impl);
+                break;
+            case Remove:
+                preloader.cancel(change.impl);
+                break;
+        }
     }
 
+    private void schedulePreload(ILanguageImpl impl) {
+        if(impl.facet(SyntaxFacet.class) == null) {
+            return;
+        }
+        preloader.schedule(impl, () -> {
+            // Parse with an empty input unit to load the parse table and create a parser for the default config.
+            final ISpoofaxInputUnit input = unitService.inputUnit("", impl, null);
+            try {
+                final JSGLRParserPool pool = getParserPool(input, defaultParserConfig, null, null);
+                pool.release(pool.acquire());
+            } catch(ParseException | IOException e) {
+                // Parsing reports the error when it loads the parse table itself.
+                logger.debug("Preloading parse table for {} failed", e, impl);
+            }
+        });
+    }
 
-    private JSGLRI<?> getParser(ISpoofaxInputUnit input, JSGLRParserConfiguration parserConfig,
+    private JSGLRParserPool getParserPool(ISpoofaxInputUnit input, JSGLRParserConfiguration parserConfig,
         @Nullable JSGLRVersion overrideJSGLRVersion, @Nullable ImploderImplementation overrideImploder)
-        throws IOException, ParseException {
+        throws ParseException {
 
         ILanguageImpl langImpl;
         final ILanguageImpl base;
@@ -152,41 +280,54 @@ public class JSGLRParseService implements ISpoofaxParser, ILanguageCache, AutoCl
             langImpl = input.langImpl();
             base = null;
         }
+        final ILanguageImpl stateLangImpl = langImpl;
         // Cache an overridden configuration under a different key
         if(overrideImploder != null || overrideJSGLRVersion != null) {
             langImpl = new LanguageImplementationWithParserOverride(langImpl, overrideImploder, overrideJSGLRVersion);
         }
 
-        final Map<ILanguageImpl, JSGLRI<?>> parserMap = parserConfig.completion ? completionParsers : parsers;
+        final ConcurrentMap<ILanguageImpl, JSGLRParserPool> parserMap =
+            parserConfig.completion ? completionParsers : parsers;
 
-        if(!parserMap.containsKey(langImpl)) {
-            final IParserConfig config =
-                getParserConfig(langImpl, input, parserConfig.completion, overrideJSGLRVersion, overrideImploder);
-            final JSGLRVersion version = jsglrVersion(input, overrideJSGLRVersion);
+        final JSGLRParserPool existingPool = parserMap.get(langImpl);
+        if(existingPool != null) {
+            return existingPool;
+        }
 
-            final JSGLRI<?> parser;
-            if(version == JSGLRVersion.v1) {
+        final IParserConfig config =
+            getParserConfig(langImpl, input, parserConfig.completion, overrideJSGLRVersion, overrideImploder);
+        final JSGLRVersion version = jsglrVersion(input, overrideJSGLRVersion);
+        final ILanguageImpl parserLangImpl = langImpl;
+
+        final JSGLRParserPool.IParserFactory factory;
+        if(version == JSGLRVersion.v1) {
+            factory = () -> {
+                // Every parser gets its own generic runtime context, since contexts are not thread-safe.
                 final Context context = strategoRuntimeService.genericRuntime().getCompiledContext();
                 if(base != null) {
-                    parser = new JSGLR1I(config, termFactory, context, base, langImpl);
+                    return new JSGLR1I(config, termFactory, context, base, parserLangImpl);
                 } else {
-                    parser = new JSGLR1I(config, termFactory, context, langImpl, null);
+                    return new JSGLR1I(config, termFactory, context, parserLangImpl, null);
                 }
-            } else {
-                final JSGLR2Logging jsglr2Logging = jsglr2Logging(input);
-
-                parser = new JSGLR2I(config, termFactory, langImpl, null, version, jsglr2Logging);
-            }
-
-            parserMap.put(langImpl, parser);
+            };
+        } else {
+            final JSGLR2Logging jsglr2Logging = jsglr2Logging(input);
+            // Previous parses are shared by all parsers in the pool, so that any of them can reparse incrementally.
+            final JSGLR2IncrementalState incrementalState = JSGLR2I.isIncremental(version)
+                ? incrementalStates.computeIfAbsent(stateLangImpl, key -> new JSGLR2IncrementalState()) : null;
+            factory = () -> new JSGLR2I(config, termFactory, parserLangImpl, null, version, jsglr2Logging,
+                incrementalState);
         }
-        return parserMap.get(langImpl);
+
+        final JSGLRParserPool newPool = new JSGLRParserPool(factory);
+        final JSGLRParserPool prevPool = parserMap.putIfAbsent(langImpl, newPool);
+        return prevPool != null ? prevPool : newPool;
     }
 
     private IParserConfig getParserConfig(ILanguageImpl lang, ISpoofaxInputUnit input, boolean completion,
         @Nullable JSGLRVersion overrideJSGLRVersion, @Nullable ImploderImplementation overrideImploder)
         throws ParseException {
-        final Map<ILanguageImpl, IParserConfig> parserConfigMap;
+        final ConcurrentMap<ILanguageImpl, IParserConfig> parserConfigMap;
         if(completion) {
             parserConfigMap = this.completionParserConfigs;
         } else {
@@ -262,12 +403,15 @@ public class JSGLRParseService implements ISpoofaxParser, ILanguageCache, AutoCl
                 final ParseTable referenceParseTable = referenceParseTables.get(lang);
 
                 if(referenceParseTable != null && hasIncrementalPTGen(lang)) {
+                    // Incrementally generated tables depend on the reference table of this language, do not share.
                     provider = new JSGLR1IncrementalParseTableProvider(parseTable, termFactory, referenceParseTable);
                 } else {
-                    provider = new JSGLR1FileParseTableProvider(parseTable, termFactory);
+                    provider = parseTables.provider("jsglr1", parseTable,
+                        new JSGLR1FileParseTableProvider(parseTable, termFactory));
                 }
             } else {
-                provider = new JSGLR2FileParseTableProvider(parseTable, termFactory);
+                provider = parseTables.provider("jsglr2", parseTable,
+                    new JSGLR2FileParseTableProvider(parseTable, termFactory));
             }
 
             if(overrideImploder != null) {
@@ -278,12 +422,27 @@ public class JSGLRParseService implements ISpoofaxParser, ILanguageCache, AutoCl
                 parserConfig = new ParserConfig(
                     facet.startSymbols != null ? Iterables.get(facet.startSymbols, 0) : null, provider, facet.imploder);
             }
-            parserConfigMap.put(lang, parserConfig);
+            // Another thread may have created a configuration in the meantime; use that one to share its parse table.
+            final @Nullable IParserConfig prevParserConfig = parserConfigMap.putIfAbsent(lang, parserConfig);
+            if(prevParserConfig != null) {
+                releaseParserConfig(parserConfig);
+                parserConfig = prevParserConfig;
+            }
         }
         return parserConfig;
     }
 
 
+    private void releaseParserConfig(@Nullable IParserConfig parserConfig) {
+        if(parserConfig == null) {
+            return;
+        }
+        final IParseTableProvider provider = parserConfig.getParseTableProvider();
+        if(provider instanceof ParseTableCache.SharedProvider) {
+            ((ParseTableCache.SharedProvider) provider).release();
+        }
+    }
+
     private JSGLRVersion jsglrVersion(ISpoofaxInputUnit input, @Nullable JSGLRVersion overrideJSGLRVersion) {
         if(overrideJSGLRVersion != null) {
             return overrideJSGLRVersion;
@@ -295,6 +454,17 @@ public class JSGLRParseService implements ISpoofaxParser, ILanguageCache, AutoCl
             return langComp.config().jsglrVersion();
     }
 
+    private static JSGLRVersion withoutRecovery(JSGLRVersion version) {
+        switch(version) {
+            case recovery:
+                return JSGLRVersion.v2;
+            case recoveryIncremental:
+                return JSGLRVersion.incremental;
+            default:
+                return version;
+        }
+    }
+
     private JSGLR2Logging jsglr2Logging(ISpoofaxInputUnit input) {
         ILanguageComponent langComp = Iterables.getFirst(input.langImpl().components(), null);
         if(langComp == null)
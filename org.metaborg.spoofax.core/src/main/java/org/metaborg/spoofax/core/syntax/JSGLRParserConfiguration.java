@@ -1,5 +1,7 @@
 package org.metaborg.spoofax.core.syntax;
 
+import java.util.Objects;
+
 public class JSGLRParserConfiguration {
     public static final boolean defaultImplode = true;
     public static final boolean defaultRecovery = true;
@@ -7,6 +9,7 @@ public class JSGLRParserConfiguration {
     public static final int defaultTimeout = 30000;
     public static final int defaultCursorPosition = Integer.MAX_VALUE;
     public static final String defaultOverridingStartSymbol = null;
+    public static final boolean defaultAdaptive = false;
 
     public final boolean implode;
     public final boolean recovery;
@@ -14,6 +17,12 @@ public class JSGLRParserConfiguration {
     public final int timeout;
     public final int cursorPosition;
     public final String overridingStartSymbol;
+    /**
+     * When set together with {@link #recovery}, parsing is first attempted without error recovery, and the input is
+     * parsed again with recovery only when that attempt fails. Ambiguities are reported by both attempts. Incremental
+     * JSGLR2 parsers share their previous parses between both attempts.
+     */
+    public final boolean adaptive;
 
     public JSGLRParserConfiguration() {
         this(defaultImplode, defaultRecovery, defaultCompletion, defaultTimeout, defaultCursorPosition,
@@ -35,11 +44,40 @@ public class JSGLRParserConfiguration {
 
     public JSGLRParserConfiguration(boolean implode, boolean recovery, boolean completion, int timeout,
         int cursorPosition, String startSymbol) {
+        this(implode, recovery, completion, timeout, cursorPosition, startSymbol, defaultAdaptive);
+    }
+
+    public JSGLRParserConfiguration(boolean implode, boolean recovery, boolean completion, int timeout,
+        int cursorPosition, String startSymbol, boolean adaptive) {
         this.implode = implode;
         this.recovery = recovery;
         this.completion = completion;
         this.timeout = timeout;
         this.cursorPosition = cursorPosition;
         this.overridingStartSymbol = startSymbol;
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * @return Whether this configuration is the first, cheapest attempt of an adaptive parse.
+     */
+    public boolean fastAttempt() {
+        return adaptive && !recovery;
+    }
+
+
+    @Override public boolean equals(Object o) {
+        if(this == o)
+            return true;
+        if(o == null || getClass() != o.getClass())
+            return false;
+        final JSGLRParserConfiguration other = (JSGLRParserConfiguration) o;
+        return implode == other.implode && recovery == other.recovery && completion == other.completion
+            && timeout == other.timeout && cursorPosition == other.cursorPosition
+            && Objects.equals(overridingStartSymbol, other.overridingStartSymbol) && adaptive == other.adaptive;
+    }
+
+    @Override public int hashCode() {
+        return Objects.hash(implode, recovery, completion, timeout, cursorPosition, overridingStartSymbol, adaptive);
     }
 }
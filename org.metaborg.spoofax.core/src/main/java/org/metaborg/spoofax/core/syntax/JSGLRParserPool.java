@@ -0,0 +1,79 @@
+package org.metaborg.spoofax.core.syntax;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of {@link JSGLRI} parsers for a single language (or language with parser overrides). All parsers in the pool
+ * are created from the same {@link IParserConfig}, and therefore share the same parse table. A {@link JSGLRI} holds
+ * mutable parser state and may only be used by one thread at a time, so a parser must be acquired from the pool for
+ * the duration of a single parse, and released afterwards.
+ */
+public class JSGLRParserPool {
+    /**
+     * Factory for parsers in a pool.
+     */
+    public interface IParserFactory {
+        JSGLRI<?> create() throws IOException;
+    }
+
+
+    private final IParserFactory factory;
+    private final int maxIdle;
+
+    private final Queue<JSGLRI<?>> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+
+    public JSGLRParserPool(IParserFactory factory, int maxIdle) {
+        this.factory = factory;
+        this.maxIdle = maxIdle;
+    }
+
+    public JSGLRParserPool(IParserFactory factory) {
+        this(factory, Runtime.getRuntime().availableProcessors());
+    }
+
+
+    /**
+     * Takes a parser out of the pool, or creates a new one if no idle parser is available.
+     *
+     * @return Parser that is exclusively owned by the caller until it is {@link #release(JSGLRI) released}.
+     * @throws IOException
+     *             When creating a new parser fails, for example because loading the parse table fails.
+     */
+    public JSGLRI<?> acquire() throws IOException {
+        final JSGLRI<?> parser = idle.poll();
+        if(parser != null) {
+            idleCount.decrementAndGet();
+            return parser;
+        }
+        return factory.create();
+    }
+
+    /**
+     * Returns a parser to the pool. Parsers are discarded when the pool already holds the maximum number of idle
+     * parsers.
+     *
+     * @param parser
+     *            Parser to return, which must have been acquired from this pool.
+     */
+    public void release(JSGLRI<?> parser) {
+        if(idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(parser);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Removes all idle parsers from the pool.
+     */
+    public void clear() {
+        while(idle.poll() != null) {
+            idleCount.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.metaborg.spoofax.core.syntax;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import org.metaborg.util.task.ICancel;
+
+import com.google.inject.Inject;
+
+/**
+ * Watches cancellation tokens of running parses, and cancels a parse shortly after its token is cancelled. Parsers do
+ * not accept a cancellation token themselves, and tokens cannot notify listeners, so a background thread polls the
+ * tokens of all running parses. The thread only polls while there are running parses, and is stopped when the watcher
+ * is closed.
+ */
+public class ParseCancelWatcher implements AutoCloseable {
+    /**
+     * Interval in milliseconds at which cancellation tokens are checked.
+     */
+    public static final long defaultPollInterval = 10;
+
+    private final long pollInterval;
+    private final Set<Watch> watches = ConcurrentHashMap.newKeySet();
+
+    private @Nullable ScheduledExecutorService scheduler;
+    private @Nullable ScheduledFuture<?> polling;
+    private boolean closed = false;
+
+
+    @Inject public ParseCancelWatcher() {
+        this(defaultPollInterval);
+    }
+
+    public ParseCancelWatcher(long pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+
+    /**
+     * Starts watching given cancellation token. When the token is cancelled, given action is executed once, on the
+     * watcher thread. The action is never executed after the returned watch is closed.
+     *
+     * @param cancel
+     *            Cancellation token to watch.
+     * @param onCancel
+     *            Action that cancels the parse.
+     * @return Watch that must be closed when the parse has finished.
+     * @throws IllegalStateException
+     *             When this watcher is closed.
+     */
+    public synchronized Watch watch(ICancel cancel, Runnable onCancel) {
+        if(closed) {
+            throw new IllegalStateException("Cannot watch cancellation tokens, the parse cancel watcher is closed");
+        }
+        final Watch watch = new Watch(cancel, onCancel);
+        watches.add(watch);
+        if(polling == null) {
+            if(scheduler == null) {
+                scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    final Thread thread = new Thread(runnable, "parse-cancel-watcher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            polling = scheduler.scheduleWithFixedDelay(this::poll, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+        }
+        return watch;
+    }
+
+    /**
+     * Checks all watched cancellation tokens once, and executes the actions of those that were cancelled. Called
+     * periodically on the watcher thread.
+     */
+    public void poll() {
+        for(Watch watch : watches) {
+            if(watch.cancel.cancelled()) {
+                watches.remove(watch);
+                watch.fire();
+            }
+        }
+    }
+
+    @Override public synchronized void close() {
+        closed = true;
+        watches.clear();
+        if(scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+            polling = null;
+        }
+    }
+
+
+    private synchronized void unwatch(Watch watch) {
+        watches.remove(watch);
+        if(watches.isEmpty() && polling != null) {
+            // Stop polling while no parses are running.
+            polling.cancel(false);
+            polling = null;
+        }
+    }
+
+
+    public class Watch implements AutoCloseable {
+        private final ICancel cancel;
+        private final Runnable onCancel;
+
+        private boolean closed = false;
+
+
+        private Watch(ICancel cancel, Runnable onCancel) {
+            this.cancel = cancel;
+            this.onCancel = onCancel;
+        }
+
+
+        private synchronized void fire() {
+            if(!closed) {
+                closed = true;
+                onCancel.run();
+            }
+        }
+
+        @Override public synchronized void close() {
+            closed = true;
+            unwatch(this);
+        }
+    }
+}
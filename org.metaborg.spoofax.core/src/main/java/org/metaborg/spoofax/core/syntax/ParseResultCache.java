@@ -0,0 +1,153 @@
+package org.metaborg.spoofax.core.syntax;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.vfs2.FileObject;
+import org.metaborg.core.config.JSGLRVersion;
+import org.metaborg.core.language.ILanguageComponent;
+import org.metaborg.core.language.ILanguageImpl;
+import org.metaborg.spoofax.core.unit.ISpoofaxInputUnit;
+import org.metaborg.spoofax.core.unit.ISpoofaxParseUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Iterables;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+/**
+ * Cache of parse results, keyed by the resource, language implementation, dialect, parser configuration, and a digest
+ * of the source text. The size of the cache is bounded by the total length of the cached source texts.
+ */
+public class ParseResultCache {
+    private final @Nullable Cache<Key, ISpoofaxParseUnit> cache;
+
+
+    public ParseResultCache(ParseResultCacheConfiguration config) {
+        if(config.maxCharacters > 0) {
+            this.cache = CacheBuilder.newBuilder().maximumWeight(config.maxCharacters)
+                .weigher((Key key, ISpoofaxParseUnit unit) -> Math.max(1, key.length)).build();
+        } else {
+            this.cache = null;
+        }
+    }
+
+
+    /**
+     * Creates a cache key for given input, or returns null if the result of parsing the input should not be cached.
+     */
+    public @Nullable Key key(ISpoofaxInputUnit input, @Nullable JSGLRParserConfiguration defaultConfig,
+        @Nullable JSGLRVersion overrideJSGLRVersion, @Nullable ImploderImplementation overrideImploder) {
+        if(cache == null) {
+            return null;
+        }
+        final JSGLRParserConfiguration config = input.config() != null ? input.config() : defaultConfig;
+        if(config != null && config.completion) {
+            // Completion parses depend on the cursor position and are not repeated with identical inputs.
+            return null;
+        }
+        final String text = input.text();
+        final HashCode digest = Hashing.sha256().hashString(text, StandardCharsets.UTF_8);
+        return new Key(input.source(), input.langImpl(), input.dialect(), config, overrideJSGLRVersion,
+            overrideImploder, digest, text.length());
+    }
+
+    /**
+     * @return Cached parse result for given key, or null if there is none.
+     */
+    public @Nullable ISpoofaxParseUnit get(@Nullable Key key) {
+        if(cache == null || key == null) {
+            return null;
+        }
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Caches given parse result. Results of failed parses are not cached.
+     */
+    public void put(@Nullable Key key, ISpoofaxParseUnit parseUnit) {
+        if(cache == null || key == null || !parseUnit.valid()) {
+            return;
+        }
+        cache.put(key, parseUnit);
+    }
+
+    /**
+     * Removes cached parse results of given language implementation, or of dialects of it.
+     */
+    public void invalidate(ILanguageImpl impl) {
+        if(cache == null) {
+            return;
+        }
+        cache.asMap().keySet().removeIf(key -> impl.equals(key.langImpl) || impl.equals(key.dialect));
+    }
+
+    /**
+     * Removes cached parse results of language implementations that contain given component.
+     */
+    public void invalidate(ILanguageComponent component) {
+        if(cache == null) {
+            return;
+        }
+        cache.asMap().keySet().removeIf(key -> Iterables.contains(key.langImpl.components(), component)
+            || (key.dialect != null && Iterables.contains(key.dialect.components(), component)));
+    }
+
+    /**
+     * Removes all cached parse results.
+     */
+    public void clear() {
+        if(cache == null) {
+            return;
+        }
+        cache.invalidateAll();
+        cache.cleanUp();
+    }
+
+
+    public static class Key {
+        private final @Nullable String source;
+        private final ILanguageImpl langImpl;
+        private final @Nullable ILanguageImpl dialect;
+        private final @Nullable JSGLRParserConfiguration config;
+        private final @Nullable JSGLRVersion overrideJSGLRVersion;
+        private final @Nullable ImploderImplementation overrideImploder;
+        private final HashCode digest;
+        private final int length;
+
+
+        private Key(@Nullable FileObject source, ILanguageImpl langImpl, @Nullable ILanguageImpl dialect,
+            @Nullable JSGLRParserConfiguration config, @Nullable JSGLRVersion overrideJSGLRVersion,
+            @Nullable ImploderImplementation overrideImploder, HashCode digest, int length) {
+            this.source = source != null ? source.getName().getURI() : null;
+            this.langImpl = langImpl;
+            this.dialect = dialect;
+            this.config = config;
+            this.overrideJSGLRVersion = overrideJSGLRVersion;
+            this.overrideImploder = overrideImploder;
+            this.digest = digest;
+            this.length = length;
+        }
+
+
+        @Override public boolean equals(Object o) {
+            if(this == o)
+                return true;
+            if(o == null || getClass() != o.getClass())
+                return false;
+            final Key other = (Key) o;
+            return length == other.length && digest.equals(other.digest) && Objects.equals(source, other.source)
+                && langImpl.equals(other.langImpl) && Objects.equals(dialect, other.dialect)
+                && Objects.equals(config, other.config) && overrideJSGLRVersion == other.overrideJSGLRVersion
+                && overrideImploder == other.overrideImploder;
+        }
+
+        @Override public int hashCode() {
+            return Objects.hash(source, langImpl, dialect, config, overrideJSGLRVersion, overrideImploder, digest,
+                length);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.metaborg.spoofax.core.syntax;
+
+/**
+ * Configuration for the cache of parse results in {@link SpoofaxSyntaxService}, which returns the previous parse
+ * result when a resource is parsed again with identical contents. The cache is disabled by default, since cached parse
+ * results retain their ASTs, which take many times the memory of their source texts.
+ */
+public class ParseResultCacheConfiguration {
+    /**
+     * Memory budget of the cache, measured as the total number of characters of the parsed source texts. The cache is
+     * disabled when this is 0.
+     */
+    public final long maxCharacters;
+
+    /**
+     * Creates a configuration with the cache disabled.
+     */
+    public ParseResultCacheConfiguration() {
+        this(0);
+    }
+
+    public ParseResultCacheConfiguration(long maxCharacters) {
+        this.maxCharacters = maxCharacters;
+    }
+}
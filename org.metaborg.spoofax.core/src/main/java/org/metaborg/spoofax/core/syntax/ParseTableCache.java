@@ -0,0 +1,178 @@
+package org.metaborg.spoofax.core.syntax;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.vfs2.FileObject;
+import org.metaborg.util.log.ILogger;
+import org.metaborg.util.log.LoggerUtils;
+
+import com.google.common.collect.Maps;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Cache of loaded parse tables, shared between all parser configurations of a {@link JSGLRParseService}. Parse tables
+ * are identified by the kind of table (which determines its in-memory representation), the location of the table
+ * file, and a hash of its contents. Configurations for parser overrides and completion that refer to the same table
+ * therefore share a single in-memory table. Entries are reference counted, and removed when the last configuration
+ * that uses the table is released.
+ */
+public class ParseTableCache {
+    private static final ILogger logger = LoggerUtils.logger(ParseTableCache.class);
+
+    private final Map<Key, Entry> entries = Maps.newHashMap();
+
+
+    /**
+     * Creates a parse table provider that loads its table through this cache.
+     *
+     * @param kind
+     *            Kind of parse table, parse tables of different kinds are never shared.
+     * @param file
+     *            Parse table file.
+     * @param loader
+     *            Provider that loads the parse table when it is not in the cache yet.
+     * @return Shared parse table provider, which must be {@link SharedProvider#release() released} when it is no
+     *         longer used.
+     */
+    public SharedProvider provider(String kind, FileObject file, IParseTableProvider loader) {
+        return new SharedProvider(kind, file, loader);
+    }
+
+    /**
+     * @return Number of parse tables in the cache.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes all parse tables from the cache.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+
+    private Entry acquire(String kind, FileObject file, IParseTableProvider loader) throws IOException {
+        final Key key = new Key(kind, file.getName().getURI(), hash(file));
+        final Entry entry;
+        synchronized(this) {
+            entry = entries.computeIfAbsent(key, k -> new Entry(k, loader));
+            ++entry.references;
+        }
+        return entry;
+    }
+
+    /**
+     * @return Hash of the contents of given file, or the hash of no contents if the file does not exist.
+     */
+    private static String hash(FileObject file) throws IOException {
+        final Hasher hasher = Hashing.sha256().newHasher();
+        if(file.exists()) {
+            try(final InputStream stream = file.getContent().getInputStream()) {
+                ByteStreams.copy(stream, Funnels.asOutputStream(hasher));
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    private synchronized void release(Entry entry) {
+        if(--entry.references == 0) {
+            logger.debug("Removing parse table {} from cache", entry.key.uri);
+            entries.remove(entry.key, entry);
+        }
+    }
+
+
+    /**
+     * Parse table provider that shares its table through the cache.
+     */
+    public class SharedProvider implements IParseTableProvider {
+        private final String kind;
+        private final FileObject file;
+        private final IParseTableProvider loader;
+
+        private @Nullable Entry entry;
+
+
+        private SharedProvider(String kind, FileObject file, IParseTableProvider loader) {
+            this.kind = kind;
+            this.file = file;
+            this.loader = loader;
+        }
+
+
+        @Override public synchronized Object parseTable() throws IOException {
+            if(entry == null) {
+                entry = acquire(kind, file, loader);
+            }
+            return entry.parseTable();
+        }
+
+        /**
+         * Releases the reference to the shared parse table. The table is removed from the cache when no other
+         * provider refers to it.
+         */
+        public synchronized void release() {
+            if(entry != null) {
+                ParseTableCache.this.release(entry);
+                entry = null;
+            }
+        }
+    }
+
+
+    private static class Entry {
+        private final Key key;
+        private final IParseTableProvider loader;
+
+        private int references = 0;
+
+
+        public Entry(Key key, IParseTableProvider loader) {
+            this.key = key;
+            this.loader = loader;
+        }
+
+
+        public Object parseTable() throws IOException {
+            // Loaders cache their table and synchronize loading, such that the table is loaded only once.
+            return loader.parseTable();
+        }
+    }
+
+    private static class Key {
+        private final String kind;
+        private final String uri;
+        private final String hash;
+
+
+        public Key(String kind, String uri, String hash) {
+            this.kind = kind;
+            this.uri = uri;
+            this.hash = hash;
+        }
+
+
+        @Override public boolean equals(Object o) {
+            if(this == o)
+                return true;
+            if(o == null || getClass() != o.getClass())
+                return false;
+            final Key other = (Key) o;
+            return kind.equals(other.kind) && uri.equals(other.uri) && hash.equals(other.hash);
+        }
+
+        @Override public int hashCode() {
+            return Objects.hash(kind, uri, hash);
+        }
+    }
+}
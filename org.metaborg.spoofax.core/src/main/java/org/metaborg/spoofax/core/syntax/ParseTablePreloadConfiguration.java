@@ -0,0 +1,32 @@
+package org.metaborg.spoofax.core.syntax;
+
+/**
+ * Configuration for loading parse tables and creating parsers in the background when a language is added or
+ * reloaded, such that the first parse of a language does not pay for loading its parse table. Disabled by default.
+ */
+public class ParseTablePreloadConfiguration {
+    public static final boolean defaultEnabled = false;
+    public static final int defaultThreads = 1;
+
+    /**
+     * Whether parse tables are preloaded when a language is added or reloaded.
+     */
+    public final boolean enabled;
+    /**
+     * Number of background threads used for preloading.
+     */
+    public final int threads;
+
+    public ParseTablePreloadConfiguration() {
+        this(defaultEnabled, defaultThreads);
+    }
+
+    public ParseTablePreloadConfiguration(boolean enabled) {
+        this(enabled, defaultThreads);
+    }
+
+    public ParseTablePreloadConfiguration(boolean enabled, int threads) {
+        this.enabled = enabled;
+        this.threads = threads;
+    }
+}
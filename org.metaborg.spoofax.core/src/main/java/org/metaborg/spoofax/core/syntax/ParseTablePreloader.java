@@ -0,0 +1,126 @@
+package org.metaborg.spoofax.core.syntax;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.metaborg.core.language.ILanguageImpl;
+import org.metaborg.util.log.ILogger;
+import org.metaborg.util.log.LoggerUtils;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Runs parse table preloading tasks for language implementations on background threads. At most one task is kept per
+ * language implementation. Parsing waits for a pending task of its language implementation instead of loading the
+ * parse table itself, and invalidating the language implementation cancels its task and waits until it has stopped,
+ * such that a cancelled task never publishes a stale parse table.
+ */
+public class ParseTablePreloader implements AutoCloseable {
+    private static final ILogger logger = LoggerUtils.logger(ParseTablePreloader.class);
+
+    private final ExecutorService executor;
+    private final ConcurrentMap<ILanguageImpl, Task> tasks = Maps.newConcurrentMap();
+
+
+    public ParseTablePreloader(int threads) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            final Thread thread = new Thread(runnable, "parse-table-preload-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+    /**
+     * Schedules a preloading task for given language implementation, cancelling any previous task for it.
+     */
+    public void schedule(ILanguageImpl impl, Runnable preload) {
+        cancel(impl);
+        final Task task = new Task(impl, preload);
+        tasks.put(impl, task);
+        task.future = executor.submit(task::run);
+    }
+
+    /**
+     * Waits until the preloading task for given language implementation has finished, if there is one.
+     */
+    public void await(ILanguageImpl impl) throws InterruptedException {
+        final Task task = tasks.get(impl);
+        if(task != null) {
+            task.done.await();
+        }
+    }
+
+    /**
+     * Cancels the preloading task for given language implementation, and waits until it has stopped if it was running.
+     */
+    public void cancel(ILanguageImpl impl) {
+        final Task task = tasks.remove(impl);
+        if(task == null) {
+            return;
+        }
+        if(task.state.compareAndSet(State.Scheduled, State.Cancelled)) {
+            // Task never started, and never will.
+            task.done.countDown();
+            return;
+        }
+        final Future<?> future = task.future;
+        if(future != null) {
+            future.cancel(true);
+        }
+        try {
+            task.done.await();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override public void close() {
+        for(ILanguageImpl impl : tasks.keySet()) {
+            cancel(impl);
+        }
+        executor.shutdownNow();
+    }
+
+
+    private enum State {
+        Scheduled, Running, Cancelled
+    }
+
+    private class Task {
+        private final ILanguageImpl impl;
+        private final Runnable preload;
+        private final AtomicReference<State> state = new AtomicReference<>(State.Scheduled);
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private volatile Future<?> future;
+
+
+        public Task(ILanguageImpl impl, Runnable preload) {
+            this.impl = impl;
+            this.preload = preload;
+        }
+
+
+        public void run() {
+            if(!state.compareAndSet(State.Scheduled, State.Running)) {
+                return;
+            }
+            try {
+                logger.debug("Preloading parse table for {}", impl);
+                preload.run();
+            } catch(RuntimeException e) {
+                logger.warn("Preloading parse table for {} failed", e, impl);
+            } finally {
+                tasks.remove(impl, this);
+                done.countDown();
+            }
+        }
+    }
+}
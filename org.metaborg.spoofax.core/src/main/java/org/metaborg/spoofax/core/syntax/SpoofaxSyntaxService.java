@@ -6,6 +6,8 @@ import java.util.Set;
 import javax.annotation.Nullable;
 
 import org.metaborg.core.config.JSGLRVersion;
+import org.metaborg.core.language.ILanguageCache;
+import org.metaborg.core.language.ILanguageComponent;
 import org.metaborg.core.language.ILanguageImpl;
 import org.metaborg.core.syntax.FenceCharacters;
 import org.metaborg.core.syntax.MultiLineCommentCharacters;
@@ -24,11 +26,18 @@ import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 
 public class SpoofaxSyntaxService extends SyntaxService<ISpoofaxInputUnit, ISpoofaxParseUnit>
-    implements ISpoofaxSyntaxService {
+    implements ISpoofaxSyntaxService, ILanguageCache, AutoCloseable {
     private static final ILogger logger = LoggerUtils.logger(SpoofaxSyntaxService.class);
 
-    @Inject public SpoofaxSyntaxService(Map<String, ISpoofaxParser> parsers) {
+    private final JSGLRParserConfiguration defaultParserConfig;
+    private final ParseResultCache parseResultCache;
+
+
+    @Inject public SpoofaxSyntaxService(Map<String, ISpoofaxParser> parsers,
+        JSGLRParserConfiguration defaultParserConfig, ParseResultCacheConfiguration parseResultCacheConfig) {
         super(parsers);
+        this.defaultParserConfig = defaultParserConfig;
+        this.parseResultCache = new ParseResultCache(parseResultCacheConfig);
     }
 
 
@@ -59,6 +68,11 @@ public class SpoofaxSyntaxService extends SyntaxService<ISpoofaxInputUnit, ISpoo
         return fences;
     }
 
+    @Override public ISpoofaxParseUnit parse(ISpoofaxInputUnit input, IProgress progress, ICancel cancel)
+        throws ParseException, InterruptedException {
+        return parse(input, progress, cancel, null, null);
+    }
+
     @Override public ISpoofaxParseUnit parse(ISpoofaxInputUnit input, IProgress progress, ICancel cancel,
         @Nullable JSGLRVersion overrideJSGLRVersion, @Nullable ImploderImplementation overrideImploder) throws ParseException, InterruptedException {
         final ILanguageImpl langImpl = input.langImpl();
@@ -67,7 +81,31 @@ public class SpoofaxSyntaxService extends SyntaxService<ISpoofaxInputUnit, ISpoo
             final String message = logger.format("Cannot get a parser for {}", langImpl);
             throw new ParseException(input, message);
         }
-        return parser.parse(input, progress, cancel, overrideJSGLRVersion, overrideImploder);
+
+        final ParseResultCache.Key key =
+            parseResultCache.key(input, defaultParserConfig, overrideJSGLRVersion, overrideImploder);
+        final ISpoofaxParseUnit cachedResult = parseResultCache.get(key);
+        if(cachedResult != null) {
+            logger.trace("Returning cached parse result for {}", input.source());
+            return cachedResult;
+        }
+
+        final ISpoofaxParseUnit result = parser.parse(input, progress, cancel, overrideJSGLRVersion, overrideImploder);
+        parseResultCache.put(key, result);
+        return result;
+    }
+
+
+    @Override public void invalidateCache(ILanguageComponent component) {
+        parseResultCache.invalidate(component);
+    }
+
+    @Override public void invalidateCache(ILanguageImpl impl) {
+        parseResultCache.invalidate(impl);
+    }
+
+    @Override public void close() {
+        parseResultCache.clear();
     }
 
 
@@ -92,6 +92,7 @@ public class HoverService implements ISpoofaxHoverService {
             final Iterable<IStrategoTerm> inRegion = tracingService.fragments(result, new SourceRegion(offset));
             final TermWithRegion tuple =
                 common.outputs(termFactory, interpreter, context.location(), source, result.ast(), inRegion, strategy);
+            strategoRuntimeService.recycle(interpreter);
             return hover(tuple);
         } catch(MetaborgException e) {
             throw new MetaborgException("Getting hover tooltip information failed unexpectedly", e);
@@ -119,6 +120,7 @@ public class HoverService implements ISpoofaxHoverService {
             try(IClosableLock _lock = context.read()) {
                 tuple = common.outputs(termFactory, interpreter, context.location(), source, result.ast(), inRegion, strategy);
             }
+            strategoRuntimeService.recycle(interpreter);
             return hover(tuple);
         } catch(MetaborgException e) {
             throw new MetaborgException("Getting hover tooltip information failed unexpectedly", e);
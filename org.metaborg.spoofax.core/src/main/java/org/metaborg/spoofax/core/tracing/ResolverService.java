@@ -97,6 +97,7 @@ public class ResolverService implements ISpoofaxResolverService {
             final Iterable<IStrategoTerm> inRegion = tracingService.fragments(result, new SourceRegion(offset));
             final TermWithRegion tuple =
                 common.outputs(termFactory, interpreter, source, source, result.ast(), inRegion, strategy);
+            strategoRuntimeService.recycle(interpreter);
             return resolve(tuple);
         } catch(MetaborgException e) {
             throw new MetaborgException("Reference resolution failed", e);
@@ -124,6 +125,7 @@ public class ResolverService implements ISpoofaxResolverService {
             try(IClosableLock _lock = context.read()) {
                 tuple = common.outputs(termFactory, interpreter, source, source, result.ast(), inRegion, strategy);
             }
+            strategoRuntimeService.recycle(interpreter);
             return resolve(tuple);
         } catch(MetaborgException e) {
             throw new MetaborgException("Reference resolution failed", e);
@@ -1,22 +1,26 @@
 package org.metaborg.spoofax.core.transform;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.vfs2.FileObject;
 import org.metaborg.core.MetaborgException;
 import org.metaborg.core.action.ITransformAction;
 import org.metaborg.core.action.TransformActionContrib;
+import org.metaborg.core.config.IProjectConfig;
+import org.metaborg.core.config.ProjectConfig;
 import org.metaborg.core.context.IContext;
 import org.metaborg.core.editor.IEditorRegistry;
 import org.metaborg.core.language.ILanguageComponent;
 import org.metaborg.core.messages.IMessage;
+import org.metaborg.core.project.IProject;
 import org.metaborg.core.resource.IResourceService;
 import org.metaborg.core.source.ISourceRegion;
 import org.metaborg.core.transform.ITransformConfig;
@@ -47,6 +51,8 @@ import com.google.inject.Inject;
 public class StrategoTransformer implements IStrategoTransformer {
     private static final ILogger logger = LoggerUtils.logger(StrategoTransformer.class);
 
+    private static final int bufferSize = 64 * 1024;
+
     private final IResourceService resourceService;
     private final ISpoofaxUnitService unitService;
     private final IEditorRegistry editorRegistry;
@@ -163,12 +169,14 @@ public class StrategoTransformer implements IStrategoTransformer {
             throw new TransformException(e.getMessage(), e.getCause());
         }
         final long duration = timer.stop();
+        strategoRuntimeService.recycle(runtime);
         if(outputTerm == null) {
             final String message = logger.format("Invoking Stratego strategy {} failed", action.strategy);
             throw new TransformException(message);
         }
 
         // Get the result and, if allowed and required, write to file
+        final Charset charset = outputCharset(context);
         List<TransformOutput> outputs;
         IStrategoTerm resultTerm;
         if(outputTerm.getSubtermCount() == 2 && TermUtils.isTuple(outputTerm)) {
@@ -177,7 +185,7 @@ public class StrategoTransformer implements IStrategoTransformer {
             try {
                 if(TermUtils.isString(resourceTerm)) {
                     resultTerm = contentTerm;
-                    outputs = Lists.newArrayList(output(resourceTerm, contentTerm, location, config));
+                    outputs = Lists.newArrayList(output(resourceTerm, contentTerm, location, charset, config));
                 } else if(TermUtils.isList(resourceTerm)) {
                     if(!TermUtils.isList(contentTerm)
                         || resourceTerm.getSubtermCount() != contentTerm.getSubtermCount()) {
@@ -188,7 +196,8 @@ public class StrategoTransformer implements IStrategoTransformer {
                         outputs = Lists.newArrayListWithExpectedSize(resourceTerm.getSubtermCount());
                         for(int i = 0; i < resourceTerm.getSubtermCount(); i++) {
                             outputs
-                                .add(output(resourceTerm.getSubterm(i), contentTerm.getSubterm(i), location, config));
+                                .add(output(resourceTerm.getSubterm(i), contentTerm.getSubterm(i), location, charset,
+                                    config));
                         }
                         resultTerm = resourceTerm.getSubtermCount() == 1 ? resourceTerm.getSubterm(0) : null;
                     }
@@ -225,6 +234,25 @@ public class StrategoTransformer implements IStrategoTransformer {
         return unitService.transformUnit(input, contrib, context, actionContribution);
     }
 
+    /**
+     * @return Encoding configured for the project of given context, or {@link ProjectConfig#DEFAULT_ENCODING} when
+     *         there is none.
+     */
+    private static Charset outputCharset(IContext context) {
+        final IProject project = context.project();
+        final IProjectConfig projectConfig = project != null ? project.config() : null;
+        final String encoding = projectConfig != null ? projectConfig.encoding() : null;
+        if(encoding != null) {
+            try {
+                return Charset.forName(encoding);
+            } catch(IllegalArgumentException e) {
+                logger.warn("Unsupported encoding {} configured for project {}, writing output as {}", encoding,
+                    project.location(), ProjectConfig.DEFAULT_ENCODING);
+            }
+        }
+        return ProjectConfig.DEFAULT_ENCODING;
+    }
+
     private TransformAction action(ITransformAction action) throws TransformException {
         if(!(action instanceof TransformAction)) {
             final String message = logger.format("Action {} is not a Stratego transformation action", action);
@@ -234,18 +262,20 @@ public class StrategoTransformer implements IStrategoTransformer {
     }
 
     private TransformOutput output(IStrategoTerm resourceTerm, IStrategoTerm contentTerm, FileObject location,
-        ITransformConfig config) throws MetaborgException {
+        Charset charset, ITransformConfig config) throws MetaborgException {
         if(!(TermUtils.isString(resourceTerm))) {
             throw new MetaborgException("First term of result tuple {} is not a string, cannot write output file");
         } else {
             final String resourceString = TermUtils.toJavaString(resourceTerm);
-            final String resultContents = common.toString(contentTerm);
             // writing to output file is allowed
             FileObject output;
             if(!config.dryRun()) {
                 output = resourceService.resolve(location, resourceString);
-                try(OutputStream stream = output.getContent().getOutputStream()) {
-                    IOUtils.write(resultContents, stream, Charset.defaultCharset());
+                // Write the contents straight into the file, instead of first converting them to one string and byte
+                // array.
+                try(Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(output.getContent().getOutputStream(), charset), bufferSize)) {
+                    common.write(contentTerm, writer);
                 } catch(IOException e) {
                     logger.error("Error occurred while writing output file", e);
                 }
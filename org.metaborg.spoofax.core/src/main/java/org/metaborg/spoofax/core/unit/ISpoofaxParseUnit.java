@@ -19,4 +19,9 @@ public interface ISpoofaxParseUnit extends IParseUnit {
      * {@inheritDoc}
      */
     ISpoofaxInputUnit input();
+
+    /**
+     * @return Path taken by the parser to produce this result.
+     */
+    ParseEscalation escalation();
 }
@@ -14,15 +14,22 @@ public class ParseContrib implements IUnitContrib {
     public final @Nullable IStrategoTerm ast;
     public final Iterable<IMessage> messages;
     public final long duration;
+    public final ParseEscalation escalation;
 
     public ParseContrib(boolean valid, boolean success, boolean isAmbiguous, @Nullable IStrategoTerm ast, Iterable<IMessage> messages,
-        long duration) {
+        long duration, ParseEscalation escalation) {
         this.valid = valid;
         this.success = success;
         this.isAmbiguous = isAmbiguous;
         this.ast = ast;
         this.messages = messages;
         this.duration = duration;
+        this.escalation = escalation;
+    }
+
+    public ParseContrib(boolean valid, boolean success, boolean isAmbiguous, @Nullable IStrategoTerm ast, Iterable<IMessage> messages,
+        long duration) {
+        this(valid, success, isAmbiguous, ast, messages, duration, ParseEscalation.Direct);
     }
 
     public ParseContrib(IStrategoTerm emptyAst) {
@@ -37,4 +44,11 @@ public class ParseContrib implements IUnitContrib {
     public boolean isAmbiguous() {
         return isAmbiguous;
     }
+
+    /**
+     * @return Copy of this contribution with given escalation path and total duration.
+     */
+    public ParseContrib withEscalation(ParseEscalation escalation, long duration) {
+        return new ParseContrib(valid, success, isAmbiguous, ast, messages, duration, escalation);
+    }
 }
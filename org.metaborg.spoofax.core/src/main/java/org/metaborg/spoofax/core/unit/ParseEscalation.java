@@ -0,0 +1,19 @@
+package org.metaborg.spoofax.core.unit;
+
+/**
+ * Path taken by the parser to produce a parse result.
+ */
+public enum ParseEscalation {
+    /**
+     * Parsed once with the requested configuration.
+     */
+    Direct,
+    /**
+     * Parsed successfully with the cheapest configuration, without error recovery.
+     */
+    Fast,
+    /**
+     * Parsing with the cheapest configuration failed, and the input was parsed again with the requested configuration.
+     */
+    Escalated
+}
@@ -46,4 +46,8 @@ public class ParseUnit extends UnitWrapper implements ISpoofaxParseUnit {
     @Override public long duration() {
         return contrib.duration;
     }
+
+    @Override public ParseEscalation escalation() {
+        return contrib.escalation;
+    }
 }
@@ -0,0 +1,52 @@
+package org.metaborg.spoofax.core.test;
+
+import org.apache.commons.vfs2.FileObject;
+import org.junit.Before;
+import org.metaborg.core.MetaborgException;
+import org.metaborg.core.language.ILanguageComponent;
+import org.metaborg.core.language.ILanguageImpl;
+import org.metaborg.spoofax.core.syntax.ISpoofaxSyntaxService;
+import org.metaborg.spoofax.core.unit.ISpoofaxInputUnit;
+import org.metaborg.spoofax.core.unit.ISpoofaxUnitService;
+
+import com.google.common.collect.Iterables;
+
+/**
+ * Test base that loads the Entity language from the test resources, for tests that parse, analyze, or transform
+ * Entity programs.
+ */
+public class EntityTest extends SpoofaxTest {
+    protected ILanguageImpl entity;
+    protected ISpoofaxUnitService unitService;
+    protected ISpoofaxSyntaxService syntaxService;
+
+
+    @Before public void loadEntity() throws MetaborgException {
+        final FileObject location = resourceService.resolve("res://languages");
+        final Iterable<ILanguageComponent> components =
+            languageDiscoveryService.discover(languageDiscoveryService.request(location));
+        entity = Iterables.get(Iterables.get(components, 0).contributesTo(), 0);
+        unitService = metaborg.injector.getInstance(ISpoofaxUnitService.class);
+        syntaxService = metaborg.injector.getInstance(ISpoofaxSyntaxService.class);
+    }
+
+
+    /**
+     * @return Entity program with a module named after given number, and an entity with a few properties.
+     */
+    protected static String program(int number) {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("module m").append(number).append("\n\n");
+        builder.append("entity E").append(number).append(" {\n");
+        for(int i = 0; i <= number % 5; ++i) {
+            builder.append("  p").append(i).append(" : ").append(i % 2 == 0 ? "String" : "Int").append("\n");
+        }
+        builder.append("}\n");
+        return builder.toString();
+    }
+
+    protected ISpoofaxInputUnit input(String name, String text) {
+        final FileObject source = resourceService.resolve("ram:///Entity/" + name + ".ent");
+        return unitService.inputUnit(source, text, entity, null);
+    }
+}
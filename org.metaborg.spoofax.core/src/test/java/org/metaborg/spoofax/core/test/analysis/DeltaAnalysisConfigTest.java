@@ -0,0 +1,48 @@
+package org.metaborg.spoofax.core.test.analysis;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.vfs2.FileObject;
+import org.junit.Test;
+import org.metaborg.core.MetaborgConstants;
+import org.metaborg.core.config.ConfigRequest;
+import org.metaborg.core.config.ILanguageComponentConfig;
+import org.metaborg.core.config.ILanguageComponentConfigService;
+import org.metaborg.spoofax.core.test.SpoofaxTest;
+
+public class DeltaAnalysisConfigTest extends SpoofaxTest {
+    private static final String identifier = "id: org.metaborg:Delta:1.0.0\nname: Delta\n";
+
+
+    @Test public void deltaAnalysisIsOffByDefault() throws IOException {
+        assertFalse(config("ram:///DeltaDefault/", identifier).deltaAnalysis());
+    }
+
+    @Test public void deltaAnalysisIsEnabledByConfiguration() throws IOException {
+        final String yaml = identifier + "language:\n  analysis:\n    delta: true\n";
+        assertTrue(config("ram:///DeltaEnabled/", yaml).deltaAnalysis());
+    }
+
+    @Test public void deltaAnalysisCanBeDisabled() throws IOException {
+        final String yaml = identifier + "language:\n  analysis:\n    delta: false\n";
+        assertFalse(config("ram:///DeltaDisabled/", yaml).deltaAnalysis());
+    }
+
+
+    private ILanguageComponentConfig config(String uri, String yaml) throws IOException {
+        final FileObject root = createDir(uri);
+        final FileObject configFile = root.resolveFile(MetaborgConstants.LOC_COMPONENT_CONFIG);
+        try(OutputStream output = configFile.getContent().getOutputStream()) {
+            output.write(yaml.getBytes(StandardCharsets.UTF_8));
+        }
+        final ConfigRequest<ILanguageComponentConfig> request =
+            metaborg.injector.getInstance(ILanguageComponentConfigService.class).get(root);
+        assertTrue(request.valid());
+        return request.config();
+    }
+}
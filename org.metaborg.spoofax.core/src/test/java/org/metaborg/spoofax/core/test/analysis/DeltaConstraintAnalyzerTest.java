@@ -0,0 +1,180 @@
+package org.metaborg.spoofax.core.test.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.junit.Before;
+import org.junit.Test;
+import org.metaborg.core.MetaborgException;
+import org.metaborg.core.language.ILanguageComponent;
+import org.metaborg.core.messages.IMessage;
+import org.metaborg.core.resource.IResourceService;
+import org.metaborg.spoofax.core.analysis.AnalysisCommon;
+import org.metaborg.spoofax.core.analysis.ISpoofaxAnalyzeResults;
+import org.metaborg.spoofax.core.analysis.constraint.AbstractConstraintAnalyzer;
+import org.metaborg.spoofax.core.context.constraint.ConstraintContext;
+import org.metaborg.spoofax.core.stratego.IStrategoCommon;
+import org.metaborg.spoofax.core.stratego.IStrategoRuntimeService;
+import org.metaborg.spoofax.core.stratego.StrategoCommon;
+import org.metaborg.spoofax.core.stratego.StrategoProfiler;
+import org.metaborg.spoofax.core.test.context.ConstraintContextTest;
+import org.metaborg.spoofax.core.tracing.ISpoofaxTracingService;
+import org.metaborg.spoofax.core.unit.ISpoofaxAnalyzeUnitUpdate;
+import org.metaborg.spoofax.core.unit.ISpoofaxParseUnit;
+import org.metaborg.spoofax.core.unit.ISpoofaxUnitService;
+import org.metaborg.spoofax.core.unit.ParseContrib;
+import org.metaborg.util.concurrent.IClosableLock;
+import org.metaborg.util.iterators.Iterables2;
+import org.metaborg.util.task.NullCancel;
+import org.metaborg.util.task.NullProgress;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.interpreter.terms.ITermFactory;
+import org.spoofax.terms.util.TermUtils;
+import org.strategoxt.HybridInterpreter;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Tests the delta analysis protocol of the constraint analyzer against a stub analysis strategy, which records the
+ * action it is invoked with and returns a scripted result.
+ */
+public class DeltaConstraintAnalyzerTest extends ConstraintContextTest {
+    private StubStrategoCommon strategoCommon;
+    private AbstractConstraintAnalyzer analyzer;
+
+
+    @Before public void createAnalyzer() {
+        strategoCommon = new StubStrategoCommon(metaborg.injector.getInstance(IStrategoRuntimeService.class),
+            termFactory, metaborg.injector.getInstance(StrategoProfiler.class));
+        analyzer = new DeltaAnalyzer(metaborg.injector.getInstance(AnalysisCommon.class), resourceService,
+            metaborg.injector.getInstance(IStrategoRuntimeService.class), strategoCommon, termFactory,
+            metaborg.injector.getInstance(ISpoofaxTracingService.class), unitService);
+    }
+
+
+    @Test public void cachedFilesAreNotPassed() throws Exception {
+        final ConstraintContext context = context();
+        try(IClosableLock lock = context.write()) {
+            put(context, "a.ent", "a");
+            put(context, "b.ent", "b");
+
+            strategoCommon.result = analysisResult(projectResult(context), full(context, "c.ent", "c"));
+            analyzer.analyzeAll(Iterables2.singleton(parseUnit("c.ent")), context, new NullProgress(),
+                new NullCancel());
+        }
+
+        final IStrategoTerm action = strategoCommon.action;
+        assertNotNull(action);
+        assertTrue(TermUtils.isAppl(action, "AnalyzeMultiDelta", 4));
+        final List<String> changed = Lists.newArrayList();
+        for(IStrategoTerm change : action.getSubterm(1).getAllSubterms()) {
+            changed.add(TermUtils.toJavaString(change.getSubterm(0)));
+        }
+        assertEquals(Lists.newArrayList(key(context, "c.ent")), changed);
+    }
+
+    @Test public void updateOfCachedFileIsReported() throws Exception {
+        final ConstraintContext context = context();
+        final ISpoofaxAnalyzeResults results;
+        try(IClosableLock lock = context.write()) {
+            put(context, "a.ent", "a");
+            put(context, "b.ent", "b");
+
+            strategoCommon.result = analysisResult(projectResult(context), full(context, "c.ent", "c"),
+                update(context, "b.ent", "b2"));
+            results = analyzer.analyzeAll(Iterables2.singleton(parseUnit("c.ent")), context, new NullProgress(),
+                new NullCancel());
+        }
+
+        final Set<FileObject> updated = Sets.newHashSet();
+        for(ISpoofaxAnalyzeUnitUpdate update : results.updates()) {
+            updated.add(update.source());
+        }
+        assertTrue(updated.contains(location.resolveFile("b.ent")));
+        assertEquals(analysis("b2"), context.get(location.resolveFile("b.ent")).analysis());
+        assertEquals(analysis("a"), context.get(location.resolveFile("a.ent")).analysis());
+        assertEquals(analysis("c"), context.get(location.resolveFile("c.ent")).analysis());
+    }
+
+
+    private ISpoofaxParseUnit parseUnit(String name) throws FileSystemException {
+        final FileObject source = location.resolveFile(name);
+        return unitService.parseUnit(unitService.inputUnit(source, name, entity, null),
+            new ParseContrib(true, true, false, termFactory.makeString(name), Iterables2.<IMessage>empty(), -1));
+    }
+
+    private String key(ConstraintContext context, String name) throws FileSystemException {
+        return context.resourceKey(location.resolveFile(name));
+    }
+
+    private IStrategoTerm analysisResult(IStrategoTerm... results) {
+        return appl("AnalysisResult", termFactory.makeList(results));
+    }
+
+    private IStrategoTerm projectResult(ConstraintContext context) {
+        final String key = context.resourceKey(location);
+        return termFactory.makeTuple(termFactory.makeString(key), appl("Full", termFactory.makeTuple(),
+            analysis("project"), termFactory.makeList(), termFactory.makeList(), termFactory.makeList()));
+    }
+
+    private IStrategoTerm full(ConstraintContext context, String name, String value) throws FileSystemException {
+        return termFactory.makeTuple(termFactory.makeString(key(context, name)), appl("Full",
+            termFactory.makeString(name), analysis(value), termFactory.makeList(), termFactory.makeList(),
+            termFactory.makeList()));
+    }
+
+    private IStrategoTerm update(ConstraintContext context, String name, String value) throws FileSystemException {
+        return termFactory.makeTuple(termFactory.makeString(key(context, name)), appl("Update", analysis(value),
+            termFactory.makeList(), termFactory.makeList(), termFactory.makeList()));
+    }
+
+    private IStrategoTerm appl(String op, IStrategoTerm... subterms) {
+        return termFactory.makeAppl(termFactory.makeConstructor(op, subterms.length), subterms);
+    }
+
+
+    private static class DeltaAnalyzer extends AbstractConstraintAnalyzer {
+        public DeltaAnalyzer(AnalysisCommon analysisCommon, IResourceService resourceService,
+            IStrategoRuntimeService runtimeService, IStrategoCommon strategoCommon, ITermFactory termFactory,
+            ISpoofaxTracingService tracingService, ISpoofaxUnitService unitService) {
+            super(analysisCommon, resourceService, runtimeService, strategoCommon, termFactory, tracingService,
+                unitService);
+        }
+
+
+        @Override protected boolean multifile() {
+            return true;
+        }
+
+        @Override protected boolean deltaAnalysis(ILanguageComponent component) {
+            return true;
+        }
+    }
+
+    private static class StubStrategoCommon extends StrategoCommon {
+        private @Nullable IStrategoTerm action;
+        private @Nullable IStrategoTerm result;
+
+
+        public StubStrategoCommon(IStrategoRuntimeService runtimeService, ITermFactory termFactory,
+            StrategoProfiler profiler) {
+            super(runtimeService, termFactory, profiler);
+        }
+
+
+        @Override public @Nullable IStrategoTerm invoke(HybridInterpreter runtime, IStrategoTerm input,
+            String strategy) throws MetaborgException {
+            action = input;
+            return result;
+        }
+    }
+}
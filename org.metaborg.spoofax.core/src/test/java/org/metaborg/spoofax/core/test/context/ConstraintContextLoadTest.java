@@ -0,0 +1,136 @@
+package org.metaborg.spoofax.core.test.context;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+
+import org.apache.commons.vfs2.FileObject;
+import org.junit.Test;
+import org.metaborg.spoofax.core.context.constraint.ConstraintContext;
+import org.metaborg.spoofax.core.context.constraint.IConstraintContext;
+import org.metaborg.util.concurrent.IClosableLock;
+
+public class ConstraintContextLoadTest extends ConstraintContextTest {
+    @Test public void missingAnalysisIsAnalyzedAgain() throws IOException {
+        final ConstraintContext context = context();
+        try(IClosableLock lock = context.write()) {
+            put(context, "a.ent", "a");
+            put(context, "b.ent", "b");
+        }
+        context.persist();
+
+        final ConstraintContext newContext = context();
+        try(IClosableLock lock = newContext.read()) {
+            // Loading the context reads the index only, so deleting an entry file afterwards is observed when its
+            // analysis is requested.
+            entryFile(newContext, "a.ent").delete();
+            assertFalse(newContext.contains("a.ent"));
+            assertNull(newContext.get("a.ent"));
+            assertEquals(1, newContext.entrySet().size());
+            assertTrue(newContext.contains("b.ent"));
+        }
+
+        // The entry is left out of the persisted index, such that it is not loaded again.
+        newContext.persist();
+        final ConstraintContext reloadedContext = context();
+        try(IClosableLock lock = reloadedContext.read()) {
+            assertFalse(reloadedContext.contains("a.ent"));
+            assertEquals(analysis("b"), reloadedContext.get("b.ent").analysis());
+        }
+    }
+
+    @Test public void corruptAnalysisIsAnalyzedAgain() throws IOException {
+        final ConstraintContext context = context();
+        try(IClosableLock lock = context.write()) {
+            put(context, "a.ent", "a");
+        }
+        context.persist();
+
+        final ConstraintContext newContext = context();
+        try(IClosableLock lock = newContext.read()) {
+            try(OutputStream output = entryFile(newContext, "a.ent").getContent().getOutputStream()) {
+                output.write(new byte[] { 1, 2, 3 });
+            }
+            assertFalse(newContext.contains("a.ent"));
+            assertTrue(newContext.entrySet().isEmpty());
+        }
+    }
+
+    @Test public void leftoverTemporaryFilesAreDeleted() throws IOException {
+        final ConstraintContext context = context();
+        try(IClosableLock lock = context.write()) {
+            put(context, "a.ent", "a");
+        }
+        context.persist();
+        final FileObject temporary =
+            entriesDir().resolveFile(entryFile(context, "b.ent").getName().getBaseName() + ".tmp");
+        try(OutputStream output = temporary.getContent().getOutputStream()) {
+            output.write(new byte[] { 1, 2, 3 });
+        }
+
+        final ConstraintContext newContext = context();
+        try(IClosableLock lock = newContext.read()) {
+            assertEquals(analysis("a"), newContext.get("a.ent").analysis());
+        }
+        assertFalse(temporary.exists());
+    }
+
+    @Test public void persistedAnalysisIsReadAgain() throws IOException {
+        final ConstraintContext context = context();
+        try(IClosableLock lock = context.write()) {
+            put(context, "a.ent", "a");
+        }
+        context.persist();
+
+        // The analysis may be released after persisting, and is then read from its entry file.
+        try(IClosableLock lock = context.read()) {
+            assertEquals(analysis("a"), context.get("a.ent").analysis());
+        }
+    }
+
+    @Test public void legacyFormatIsRead() throws IOException {
+        final LegacyConstraintContext legacy = new LegacyConstraintContext();
+        legacy.put("a.ent", 42, analysis("a"), termFactory.makeList(termFactory.makeString("error")),
+            termFactory.makeList(), termFactory.makeList(), Collections.<String>emptyList());
+        final FileObject legacyFile = entriesDir().getParent().resolveFile("constraint");
+        try(OutputStream output = legacyFile.getContent().getOutputStream()) {
+            output.write(legacy.serialize());
+        }
+
+        final ConstraintContext context = context();
+        try(IClosableLock lock = context.read()) {
+            final IConstraintContext.Entry entry = context.get("a.ent");
+            assertEquals(analysis("a"), entry.analysis());
+            assertEquals(termFactory.makeList(termFactory.makeString("error")), entry.errors());
+            // The 32-bit parse hash is not converted, such that the file is analyzed again.
+            assertNull(entry.parseDigest());
+        }
+
+        // The next persist converts the context to segments.
+        context.persist();
+        assertFalse(legacyFile.exists());
+        assertTrue(entriesDir().exists());
+        final ConstraintContext newContext = context();
+        try(IClosableLock lock = newContext.read()) {
+            assertEquals(analysis("a"), newContext.get("a.ent").analysis());
+        }
+    }
+
+    @Test public void unreadableContextIsDiscarded() throws IOException {
+        final FileObject legacyFile = entriesDir().getParent().resolveFile("constraint");
+        try(OutputStream output = legacyFile.getContent().getOutputStream()) {
+            output.write(new byte[] { 1, 2, 3 });
+        }
+
+        final ConstraintContext context = context();
+        try(IClosableLock lock = context.read()) {
+            assertTrue(context.entrySet().isEmpty());
+        }
+        assertFalse(legacyFile.exists());
+    }
+}
@@ -0,0 +1,124 @@
+package org.metaborg.spoofax.core.test.context;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.commons.vfs2.FileObject;
+import org.junit.Test;
+import org.metaborg.spoofax.core.context.constraint.ConstraintContext;
+import org.metaborg.util.concurrent.IClosableLock;
+
+public class ConstraintContextPersistTest extends ConstraintContextTest {
+    @Test public void persistedEntriesAreRead() throws IOException {
+        final ConstraintContext context = context();
+        try(IClosableLock lock = context.write()) {
+            put(context, "a.ent", "a");
+            put(context, "b.ent", "b");
+        }
+        context.persist();
+
+        final ConstraintContext newContext = context();
+        try(IClosableLock lock = newContext.read()) {
+            assertEquals(2, newContext.entrySet().size());
+            assertEquals(analysis("a"), newContext.get("a.ent").analysis());
+            assertEquals(analysis("b"), newContext.get("b.ent").analysis());
+        }
+    }
+
+    @Test public void onlyChangedEntriesAreWritten() throws IOException {
+        final ConstraintContext context = context();
+        try(IClosableLock lock = context.write()) {
+            put(context, "a.ent", "a");
+            put(context, "b.ent", "b");
+        }
+        context.persist();
+
+        // Remove the file of the unchanged entry, which is not written again.
+        final FileObject unchangedFile = entryFile(context, "a.ent");
+        unchangedFile.delete();
+        try(IClosableLock lock = context.write()) {
+            put(context, "b.ent", "b2");
+        }
+        context.persist();
+
+        assertFalse(unchangedFile.exists());
+        final ConstraintContext newContext = context();
+        try(IClosableLock lock = newContext.read()) {
+            assertEquals(analysis("b2"), newContext.get("b.ent").analysis());
+        }
+    }
+
+    @Test public void removedEntriesAreDeleted() throws IOException {
+        final ConstraintContext context = context();
+        try(IClosableLock lock = context.write()) {
+            put(context, "a.ent", "a");
+            put(context, "b.ent", "b");
+        }
+        context.persist();
+        final FileObject removedFile = entryFile(context, "a.ent");
+        assertTrue(removedFile.exists());
+
+        try(IClosableLock lock = context.write()) {
+            context.remove(location.resolveFile("a.ent"));
+        }
+        context.persist();
+
+        assertFalse(removedFile.exists());
+        final ConstraintContext newContext = context();
+        try(IClosableLock lock = newContext.read()) {
+            assertFalse(newContext.contains(location.resolveFile("a.ent")));
+            assertTrue(newContext.contains(location.resolveFile("b.ent")));
+        }
+    }
+
+    @Test public void failedWriteStaysDirty() throws IOException {
+        final ConstraintContext context = context();
+        try(IClosableLock lock = context.write()) {
+            put(context, "a.ent", "a");
+            put(context, "b.ent", "b");
+        }
+        context.persist();
+
+        // Block the temporary file of the entry with a folder, such that writing the entry fails.
+        final FileObject entryFile = entryFile(context, "b.ent");
+        final FileObject blocker = entryFile.getParent().resolveFile(entryFile.getName().getBaseName() + ".tmp");
+        blocker.createFolder();
+        try(IClosableLock lock = context.write()) {
+            put(context, "b.ent", "b2");
+        }
+        context.persist();
+
+        // The outdated entry is left out of the index, such that it is not read back as the current one.
+        final ConstraintContext reloadedContext = context();
+        try(IClosableLock lock = reloadedContext.read()) {
+            assertTrue(reloadedContext.contains(location.resolveFile("a.ent")));
+            assertFalse(reloadedContext.contains(location.resolveFile("b.ent")));
+        }
+
+        // The next persist writes the entry again.
+        blocker.delete();
+        context.persist();
+        final ConstraintContext newContext = context();
+        try(IClosableLock lock = newContext.read()) {
+            assertEquals(analysis("b2"), newContext.get("b.ent").analysis());
+        }
+    }
+
+    @Test public void resetDeletesPersistedEntries() throws IOException {
+        final ConstraintContext context = context();
+        try(IClosableLock lock = context.write()) {
+            put(context, "a.ent", "a");
+        }
+        context.persist();
+        context.reset();
+
+        assertFalse(entriesDir().exists());
+        final ConstraintContext newContext = context();
+        try(IClosableLock lock = newContext.read()) {
+            assertTrue(newContext.entrySet().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.metaborg.spoofax.core.test.context;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.metaborg.spoofax.core.context.constraint.ConstraintContext;
+import org.metaborg.util.concurrent.IClosableLock;
+
+public class ConstraintContextShareReadTest extends ConstraintContextTest {
+    private static final long timeout = 10000;
+
+    private ExecutorService executor;
+
+
+    @Before public void createExecutor() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+
+    @Test(timeout = timeout) public void sharedReadDoesNotQueueBehindWaitingWriter() throws Exception {
+        final ConstraintContext context = context();
+        final CountDownLatch written = new CountDownLatch(1);
+        final Thread writer;
+        try(IClosableLock lock = context.write()) {
+            put(context, "a.ent", "a");
+        }
+        try(IClosableLock lock = context.read()) {
+            writer = new Thread(() -> {
+                try(IClosableLock writeLock = context.write()) {
+                    written.countDown();
+                }
+            });
+            try(IClosableLock sharedLock = context.shareRead()) {
+                writer.start();
+                awaitWaiting(writer);
+
+                // A worker reads while the writer waits, which would otherwise queue behind the writer.
+                final Future<Boolean> contains = executor.submit(() -> {
+                    try(IClosableLock workerLock = context.read()) {
+                        return context.contains(location.resolveFile("a.ent"));
+                    }
+                });
+                assertTrue(contains.get());
+            }
+            assertEquals(1, written.getCount());
+        }
+
+        written.await();
+        writer.join();
+    }
+
+    @Test(timeout = timeout) public void closingShareWaitsForBorrowedReads() throws Exception {
+        final ConstraintContext context = context();
+        final CountDownLatch borrowed = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch closed = new CountDownLatch(1);
+        try(IClosableLock lock = context.read()) {
+            final IClosableLock sharedLock = context.shareRead();
+            final Future<?> reader = executor.submit(() -> {
+                try(IClosableLock workerLock = context.read()) {
+                    borrowed.countDown();
+                    release.await();
+                }
+                return null;
+            });
+            borrowed.await();
+
+            final Thread closer = new Thread(() -> {
+                sharedLock.close();
+                closed.countDown();
+            });
+            closer.start();
+            awaitWaiting(closer);
+            assertEquals(1, closed.getCount());
+
+            release.countDown();
+            closed.await();
+            reader.get();
+            closer.join();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class) public void sharingRequiresReadLock() {
+        context().shareRead();
+    }
+
+
+    /**
+     * Waits until given thread blocks, without relying on timing.
+     */
+    private static void awaitWaiting(Thread thread) {
+        while(thread.getState() != Thread.State.WAITING) {
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.metaborg.spoofax.core.test.context;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.junit.Before;
+import org.metaborg.core.context.ContextIdentifier;
+import org.metaborg.spoofax.core.context.constraint.ConstraintContext;
+import org.metaborg.spoofax.core.context.constraint.TermDigest;
+import org.metaborg.spoofax.core.test.EntityTest;
+import org.metaborg.util.file.FileUtils;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.interpreter.terms.ITermFactory;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * Test base for constraint contexts that persist into a fresh in-memory project directory.
+ */
+public abstract class ConstraintContextTest extends EntityTest {
+    private static int projectCount = 0;
+
+    protected ITermFactory termFactory;
+    protected FileObject location;
+
+
+    @Before public void createProject() throws FileSystemException {
+        termFactory = metaborg.injector.getInstance(ITermFactory.class);
+        location = createDir("ram:///ConstraintContext" + (++projectCount) + "/");
+    }
+
+
+    /**
+     * @return New context for the project directory, which reads what earlier contexts persisted.
+     */
+    protected ConstraintContext context() {
+        return new ConstraintContext(metaborg.injector, new ContextIdentifier(location, null, entity));
+    }
+
+    /**
+     * Puts an entry for given file name into given context, with an analysis term that holds given value.
+     */
+    protected void put(ConstraintContext context, String name, String value) throws FileSystemException {
+        final IStrategoTerm ast = termFactory.makeString(name);
+        context.put(location.resolveFile(name), TermDigest.of(ast), ast, analysis(value), termFactory.makeList(),
+            termFactory.makeList(), termFactory.makeList(), Collections.<String>emptyList());
+    }
+
+    protected IStrategoTerm analysis(String value) {
+        return termFactory.makeAppl(termFactory.makeConstructor("Analysis", 1), termFactory.makeString(value));
+    }
+
+    /**
+     * @return File that holds the analysis of the entry of given file name.
+     */
+    protected FileObject entryFile(ConstraintContext context, String name) throws FileSystemException {
+        final String key = context.resourceKey(location.resolveFile(name));
+        final String fileName = Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString() + ".entry";
+        return entriesDir().resolveFile(fileName);
+    }
+
+    protected FileObject entriesDir() throws FileSystemException {
+        return location.resolveFile("target/analysis").resolveFile(FileUtils.sanitize(entity.id().toString()))
+            .resolveFile("constraint-entries");
+    }
+}
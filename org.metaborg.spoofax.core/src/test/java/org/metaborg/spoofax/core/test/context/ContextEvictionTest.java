@@ -0,0 +1,225 @@
+package org.metaborg.spoofax.core.test.context;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.metaborg.core.MetaborgException;
+import org.metaborg.core.context.ContextCacheConfiguration;
+import org.metaborg.core.context.ContextFacet;
+import org.metaborg.core.context.ContextIdentifier;
+import org.metaborg.core.context.ContextService;
+import org.metaborg.core.context.ProjectContextStrategy;
+import org.metaborg.core.language.ILanguageComponent;
+import org.metaborg.core.language.ILanguageImpl;
+import org.metaborg.core.project.IProject;
+import org.metaborg.core.project.Project;
+import org.metaborg.spoofax.core.context.constraint.ConstraintContext;
+import org.metaborg.spoofax.core.context.constraint.ConstraintContextFactory;
+import org.metaborg.spoofax.core.context.constraint.IConstraintContext;
+import org.metaborg.spoofax.core.context.constraint.TermDigest;
+import org.metaborg.spoofax.core.test.SpoofaxTest;
+import org.metaborg.util.concurrent.IClosableLock;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.interpreter.terms.ITermFactory;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+
+public class ContextEvictionTest extends SpoofaxTest {
+    private ITermFactory termFactory;
+    private ILanguageImpl language;
+    private ManualExecutor evictor;
+    private ContextService contextService;
+
+
+    @Before public void createLanguage() throws FileSystemException {
+        termFactory = metaborg.injector.getInstance(ITermFactory.class);
+        final ContextFacet facet = new ContextFacet(metaborg.injector.getInstance(ConstraintContextFactory.class),
+            new ProjectContextStrategy());
+        final ILanguageComponent component =
+            language(groupId, "eviction", version(1, 0, 0), createDir("ram:///Eviction/"), "Eviction", facet);
+        language = Iterables.get(component.contributesTo(), 0);
+        evictor = new ManualExecutor();
+    }
+
+    @After public void closeContextService() {
+        if(contextService != null) {
+            contextService.close();
+        }
+    }
+
+
+    @Test public void leastRecentlyUsedContextIsPersistedAndUnloaded()
+        throws MetaborgException, IOException, InterruptedException {
+        contextService = new ContextService(metaborg.injector, new ContextCacheConfiguration(1), evictor);
+        final IProject projectA = project("A");
+        final IConstraintContext contextA = context(projectA);
+        try(IClosableLock lock = contextA.write()) {
+            put(contextA, projectA, "a.ent");
+        }
+
+        context(project("B"));
+        assertEquals(1, evictor.runPending());
+        assertTrue(persisted(projectA, "a.ent"));
+
+        // The unloaded context is loaded again when it is used.
+        try(IClosableLock lock = contextA.read()) {
+            assertTrue(contextA.contains(projectA.location().resolveFile("a.ent")));
+        }
+    }
+
+    @Test public void contextsAreNotUnloadedWithoutBudget() throws MetaborgException, IOException {
+        contextService = new ContextService(metaborg.injector, new ContextCacheConfiguration(), evictor);
+        final IProject projectA = project("A");
+        final IConstraintContext contextA = context(projectA);
+        try(IClosableLock lock = contextA.write()) {
+            put(contextA, projectA, "a.ent");
+        }
+
+        context(project("B"));
+        context(project("C"));
+        assertEquals(0, evictor.pending());
+        assertFalse(persisted(projectA, "a.ent"));
+    }
+
+    @Test public void lockedContextIsNotUnloadedUntilLaterEviction()
+        throws MetaborgException, IOException, InterruptedException {
+        contextService = new ContextService(metaborg.injector, new ContextCacheConfiguration(1), evictor);
+        final IProject projectA = project("A");
+        final IConstraintContext contextA = context(projectA);
+        try(IClosableLock lock = contextA.write()) {
+            put(contextA, projectA, "a.ent");
+            context(project("B"));
+            // Eviction does not wait for the lock, which would block all other readers of the context.
+            assertEquals(1, evictor.runPending());
+            assertFalse(persisted(projectA, "a.ent"));
+            put(contextA, projectA, "b.ent");
+        }
+
+        // The skipped context is still tracked, and is unloaded with its changes once more contexts are used.
+        context(project("C"));
+        assertEquals(2, evictor.runPending());
+        assertTrue(persisted(projectA, "a.ent"));
+        assertTrue(persisted(projectA, "b.ent"));
+    }
+
+    @Test public void contextUsedAgainIsNotUnloaded() throws MetaborgException, IOException, InterruptedException {
+        contextService = new ContextService(metaborg.injector, new ContextCacheConfiguration(1), evictor);
+        final IProject projectA = project("A");
+        final IProject projectB = project("B");
+        final IConstraintContext contextA = context(projectA);
+        try(IClosableLock lock = contextA.write()) {
+            put(contextA, projectA, "a.ent");
+        }
+        final IConstraintContext contextB = context(projectB);
+        try(IClosableLock lock = contextB.write()) {
+            put(contextB, projectB, "b.ent");
+        }
+        // Use the first context again before its eviction runs, which evicts the second one instead.
+        context(projectA);
+
+        assertEquals(2, evictor.runPending());
+        assertTrue(persisted(projectB, "b.ent"));
+        assertFalse(persisted(projectA, "a.ent"));
+        try(IClosableLock lock = contextA.read()) {
+            assertTrue(contextA.contains(projectA.location().resolveFile("a.ent")));
+        }
+    }
+
+
+    private IProject project(String name) throws FileSystemException {
+        return new Project(createDir("ram:///EvictionProjects/" + name + "/"), null);
+    }
+
+    private IConstraintContext context(IProject project) throws MetaborgException, FileSystemException {
+        final FileObject resource = project.location().resolveFile("main.ent");
+        return (IConstraintContext) contextService.get(resource, project, language);
+    }
+
+    private void put(IConstraintContext context, IProject project, String name) throws FileSystemException {
+        final IStrategoTerm ast = termFactory.makeString(name);
+        context.put(project.location().resolveFile(name), TermDigest.of(ast), ast, ast, termFactory.makeList(),
+            termFactory.makeList(), termFactory.makeList(), Collections.<String>emptyList());
+    }
+
+    /**
+     * @return Whether an entry for given file name was persisted, read through a new context.
+     */
+    private boolean persisted(IProject project, String name) throws FileSystemException {
+        final ConstraintContext context =
+            new ConstraintContext(metaborg.injector, new ContextIdentifier(project.location(), project, language));
+        try(IClosableLock lock = context.read()) {
+            return context.contains(project.location().resolveFile(name));
+        }
+    }
+
+
+    /**
+     * Executor that queues tasks until they are run explicitly, such that tests control when evictions happen.
+     */
+    private static class ManualExecutor extends AbstractExecutorService {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private boolean shutdown = false;
+
+
+        /**
+         * Runs all queued tasks in order, on a separate thread that does not hold any of the locks of the test thread.
+         *
+         * @return Number of tasks that were run.
+         */
+        public synchronized int runPending() throws InterruptedException {
+            final List<Runnable> pending = Lists.newArrayList(tasks);
+            tasks.clear();
+            final Thread thread = new Thread(() -> pending.forEach(Runnable::run));
+            thread.start();
+            thread.join();
+            return pending.size();
+        }
+
+        public synchronized int pending() {
+            return tasks.size();
+        }
+
+
+        @Override public synchronized void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override public synchronized void shutdown() {
+            shutdown = true;
+        }
+
+        @Override public synchronized List<Runnable> shutdownNow() {
+            shutdown = true;
+            final List<Runnable> pending = Lists.newArrayList(tasks);
+            tasks.clear();
+            return pending;
+        }
+
+        @Override public synchronized boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override public synchronized boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return isTerminated();
+        }
+    }
+}
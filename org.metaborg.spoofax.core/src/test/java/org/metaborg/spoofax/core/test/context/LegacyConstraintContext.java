@@ -0,0 +1,70 @@
+package org.metaborg.spoofax.core.test.context;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.metaborg.spoofax.core.context.constraint.ConstraintContext;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+
+/**
+ * Writes constraint context state in the format in which the whole state was stored in a single file. The nested
+ * classes have the serialized form of the former state and entry classes of {@link ConstraintContext}, and the name of
+ * this class has the same length as the name of that class, such that the class names can be swapped in the stream.
+ */
+class LegacyConstraintContext {
+    private static final String name = LegacyConstraintContext.class.getName();
+    private static final String contextName = ConstraintContext.class.getName();
+
+    private final State state = new State();
+
+
+    public void put(String key, int parseHash, IStrategoTerm analysis, IStrategoTerm errors, IStrategoTerm warnings,
+        IStrategoTerm notes, List<String> exceptions) {
+        state.entries.put(key, new Entry(parseHash, analysis, errors, warnings, notes, exceptions));
+    }
+
+    public byte[] serialize() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(state);
+        }
+        // Swap class names, which have the same length, such that the lengths written into the stream stay valid.
+        final String stream = new String(bytes.toByteArray(), StandardCharsets.ISO_8859_1);
+        return stream.replace(name + "$", contextName + "$").getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+
+    private static class State implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Map<String, Entry> entries = new HashMap<>();
+    }
+
+    private static class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        @SuppressWarnings("unused") private final int parseHash;
+        @SuppressWarnings("unused") private final IStrategoTerm analysis;
+        @SuppressWarnings("unused") private final IStrategoTerm errors;
+        @SuppressWarnings("unused") private final IStrategoTerm warnings;
+        @SuppressWarnings("unused") private final IStrategoTerm notes;
+        @SuppressWarnings("unused") private final List<String> exceptions;
+
+
+        public Entry(int parseHash, IStrategoTerm analysis, IStrategoTerm errors, IStrategoTerm warnings,
+            IStrategoTerm notes, List<String> exceptions) {
+            this.parseHash = parseHash;
+            this.analysis = analysis;
+            this.errors = errors;
+            this.warnings = warnings;
+            this.notes = notes;
+            this.exceptions = exceptions;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.metaborg.spoofax.core.test.context;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+import org.metaborg.spoofax.core.context.constraint.TermDigest;
+import org.spoofax.interpreter.terms.IStrategoList;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.interpreter.terms.ITermFactory;
+import org.spoofax.terms.TermFactory;
+
+public class TermDigestTest {
+    private final ITermFactory factory = new TermFactory();
+
+
+    @Test public void equalTermsHaveEqualDigests() {
+        assertEquals(TermDigest.of(entity("Person", "name")), TermDigest.of(entity("Person", "name")));
+    }
+
+    @Test public void changedTermsHaveDifferentDigests() {
+        final TermDigest digest = TermDigest.of(entity("Person", "name"));
+        assertNotEquals(digest, TermDigest.of(entity("Person", "age")));
+        assertNotEquals(digest, TermDigest.of(entity("Address", "name")));
+    }
+
+    @Test public void kindsOfTermsAreDistinguished() {
+        assertNotEquals(TermDigest.of(factory.makeString("1")), TermDigest.of(factory.makeInt(1)));
+        assertNotEquals(TermDigest.of(factory.makeInt(1)), TermDigest.of(factory.makeReal(1)));
+        assertNotEquals(TermDigest.of(factory.makeTuple(factory.makeInt(1))),
+            TermDigest.of(factory.makeList(factory.makeInt(1))));
+        // Nesting is part of the digest, not just the sequence of leaves.
+        assertNotEquals(TermDigest.of(factory.makeList(factory.makeList(factory.makeInt(1)), factory.makeInt(2))),
+            TermDigest.of(factory.makeList(factory.makeList(factory.makeInt(1), factory.makeInt(2)))));
+        assertNotEquals(TermDigest.of(factory.makeList(factory.makeString("ab"), factory.makeString("c"))),
+            TermDigest.of(factory.makeList(factory.makeString("a"), factory.makeString("bc"))));
+    }
+
+    @Test public void annotationsArePartOfDigest() {
+        final IStrategoTerm term = entity("Person", "name");
+        final IStrategoTerm annotated = factory.annotateTerm(entity("Person", "name"),
+            factory.makeList(factory.makeString("annotation")));
+        assertNotEquals(TermDigest.of(term), TermDigest.of(annotated));
+    }
+
+    @Test public void digestIsCachedPerInstance() {
+        final IStrategoTerm term = entity("Person", "name");
+        assertSame(TermDigest.of(term), TermDigest.of(term));
+    }
+
+    @Test public void longListsAreDigested() {
+        final IStrategoList list = longList(100000, 0);
+        assertEquals(TermDigest.of(list), TermDigest.of(longList(100000, 0)));
+        assertNotEquals(TermDigest.of(list), TermDigest.of(longList(100000, 99999)));
+    }
+
+    @Test public void digestIsSerializable() throws IOException, ClassNotFoundException {
+        final TermDigest digest = TermDigest.of(entity("Person", "name"));
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(digest);
+        }
+        try(ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            final Object read = ois.readObject();
+            assertEquals(digest, read);
+            assertEquals(digest.hashCode(), read.hashCode());
+            assertEquals(digest.toString(), read.toString());
+        }
+    }
+
+
+    private IStrategoTerm entity(String name, String property) {
+        return factory.makeAppl(factory.makeConstructor("Entity", 2), factory.makeString(name),
+            factory.makeList(factory.makeString(property)));
+    }
+
+    /**
+     * @return List of zeroes of given length, with a one at given index.
+     */
+    private IStrategoList longList(int length, int one) {
+        final IStrategoTerm[] elements = new IStrategoTerm[length];
+        for(int i = 0; i < length; ++i) {
+            elements[i] = factory.makeInt(i == one ? 1 : 0);
+        }
+        return factory.makeList(elements);
+    }
+}
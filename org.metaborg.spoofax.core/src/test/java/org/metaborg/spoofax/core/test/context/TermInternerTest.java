@@ -0,0 +1,95 @@
+package org.metaborg.spoofax.core.test.context;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.metaborg.spoofax.core.context.constraint.TermInterner;
+import org.spoofax.interpreter.terms.IStrategoConstructor;
+import org.spoofax.interpreter.terms.IStrategoList;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.interpreter.terms.ITermFactory;
+import org.spoofax.terms.TermFactory;
+import org.spoofax.terms.attachments.OriginAttachment;
+
+public class TermInternerTest {
+    private final ITermFactory factory = new TermFactory();
+    private final TermInterner interner = new TermInterner(factory);
+    private final IStrategoConstructor entity = factory.makeConstructor("Entity", 2);
+    private final IStrategoConstructor property = factory.makeConstructor("Property", 2);
+
+
+    @Test public void equalTermsShareInstance() {
+        final IStrategoTerm term = interner.intern(entity("Person"));
+        assertSame(term, interner.intern(entity("Person")));
+        assertNotSame(term, interner.intern(entity("Address")));
+    }
+
+    @Test public void equalSubtermsAreShared() {
+        final IStrategoTerm person = interner.intern(entity("Person"));
+        final IStrategoTerm address = interner.intern(entity("Address"));
+        assertEquals(entity("Person"), person);
+        // Both entities have the same list of properties.
+        assertSame(person.getSubterm(1), address.getSubterm(1));
+    }
+
+    @Test public void annotationsArePreserved() {
+        final IStrategoTerm annotated =
+            factory.annotateTerm(entity("Person"), factory.makeList(factory.makeString("annotation")));
+        final IStrategoTerm interned = interner.intern(annotated);
+        assertEquals(annotated.getAnnotations(), interned.getAnnotations());
+        assertNotSame(interned, interner.intern(entity("Person")));
+    }
+
+    @Test public void termsWithAttachmentsAreNotInterned() {
+        final IStrategoTerm attached = entity("Person");
+        attached.putAttachment(new OriginAttachment(factory.makeString("origin")));
+        assertSame(attached, interner.intern(attached));
+        assertNotSame(attached, interner.intern(entity("Person")));
+    }
+
+    @Test public void attachmentFreeSiblingsOfTermsWithAttachmentsAreInterned() {
+        final IStrategoTerm attached = entity("Person");
+        attached.putAttachment(new OriginAttachment(factory.makeString("origin")));
+        final IStrategoTerm parent = factory.makeTuple(attached, entity("Address"));
+        final IStrategoTerm interned = interner.intern(parent);
+        assertEquals(parent, interned);
+        // The term with attachments is kept as a whole, including its subterms.
+        assertSame(attached, interned.getSubterm(0));
+        assertSame(attached.getSubterm(1), interned.getSubterm(0).getSubterm(1));
+        // Its sibling is interned, and the parent is rebuilt, but not interned, since it has a subterm with attachments.
+        assertSame(interner.intern(entity("Address")), interned.getSubterm(1));
+        assertNotSame(interned, interner.intern(factory.makeTuple(entity("Person"), entity("Address"))));
+    }
+
+    @Test public void termsWithAttachmentsDeepInsideAreKept() {
+        final IStrategoTerm name = factory.makeAppl(factory.makeConstructor("Name", 1), factory.makeString("Person"));
+        name.putAttachment(new OriginAttachment(factory.makeString("origin")));
+        final IStrategoTerm term = factory.makeList(factory.makeTuple(name, entity("Address")), entity("Address"));
+        final IStrategoTerm interned = interner.intern(term);
+        assertEquals(term, interned);
+        assertSame(name, interned.getSubterm(0).getSubterm(0));
+        assertSame(interned.getSubterm(0).getSubterm(1), interned.getSubterm(1));
+    }
+
+    @Test public void longListsAreInterned() {
+        final int length = 100000;
+        final IStrategoTerm[] elements = new IStrategoTerm[length];
+        for(int i = 0; i < length; ++i) {
+            elements[i] = factory.makeInt(i % 10);
+        }
+        final IStrategoList list = factory.makeList(elements);
+        final IStrategoTerm interned = interner.intern(list);
+        assertEquals(list, interned);
+        assertSame(interned.getSubterm(0), interned.getSubterm(10));
+    }
+
+
+    private IStrategoTerm entity(String name) {
+        final IStrategoTerm properties = factory.makeList(
+            factory.makeAppl(property, factory.makeString("name"), factory.makeString("String")),
+            factory.makeAppl(property, factory.makeString("age"), factory.makeString("Int")));
+        return factory.makeAppl(entity, factory.makeString(name), properties);
+    }
+}
@@ -0,0 +1,140 @@
+package org.metaborg.spoofax.core.test.dynamicclassloading;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.metaborg.core.language.ILanguageComponent;
+import org.metaborg.spoofax.core.dynamicclassloading.DynamicClassLoader;
+import org.metaborg.spoofax.core.dynamicclassloading.DynamicClassLoadingService;
+import org.metaborg.spoofax.core.dynamicclassloading.IDynamicClassLoadingService;
+import org.metaborg.spoofax.core.test.EntityTest;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+
+public class DynamicClassLoaderTest extends EntityTest {
+    @Test public void parentClassesAreResolved() throws ClassNotFoundException {
+        final DynamicClassLoader classLoader = new DynamicClassLoader(Collections.<ClassLoader>emptyList());
+        assertSame(String.class, classLoader.loadClass(String.class.getName()));
+        assertSame(DynamicClassLoader.class, classLoader.loadClass(DynamicClassLoader.class.getName()));
+    }
+
+    @Test public void additionalClassesAreResolvedOnce() throws ClassNotFoundException {
+        final CountingClassLoader additional = new CountingClassLoader("test.Additional", Integer.class);
+        final DynamicClassLoader classLoader =
+            new DynamicClassLoader(Collections.<ClassLoader>singletonList(additional));
+        assertSame(Integer.class, classLoader.loadClass("test.Additional"));
+        assertSame(Integer.class, classLoader.loadClass("test.Additional"));
+        assertEquals(1, additional.lookups.get());
+    }
+
+    @Test public void missesAreCached() {
+        final CountingClassLoader additional = new CountingClassLoader("test.Additional", Integer.class);
+        final DynamicClassLoader classLoader =
+            new DynamicClassLoader(Collections.<ClassLoader>singletonList(additional));
+        for(int i = 0; i < 3; ++i) {
+            try {
+                classLoader.loadClass("test.Missing");
+                fail("Expected class to be missing");
+            } catch(ClassNotFoundException e) {
+                // Misses are frequent, so they are reported without a stack trace.
+                assertEquals(0, e.getStackTrace().length);
+            }
+        }
+        assertEquals(1, additional.lookups.get());
+    }
+
+    @Test public void cachedLookupsAreBounded() {
+        final CountingClassLoader additional = new CountingClassLoader("test.Additional", Integer.class);
+        final DynamicClassLoader classLoader =
+            new DynamicClassLoader(Collections.<ClassLoader>singletonList(additional), 1);
+        for(String name : new String[] { "test.MissingA", "test.MissingB", "test.MissingA" }) {
+            try {
+                classLoader.loadClass(name);
+                fail("Expected class to be missing");
+            } catch(ClassNotFoundException e) {
+            }
+        }
+        // The first miss was evicted by the second, so it is looked up again.
+        assertEquals(3, additional.lookups.get());
+    }
+
+    @Test public void clearingForgetsLookups() throws ClassNotFoundException {
+        final CountingClassLoader additional = new CountingClassLoader("test.Additional", Integer.class);
+        final DynamicClassLoader classLoader =
+            new DynamicClassLoader(Collections.<ClassLoader>singletonList(additional));
+        classLoader.loadClass("test.Additional");
+        classLoader.clearCache();
+        classLoader.loadClass("test.Additional");
+        assertEquals(2, additional.lookups.get());
+    }
+
+    @Test public void componentClassLoaderIsCreatedOnce() throws Exception {
+        final IDynamicClassLoadingService service =
+            metaborg.injector.getInstance(IDynamicClassLoadingService.class);
+        final ILanguageComponent component = Iterables.get(entity.components(), 0);
+
+        final int threads = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Callable<ClassLoader>> requests = Lists.newArrayList();
+            for(int i = 0; i < threads; ++i) {
+                requests.add(() -> service.classLoader(component));
+            }
+            final ClassLoader classLoader = service.classLoader(component);
+            for(Future<ClassLoader> future : executor.invokeAll(requests)) {
+                assertSame(classLoader, future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test public void invalidateDropsComponentClassLoader() {
+        final DynamicClassLoadingService service = metaborg.injector.getInstance(DynamicClassLoadingService.class);
+        final ILanguageComponent component = Iterables.get(entity.components(), 0);
+        final ClassLoader classLoader = service.classLoader(component);
+        service.invalidateCache(component);
+        final ClassLoader newClassLoader = service.classLoader(component);
+        assertNotSame(classLoader, newClassLoader);
+        // Cached lookups are scoped to the component, and are dropped with its class loader.
+        assertNotSame(classLoader.getParent(), newClassLoader.getParent());
+    }
+
+
+    /**
+     * Class loader that resolves a single class name to a given class, and counts lookups.
+     */
+    private static class CountingClassLoader extends ClassLoader {
+        private final String name;
+        private final Class<?> resolvedClass;
+        private final AtomicInteger lookups = new AtomicInteger();
+
+
+        public CountingClassLoader(String name, Class<?> resolvedClass) {
+            super(null);
+            this.name = name;
+            this.resolvedClass = resolvedClass;
+        }
+
+
+        @Override public Class<?> loadClass(String name) throws ClassNotFoundException {
+            lookups.incrementAndGet();
+            if(this.name.equals(name)) {
+                return resolvedClass;
+            }
+            throw new ClassNotFoundException(name);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.metaborg.spoofax.core.test.stratego;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.metaborg.spoofax.core.stratego.StrategoProfiler;
+import org.metaborg.spoofax.core.stratego.StrategoProfiler.StrategyProfile;
+import org.metaborg.spoofax.core.stratego.StrategoRuntimeConfiguration;
+
+public class StrategoProfilerTest {
+    @Test public void disabledByDefault() {
+        final StrategoProfiler profiler = new StrategoProfiler(new StrategoRuntimeConfiguration());
+        assertFalse(profiler.enabled());
+        assertNull(profiler.enter("editor-analyze"));
+        profiler.exit(null);
+        assertTrue(profiler.profiles().isEmpty());
+    }
+
+    @Test public void enabledThroughConfiguration() {
+        final StrategoProfiler profiler = new StrategoProfiler(new StrategoRuntimeConfiguration(true));
+        assertTrue(profiler.enabled());
+        profiler.setEnabled(false);
+        assertNull(profiler.enter("editor-analyze"));
+    }
+
+    @Test public void callsAreCounted() {
+        final StrategoProfiler profiler = enabledProfiler();
+        for(int i = 0; i < 3; ++i) {
+            profiler.exit(profiler.enter("pp-debug"));
+        }
+        final List<StrategyProfile> profiles = profiler.profiles();
+        assertEquals(1, profiles.size());
+        assertEquals("pp-debug", profiles.get(0).strategy);
+        assertEquals(3, profiles.get(0).calls);
+    }
+
+    @Test public void nestedTimeIsExcludedFromCaller() {
+        final AtomicLong clock = new AtomicLong();
+        final StrategoProfiler profiler = enabledProfiler(clock);
+        final StrategoProfiler.Call outer = profiler.enter("outer");
+        clock.addAndGet(10);
+        final StrategoProfiler.Call inner = profiler.enter("inner");
+        clock.addAndGet(50);
+        profiler.exit(inner);
+        clock.addAndGet(20);
+        profiler.exit(outer);
+
+        final StrategyProfile outerProfile = profile(profiler, "outer");
+        final StrategyProfile innerProfile = profile(profiler, "inner");
+        assertEquals(80, outerProfile.inclusiveTime);
+        assertEquals(30, outerProfile.exclusiveTime);
+        assertEquals(50, innerProfile.inclusiveTime);
+        assertEquals(50, innerProfile.exclusiveTime);
+        // Sorted by descending exclusive time.
+        assertEquals("inner", profiler.profiles().get(0).strategy);
+    }
+
+    @Test public void collapsedStacksContainNesting() throws IOException {
+        final AtomicLong clock = new AtomicLong();
+        final StrategoProfiler profiler = enabledProfiler(clock);
+        final StrategoProfiler.Call outer = profiler.enter("outer");
+        clock.addAndGet(1_000);
+        final StrategoProfiler.Call inner = profiler.enter("inner");
+        clock.addAndGet(5_000);
+        profiler.exit(inner);
+        profiler.exit(outer);
+
+        final StringWriter writer = new StringWriter();
+        profiler.writeCollapsedStacks(writer);
+        final List<String> lines = Arrays.asList(writer.toString().split("\n"));
+        assertEquals(2, lines.size());
+        assertTrue(lines.contains("outer 1"));
+        assertTrue(lines.contains("outer;inner 5"));
+    }
+
+    @Test public void resetClearsProfiles() throws IOException {
+        final StrategoProfiler profiler = enabledProfiler();
+        profiler.exit(profiler.enter("pp-debug"));
+        profiler.reset();
+        assertTrue(profiler.profiles().isEmpty());
+        final StringWriter writer = new StringWriter();
+        profiler.writeCollapsedStacks(writer);
+        assertEquals("", writer.toString());
+    }
+
+
+    private static StrategoProfiler enabledProfiler() {
+        return enabledProfiler(new AtomicLong());
+    }
+
+    private static StrategoProfiler enabledProfiler(AtomicLong clock) {
+        final StrategoProfiler profiler = new StrategoProfiler(new StrategoRuntimeConfiguration(), clock::get);
+        profiler.setEnabled(true);
+        return profiler;
+    }
+
+    private static StrategyProfile profile(StrategoProfiler profiler, String strategy) {
+        for(StrategyProfile profile : profiler.profiles()) {
+            if(profile.strategy.equals(strategy)) {
+                return profile;
+            }
+        }
+        throw new AssertionError("No profile for " + strategy);
+    }
+}
@@ -0,0 +1,95 @@
+package org.metaborg.spoofax.core.test.stratego;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystemException;
+import org.apache.commons.vfs2.Selectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.metaborg.core.MetaborgException;
+import org.metaborg.core.language.ILanguageComponent;
+import org.metaborg.spoofax.core.dynamicclassloading.DynamicClassLoadingFacet;
+import org.metaborg.spoofax.core.stratego.IStrategoRuntimeService;
+import org.metaborg.spoofax.core.stratego.StrategoRuntimeFacet;
+import org.metaborg.spoofax.core.test.EntityTest;
+import org.strategoxt.HybridInterpreter;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class StrategoPrototypeTest extends EntityTest {
+    private IStrategoRuntimeService runtimeService;
+    private ILanguageComponent component;
+    private FileObject location;
+
+
+    @Before public void getRuntimeService() {
+        runtimeService = metaborg.injector.getInstance(IStrategoRuntimeService.class);
+        component = Iterables.get(entity.components(), 0);
+        location = resourceService.resolve("ram:///Entity/");
+    }
+
+
+    @Test(timeout = 60000) public void concurrentRequestsGetRuntimes() throws Exception {
+        final int threads = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Callable<HybridInterpreter>> requests = Lists.newArrayList();
+            for(int i = 0; i < threads; ++i) {
+                requests.add(() -> runtimeService.runtime(component, location));
+            }
+            final Set<HybridInterpreter> runtimes = Sets.newIdentityHashSet();
+            for(Future<HybridInterpreter> future : executor.invokeAll(requests)) {
+                runtimes.add(future.get());
+            }
+            // Every request gets its own runtime, cloned from the same prototype.
+            assertEquals(threads, runtimes.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test public void warmedComponentGetsRuntime() throws MetaborgException {
+        runtimeService.warm(entity.components(), 2);
+        assertNotNull(runtimeService.runtime(component, location));
+    }
+
+    @Test public void warmSkipsComponentsWithoutStratego() throws MetaborgException, FileSystemException {
+        final ILanguageComponent plain =
+            language(groupId, "plain", version(1, 0, 0), createDir("ram:///Plain/"), "Plain");
+        runtimeService.warm(Collections.singleton(plain), 2);
+    }
+
+    @Test public void failedLoadIsRetried() throws MetaborgException, FileSystemException {
+        final FileObject languageLocation = createDir("ram:///Broken/");
+        final FileObject ctree = languageLocation.resolveFile("stratego.ctree");
+        final Collection<FileObject> ctrees = Collections.singletonList(ctree);
+        final ILanguageComponent broken = language(groupId, "broken", version(1, 0, 0), languageLocation, "Broken",
+            new StrategoRuntimeFacet(ctrees), new DynamicClassLoadingFacet(Collections.<FileObject>emptyList()));
+
+        try {
+            runtimeService.warm(Collections.singleton(broken), 2);
+            fail("Expected loading a missing CTree to fail");
+        } catch(MetaborgException e) {
+            // Expected.
+        }
+
+        // The failure is not cached: once the CTree exists, loading succeeds.
+        ctree.copyFrom(resourceService.resolve("res://languages/Entity/target/metaborg/stratego.ctree"),
+            Selectors.SELECT_SELF);
+        assertNotNull(runtimeService.runtime(broken, location));
+    }
+}
@@ -0,0 +1,108 @@
+package org.metaborg.spoofax.core.test.stratego;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.commons.vfs2.FileObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.metaborg.core.MetaborgException;
+import org.metaborg.core.language.ILanguageComponent;
+import org.metaborg.spoofax.core.stratego.IStrategoRuntimeService;
+import org.metaborg.spoofax.core.stratego.StrategoRuntimePool;
+import org.metaborg.spoofax.core.test.EntityTest;
+import org.spoofax.interpreter.terms.ITermFactory;
+import org.strategoxt.HybridInterpreter;
+
+import com.google.common.collect.Iterables;
+
+public class StrategoRuntimePoolTest extends EntityTest {
+    private IStrategoRuntimeService runtimeService;
+    private ILanguageComponent component;
+    private FileObject location;
+
+
+    @Before public void getRuntimeService() {
+        runtimeService = metaborg.injector.getInstance(IStrategoRuntimeService.class);
+        component = Iterables.get(entity.components(), 0);
+        location = resourceService.resolve("ram:///Entity/");
+    }
+
+
+    @Test public void pollReturnsOfferedRuntimes() {
+        final StrategoRuntimePool pool = new StrategoRuntimePool(2);
+        assertNull(pool.poll());
+        final HybridInterpreter runtime = runtimeService.genericRuntime();
+        pool.offer(runtime);
+        assertSame(runtime, pool.poll());
+        assertNull(pool.poll());
+    }
+
+    @Test public void poolIsBounded() {
+        final StrategoRuntimePool pool = new StrategoRuntimePool(2);
+        pool.offer(runtimeService.genericRuntime());
+        pool.offer(runtimeService.genericRuntime());
+        pool.offer(runtimeService.genericRuntime());
+        assertNotNull(pool.poll());
+        assertNotNull(pool.poll());
+        assertNull(pool.poll());
+    }
+
+    @Test public void closedPoolDiscardsRuntimes() {
+        final StrategoRuntimePool pool = new StrategoRuntimePool(2);
+        pool.offer(runtimeService.genericRuntime());
+        pool.close();
+        assertNull(pool.poll());
+        pool.offer(runtimeService.genericRuntime());
+        assertNull(pool.poll());
+    }
+
+    @Test public void recycledRuntimeIsReused() throws MetaborgException {
+        final HybridInterpreter runtime = runtimeService.runtime(component, location);
+        runtimeService.recycle(runtime);
+        assertSame(runtime, runtimeService.runtime(component, location));
+    }
+
+    @Test public void recycledRuntimeDoesNotKeepContextObjectOrTerm() throws MetaborgException {
+        final HybridInterpreter runtime = runtimeService.runtime(component, location);
+        final Object contextObject = new Object();
+        runtime.getContext().setContextObject(contextObject);
+        runtime.setCurrent(metaborg.injector.getInstance(ITermFactory.class).makeString("term"));
+        runtimeService.recycle(runtime);
+        assertNull(runtime.getContext().contextObject());
+        assertNull(runtime.current());
+    }
+
+    @Test public void runtimeIsNotSharedWithoutRecycling() throws MetaborgException {
+        final HybridInterpreter runtime = runtimeService.runtime(component, location);
+        assertNotSame(runtime, runtimeService.runtime(component, location));
+    }
+
+    @Test public void runtimeIsRecycledOnce() throws MetaborgException {
+        final HybridInterpreter runtime = runtimeService.runtime(component, location);
+        runtimeService.recycle(runtime);
+        runtimeService.recycle(runtime);
+        assertSame(runtime, runtimeService.runtime(component, location));
+        assertNotSame(runtime, runtimeService.runtime(component, location));
+    }
+
+    @Test public void invalidateDiscardsRecycledRuntimes() throws MetaborgException {
+        final HybridInterpreter runtime = runtimeService.runtime(component, location);
+        final HybridInterpreter inUse = runtimeService.runtime(component, location);
+        runtimeService.recycle(runtime);
+        runtimeService.invalidateCache(component);
+        // Runtimes handed out before invalidation are not reused either.
+        runtimeService.recycle(inUse);
+        final HybridInterpreter newRuntime = runtimeService.runtime(component, location);
+        assertNotSame(runtime, newRuntime);
+        assertNotSame(inUse, newRuntime);
+    }
+
+    @Test public void foreignRuntimeIsNotRecycled() throws MetaborgException {
+        final HybridInterpreter generic = runtimeService.genericRuntime();
+        runtimeService.recycle(generic);
+        assertNotSame(generic, runtimeService.runtime(component, location));
+    }
+}
@@ -0,0 +1,50 @@
+package org.metaborg.spoofax.core.test.stratego;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.metaborg.core.config.ProjectConfig;
+import org.metaborg.spoofax.core.stratego.IStrategoCommon;
+import org.metaborg.spoofax.core.test.SpoofaxTest;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.interpreter.terms.ITermFactory;
+
+public class StrategoWriteTest extends SpoofaxTest {
+    private IStrategoCommon strategoCommon;
+    private ITermFactory termFactory;
+
+
+    @Before public void getServices() {
+        strategoCommon = metaborg.injector.getInstance(IStrategoCommon.class);
+        termFactory = metaborg.injector.getInstance(ITermFactory.class);
+    }
+
+
+    @Test public void stringIsWrittenVerbatim() throws IOException {
+        final StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < 10000; ++i) {
+            builder.append("entity E").append(i).append(" { n\u00E4me : String }\n");
+        }
+        final String text = builder.toString();
+        final StringWriter writer = new StringWriter();
+        strategoCommon.write(termFactory.makeString(text), writer);
+        assertEquals(text, writer.toString());
+    }
+
+    @Test public void termIsWrittenAsToString() throws IOException {
+        final IStrategoTerm term = termFactory.makeAppl(termFactory.makeConstructor("Entity", 2),
+            termFactory.makeString("Person"), termFactory.makeList(termFactory.makeInt(1)));
+        final StringWriter writer = new StringWriter();
+        strategoCommon.write(term, writer);
+        assertEquals(strategoCommon.toString(term), writer.toString());
+    }
+
+    @Test public void defaultOutputEncodingIsUTF8() {
+        assertEquals(StandardCharsets.UTF_8, ProjectConfig.DEFAULT_ENCODING);
+    }
+}
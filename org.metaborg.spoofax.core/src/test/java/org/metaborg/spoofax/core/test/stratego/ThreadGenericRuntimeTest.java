@@ -0,0 +1,51 @@
+package org.metaborg.spoofax.core.test.stratego;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.metaborg.spoofax.core.stratego.IStrategoRuntimeService;
+import org.metaborg.spoofax.core.stratego.StrategoRuntimeService;
+import org.metaborg.spoofax.core.test.SpoofaxTest;
+import org.strategoxt.HybridInterpreter;
+
+public class ThreadGenericRuntimeTest extends SpoofaxTest {
+    private IStrategoRuntimeService runtimeService;
+
+
+    @Before public void getRuntimeService() {
+        runtimeService = metaborg.injector.getInstance(IStrategoRuntimeService.class);
+    }
+
+
+    @Test public void sameThreadGetsSameRuntime() {
+        final HybridInterpreter runtime = runtimeService.threadGenericRuntime();
+        assertNotNull(runtime);
+        assertSame(runtime, runtimeService.threadGenericRuntime());
+    }
+
+    @Test public void threadsGetDifferentRuntimes() throws InterruptedException {
+        final HybridInterpreter runtime = runtimeService.threadGenericRuntime();
+        final AtomicReference<HybridInterpreter> otherRuntime = new AtomicReference<>();
+        final Thread thread = new Thread(() -> otherRuntime.set(runtimeService.threadGenericRuntime()));
+        thread.start();
+        thread.join();
+        assertNotNull(otherRuntime.get());
+        assertNotSame(runtime, otherRuntime.get());
+    }
+
+    @Test public void genericRuntimeIsNotCached() {
+        assertNotSame(runtimeService.genericRuntime(), runtimeService.genericRuntime());
+        assertNotSame(runtimeService.threadGenericRuntime(), runtimeService.genericRuntime());
+    }
+
+    @Test public void closeReleasesRuntimes() {
+        final HybridInterpreter runtime = runtimeService.threadGenericRuntime();
+        ((StrategoRuntimeService) runtimeService).close();
+        assertNotSame(runtime, runtimeService.threadGenericRuntime());
+    }
+}
@@ -0,0 +1,72 @@
+package org.metaborg.spoofax.core.test.syntax;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.metaborg.core.syntax.ParseException;
+import org.metaborg.spoofax.core.syntax.JSGLR2I;
+import org.metaborg.spoofax.core.syntax.JSGLRParserConfiguration;
+import org.metaborg.spoofax.core.test.EntityTest;
+import org.metaborg.spoofax.core.unit.ISpoofaxInputUnit;
+import org.metaborg.spoofax.core.unit.ISpoofaxParseUnit;
+import org.metaborg.spoofax.core.unit.ParseEscalation;
+
+public class AdaptiveParseTest extends EntityTest {
+    private static final String malformed = "module m\n\nentity E {\n  p0 : String\n  p1 :\n}\n";
+
+    private final JSGLRParserConfiguration adaptive = config(true, true);
+    private final JSGLRParserConfiguration direct = config(true, false);
+
+
+    @Test public void wellFormedInputIsParsedWithoutRecovery() throws ParseException {
+        final ISpoofaxParseUnit adaptiveResult = syntaxService.parse(input("a", program(3), adaptive));
+        final ISpoofaxParseUnit directResult = syntaxService.parse(input("a", program(3), direct));
+        assertEquals(ParseEscalation.Fast, adaptiveResult.escalation());
+        assertEquals(ParseEscalation.Direct, directResult.escalation());
+        assertTrue(adaptiveResult.success());
+        assertEquals(directResult.ast(), adaptiveResult.ast());
+    }
+
+    @Test public void malformedInputIsParsedAgainWithRecovery() throws ParseException {
+        final ISpoofaxParseUnit adaptiveResult = syntaxService.parse(input("a", malformed, adaptive));
+        final ISpoofaxParseUnit directResult = syntaxService.parse(input("a", malformed, direct));
+        assertEquals(ParseEscalation.Escalated, adaptiveResult.escalation());
+        assertFalse(adaptiveResult.success());
+        assertEquals(directResult.valid(), adaptiveResult.valid());
+        assertEquals(directResult.ast(), adaptiveResult.ast());
+    }
+
+    @Test public void adaptiveWithoutRecoveryParsesOnce() throws ParseException {
+        final ISpoofaxParseUnit result = syntaxService.parse(input("a", malformed, config(false, true)));
+        assertEquals(ParseEscalation.Direct, result.escalation());
+        assertFalse(result.success());
+    }
+
+    @Test public void bothAttemptsReportAmbiguities() {
+        final JSGLRParserConfiguration fastAttempt = config(false, true);
+        assertTrue(fastAttempt.fastAttempt());
+        assertTrue(JSGLR2I.request(fastAttempt, program(3), "a.ent", null).reportAmbiguities);
+        assertTrue(JSGLR2I.request(adaptive, program(3), "a.ent", null).reportAmbiguities);
+        assertTrue(JSGLR2I.request(direct, program(3), "a.ent", null).reportAmbiguities);
+    }
+
+    @Test public void completionIsNotAdaptive() throws ParseException {
+        final JSGLRParserConfiguration completion = new JSGLRParserConfiguration(true, true, true,
+            JSGLRParserConfiguration.defaultTimeout, malformed.length() - 2, null, true);
+        final ISpoofaxParseUnit result = syntaxService.parse(input("a", malformed, completion));
+        assertEquals(ParseEscalation.Direct, result.escalation());
+    }
+
+
+    private ISpoofaxInputUnit input(String name, String text, JSGLRParserConfiguration config) {
+        return unitService.inputUnit(resourceService.resolve("ram:///Entity/" + name + ".ent"), text, entity, null,
+            config);
+    }
+
+    private static JSGLRParserConfiguration config(boolean recovery, boolean adaptive) {
+        return new JSGLRParserConfiguration(true, recovery, false, JSGLRParserConfiguration.defaultTimeout,
+            JSGLRParserConfiguration.defaultCursorPosition, null, adaptive);
+    }
+}
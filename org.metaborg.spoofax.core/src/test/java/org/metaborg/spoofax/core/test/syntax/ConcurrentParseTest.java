@@ -0,0 +1,61 @@
+package org.metaborg.spoofax.core.test.syntax;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.metaborg.spoofax.core.test.EntityTest;
+import org.metaborg.spoofax.core.unit.ISpoofaxInputUnit;
+import org.metaborg.spoofax.core.unit.ISpoofaxParseUnit;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+
+import com.google.common.collect.Lists;
+
+public class ConcurrentParseTest extends EntityTest {
+    private static final int programs = 32;
+    private static final int rounds = 4;
+    private static final int threads = 8;
+
+
+    /**
+     * Parses the same programs on several threads at once, against the single parser pool of the Entity language, and
+     * checks that every thread gets the AST that a sequential parse produces.
+     */
+    @Test public void concurrentParsesEqualSequentialParses() throws Exception {
+        final List<ISpoofaxInputUnit> inputs = Lists.newArrayList();
+        for(int i = 0; i < programs; ++i) {
+            inputs.add(input("concurrent" + i, program(i)));
+        }
+
+        final List<IStrategoTerm> expected = Lists.newArrayList();
+        for(ISpoofaxInputUnit input : inputs) {
+            final ISpoofaxParseUnit unit = syntaxService.parse(input);
+            assertTrue(unit.valid());
+            assertNotNull(unit.ast());
+            expected.add(unit.ast());
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<ISpoofaxParseUnit>> futures = Lists.newArrayList();
+            for(int round = 0; round < rounds; ++round) {
+                for(ISpoofaxInputUnit input : inputs) {
+                    futures.add(executor.submit(() -> syntaxService.parse(input)));
+                }
+            }
+            for(int i = 0; i < futures.size(); ++i) {
+                final ISpoofaxParseUnit unit = futures.get(i).get();
+                assertTrue(unit.valid());
+                assertEquals(expected.get(i % programs), unit.ast());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.metaborg.spoofax.core.test.syntax;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.metaborg.spoofax.core.syntax.JSGLR2IncrementalState;
+import org.spoofax.interpreter.terms.IStrategoTerm;
+import org.spoofax.interpreter.terms.ITermFactory;
+import org.spoofax.terms.TermFactory;
+
+public class JSGLR2IncrementalStateTest {
+    private final ITermFactory termFactory = new TermFactory();
+
+
+    @Test public void storesPreviousParse() {
+        final JSGLR2IncrementalState state = new JSGLR2IncrementalState();
+        final IStrategoTerm ast = termFactory.makeString("a");
+        state.put("a.ent", "a", ast);
+
+        final JSGLR2IncrementalState.Entry entry = state.get("a.ent");
+        assertNotNull(entry);
+        assertEquals("a", entry.input);
+        assertSame(ast, entry.ast);
+        assertNull(state.get("b.ent"));
+    }
+
+    @Test public void replacesPreviousParse() {
+        final JSGLR2IncrementalState state = new JSGLR2IncrementalState();
+        state.put("a.ent", "a", termFactory.makeString("a"));
+        final IStrategoTerm ast = termFactory.makeString("b");
+        state.put("a.ent", "b", ast);
+
+        assertEquals("b", state.get("a.ent").input);
+        assertSame(ast, state.get("a.ent").ast);
+    }
+
+    @Test public void removesPreviousParse() {
+        final JSGLR2IncrementalState state = new JSGLR2IncrementalState();
+        state.put("a.ent", "a", termFactory.makeString("a"));
+        state.put("b.ent", "b", termFactory.makeString("b"));
+
+        state.remove("a.ent");
+        assertNull(state.get("a.ent"));
+        assertNotNull(state.get("b.ent"));
+
+        state.clear();
+        assertNull(state.get("b.ent"));
+    }
+
+    @Test public void evictsLeastRecentlyParsed() {
+        final JSGLR2IncrementalState state = new JSGLR2IncrementalState(2);
+        state.put("a.ent", "a", termFactory.makeString("a"));
+        state.put("b.ent", "b", termFactory.makeString("b"));
+        // Using a.ent makes b.ent the least recently used entry.
+        state.get("a.ent");
+        state.put("c.ent", "c", termFactory.makeString("c"));
+
+        assertNotNull(state.get("a.ent"));
+        assertNull(state.get("b.ent"));
+        assertNotNull(state.get("c.ent"));
+    }
+}
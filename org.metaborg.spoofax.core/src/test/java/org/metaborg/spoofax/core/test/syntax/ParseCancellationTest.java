@@ -0,0 +1,149 @@
+package org.metaborg.spoofax.core.test.syntax;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import org.apache.commons.vfs2.FileObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.metaborg.core.processing.CancellationToken;
+import org.metaborg.core.syntax.ParseException;
+import org.metaborg.spoofax.core.syntax.JSGLRI;
+import org.metaborg.spoofax.core.syntax.JSGLRParserConfiguration;
+import org.metaborg.spoofax.core.syntax.ParseCancelWatcher;
+import org.metaborg.spoofax.core.test.EntityTest;
+import org.metaborg.spoofax.core.unit.ParseContrib;
+import org.metaborg.util.task.NullProgress;
+import org.spoofax.jsglr.shared.BadTokenException;
+
+public class ParseCancellationTest extends EntityTest {
+    private ParseCancelWatcher cancelWatcher;
+
+
+    @Before public void createCancelWatcher() {
+        cancelWatcher = new ParseCancelWatcher();
+    }
+
+    @After public void closeCancelWatcher() {
+        cancelWatcher.close();
+    }
+
+
+    @Test public void watcherRunsActionOnceAfterCancel() {
+        final CancellationToken cancel = new CancellationToken();
+        final AtomicInteger runs = new AtomicInteger();
+        try(final ParseCancelWatcher.Watch watch = cancelWatcher.watch(cancel, runs::incrementAndGet)) {
+            cancelWatcher.poll();
+            assertEquals(0, runs.get());
+            cancel.cancel();
+            cancelWatcher.poll();
+            cancelWatcher.poll();
+        }
+        assertEquals(1, runs.get());
+    }
+
+    @Test public void watcherDoesNotRunActionAfterClose() {
+        final CancellationToken cancel = new CancellationToken();
+        final AtomicInteger runs = new AtomicInteger();
+        final ParseCancelWatcher.Watch watch = cancelWatcher.watch(cancel, runs::incrementAndGet);
+        watch.close();
+        cancel.cancel();
+        cancelWatcher.poll();
+        assertEquals(0, runs.get());
+    }
+
+    @Test(expected = IllegalStateException.class) public void closedWatcherDoesNotWatch() {
+        cancelWatcher.close();
+        cancelWatcher.watch(new CancellationToken(), () -> {
+        });
+    }
+
+    @Test(timeout = 10000) public void cancelStopsRunningParse() throws InterruptedException {
+        final BlockingParser parser = new BlockingParser();
+        final CancellationToken cancel = new CancellationToken();
+        final Thread canceller = new Thread(() -> {
+            try {
+                parser.started.await();
+                cancel.cancel();
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        canceller.start();
+        try {
+            parser.parse(null, null, "", cancel, cancelWatcher);
+            fail("Expected parse to be cancelled");
+        } catch(InterruptedException e) {
+            // Expected.
+        }
+        canceller.join();
+        assertTrue(parser.interrupted);
+        // The interrupt used to stop the parse does not leak to the parsing thread.
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test(timeout = 10000, expected = InterruptedException.class) public void cancelledParseDoesNotStart()
+        throws InterruptedException {
+        final BlockingParser parser = new BlockingParser();
+        final CancellationToken cancel = new CancellationToken();
+        cancel.cancel();
+        try {
+            parser.parse(null, null, "", cancel, cancelWatcher);
+        } finally {
+            assertEquals(1, parser.started.getCount());
+        }
+    }
+
+    @Test(timeout = 10000) public void serviceThrowsOnCancelledParse() throws ParseException {
+        final CancellationToken cancel = new CancellationToken();
+        cancel.cancel();
+        try {
+            syntaxService.parse(input("a", program(1)), new NullProgress(), cancel);
+            fail("Expected parse to be cancelled");
+        } catch(InterruptedException e) {
+            // Expected.
+        }
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+
+    /**
+     * Parser that blocks until it is interrupted.
+     */
+    private static class BlockingParser extends JSGLRI<Object> {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private volatile boolean interrupted = false;
+
+
+        public BlockingParser() {
+            super(null, null, null, null);
+        }
+
+
+        @Override public ParseContrib parse(@Nullable JSGLRParserConfiguration parserConfig,
+            @Nullable FileObject resource, String input) {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch(InterruptedException e) {
+                interrupted = true;
+                // Like the SGLR parse loop, return a partial result instead of rethrowing.
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }
+
+        @Override public Set<BadTokenException> getCollectedErrors() {
+            return null;
+        }
+    }
+}
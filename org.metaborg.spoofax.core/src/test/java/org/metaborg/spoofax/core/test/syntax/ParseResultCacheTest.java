@@ -0,0 +1,130 @@
+package org.metaborg.spoofax.core.test.syntax;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.metaborg.core.syntax.ParseException;
+import org.metaborg.spoofax.core.syntax.ISpoofaxParser;
+import org.metaborg.spoofax.core.syntax.JSGLRParserConfiguration;
+import org.metaborg.spoofax.core.syntax.ParseResultCache;
+import org.metaborg.spoofax.core.syntax.ParseResultCacheConfiguration;
+import org.metaborg.spoofax.core.syntax.SpoofaxSyntaxService;
+import org.metaborg.spoofax.core.test.EntityTest;
+import org.metaborg.spoofax.core.unit.ISpoofaxInputUnit;
+import org.metaborg.spoofax.core.unit.ISpoofaxParseUnit;
+
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+
+public class ParseResultCacheTest extends EntityTest {
+    private static final long maxCharacters = 1024 * 1024;
+
+    private SpoofaxSyntaxService cachingSyntaxService;
+
+
+    @Before public void createCachingSyntaxService() {
+        final Map<String, ISpoofaxParser> parsers =
+            metaborg.injector.getInstance(Key.get(new TypeLiteral<Map<String, ISpoofaxParser>>() {}));
+        cachingSyntaxService = new SpoofaxSyntaxService(parsers,
+            metaborg.injector.getInstance(JSGLRParserConfiguration.class),
+            new ParseResultCacheConfiguration(maxCharacters));
+    }
+
+
+    @Test public void cacheIsDisabledByDefault() throws ParseException {
+        final ISpoofaxParseUnit first = syntaxService.parse(input("a", program(1)));
+        final ISpoofaxParseUnit second = syntaxService.parse(input("a", program(1)));
+        assertNotSame(first, second);
+    }
+
+    @Test public void identicalTextReturnsCachedResult() throws ParseException {
+        final ISpoofaxParseUnit first = cachingSyntaxService.parse(input("a", program(1)));
+        final ISpoofaxParseUnit second = cachingSyntaxService.parse(input("a", program(1)));
+        assertTrue(first.valid());
+        assertSame(first, second);
+    }
+
+    @Test public void changedTextIsParsedAgain() throws ParseException {
+        final ISpoofaxParseUnit first = cachingSyntaxService.parse(input("a", program(1)));
+        final ISpoofaxParseUnit second = cachingSyntaxService.parse(input("a", program(2)));
+        assertNotSame(first, second);
+        assertNotEquals(first.ast(), second.ast());
+    }
+
+    @Test public void otherResourceIsParsedAgain() throws ParseException {
+        final ISpoofaxParseUnit first = cachingSyntaxService.parse(input("a", program(1)));
+        final ISpoofaxParseUnit second = cachingSyntaxService.parse(input("b", program(1)));
+        assertNotSame(first, second);
+        assertEquals(first.ast(), second.ast());
+    }
+
+    @Test public void keyDependsOnConfiguration() {
+        final ParseResultCache cache = new ParseResultCache(new ParseResultCacheConfiguration(maxCharacters));
+        final String text = program(1);
+        final ISpoofaxInputUnit implode = input("a", text, new JSGLRParserConfiguration(true, true));
+        final ISpoofaxInputUnit noImplode = input("a", text, new JSGLRParserConfiguration(false, true));
+        assertEquals(cache.key(input("a", text), null, null, null), cache.key(input("a", text), null, null, null));
+        assertNotEquals(cache.key(implode, null, null, null), cache.key(noImplode, null, null, null));
+    }
+
+    @Test public void completionIsNotCached() {
+        final ParseResultCache cache = new ParseResultCache(new ParseResultCacheConfiguration(maxCharacters));
+        final JSGLRParserConfiguration completion = new JSGLRParserConfiguration(true, true, true, 1000, 0);
+        assertNull(cache.key(input("a", program(1), completion), null, null, null));
+        assertNull(cache.key(input("a", program(1)), completion, null, null));
+    }
+
+    @Test public void disabledCacheHasNoKeys() throws ParseException {
+        final ParseResultCache cache = new ParseResultCache(new ParseResultCacheConfiguration());
+        final ParseResultCache.Key key = cache.key(input("a", program(1)), null, null, null);
+        assertNull(key);
+        cache.put(key, syntaxService.parse(input("a", program(1))));
+        assertNull(cache.get(key));
+    }
+
+    @Test public void invalidResultIsNotCached() throws ParseException {
+        final ParseResultCache cache = new ParseResultCache(new ParseResultCacheConfiguration(maxCharacters));
+        final ISpoofaxInputUnit input =
+            input("a", "}} not an entity program {{", new JSGLRParserConfiguration(true, false));
+        final ISpoofaxParseUnit result = syntaxService.parse(input);
+        assertFalse(result.valid());
+        final ParseResultCache.Key key = cache.key(input, null, null, null);
+        cache.put(key, result);
+        assertNull(cache.get(key));
+    }
+
+    @Test public void invalidateRemovesResultsOfLanguage() throws ParseException {
+        final ParseResultCache cache = new ParseResultCache(new ParseResultCacheConfiguration(maxCharacters));
+        final ISpoofaxInputUnit input = input("a", program(1));
+        final ParseResultCache.Key key = cache.key(input, null, null, null);
+        final ISpoofaxParseUnit result = syntaxService.parse(input);
+        cache.put(key, result);
+        assertSame(result, cache.get(key));
+
+        cache.invalidate(entity);
+        assertNull(cache.get(key));
+
+        cache.put(key, result);
+        cache.invalidate(entity.components().iterator().next());
+        assertNull(cache.get(key));
+
+        cache.put(key, result);
+        cache.clear();
+        assertNull(cache.get(key));
+    }
+
+
+    private ISpoofaxInputUnit input(String name, String text, JSGLRParserConfiguration config) {
+        return unitService.inputUnit(resourceService.resolve("ram:///Entity/" + name + ".ent"), text, entity, null,
+            config);
+    }
+}
@@ -0,0 +1,98 @@
+package org.metaborg.spoofax.core.test.syntax;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.vfs2.FileObject;
+import org.junit.Test;
+import org.metaborg.spoofax.core.syntax.IParseTableProvider;
+import org.metaborg.spoofax.core.syntax.ParseTableCache;
+import org.metaborg.spoofax.core.test.SpoofaxTest;
+
+public class ParseTableCacheTest extends SpoofaxTest {
+    @Test public void providersOfSameTableShareIt() throws IOException {
+        final ParseTableCache cache = new ParseTableCache();
+        final FileObject file = write("ram:///tables/sdf.tbl", "table");
+        final CountingLoader normalLoader = new CountingLoader();
+        final CountingLoader completionLoader = new CountingLoader();
+
+        final ParseTableCache.SharedProvider normal = cache.provider("jsglr1", file, normalLoader);
+        final ParseTableCache.SharedProvider completion = cache.provider("jsglr1", file, completionLoader);
+
+        assertSame(normal.parseTable(), completion.parseTable());
+        // The table is loaded by the loader of the first provider only.
+        assertEquals(0, completionLoader.calls);
+        assertEquals(1, cache.size());
+    }
+
+    @Test public void tablesOfDifferentKindsAreNotShared() throws IOException {
+        final ParseTableCache cache = new ParseTableCache();
+        final FileObject file = write("ram:///tables/sdf.tbl", "table");
+
+        final Object v1 = cache.provider("jsglr1", file, new CountingLoader()).parseTable();
+        final Object v2 = cache.provider("jsglr2", file, new CountingLoader()).parseTable();
+
+        assertNotSame(v1, v2);
+        assertEquals(2, cache.size());
+    }
+
+    @Test public void changedTableIsNotShared() throws IOException {
+        final ParseTableCache cache = new ParseTableCache();
+        final FileObject file = write("ram:///tables/sdf.tbl", "table");
+
+        final Object before = cache.provider("jsglr1", file, new CountingLoader()).parseTable();
+        write(file, "changed table");
+        final Object after = cache.provider("jsglr1", file, new CountingLoader()).parseTable();
+
+        assertNotSame(before, after);
+    }
+
+    @Test public void tableIsRemovedWhenLastProviderIsReleased() throws IOException {
+        final ParseTableCache cache = new ParseTableCache();
+        final FileObject file = write("ram:///tables/sdf.tbl", "table");
+
+        final ParseTableCache.SharedProvider first = cache.provider("jsglr1", file, new CountingLoader());
+        final ParseTableCache.SharedProvider second = cache.provider("jsglr1", file, new CountingLoader());
+        first.parseTable();
+        second.parseTable();
+
+        first.release();
+        assertEquals(1, cache.size());
+        // Releasing twice does not release the reference of another provider.
+        first.release();
+        assertEquals(1, cache.size());
+        second.release();
+        assertEquals(0, cache.size());
+    }
+
+
+    private FileObject write(String uri, String contents) throws IOException {
+        final FileObject file = resourceService.resolve(uri);
+        write(file, contents);
+        return file;
+    }
+
+    private static void write(FileObject file, String contents) throws IOException {
+        file.createFile();
+        try(final OutputStream stream = file.getContent().getOutputStream()) {
+            stream.write(contents.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+
+    private static class CountingLoader implements IParseTableProvider {
+        private final Object table = new Object();
+        private int calls = 0;
+
+
+        @Override public synchronized Object parseTable() {
+            ++calls;
+            return table;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.metaborg.spoofax.core.test.syntax;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.vfs2.FileSystemException;
+import org.junit.Before;
+import org.junit.Test;
+import org.metaborg.core.language.ILanguageComponent;
+import org.metaborg.core.language.ILanguageImpl;
+import org.metaborg.spoofax.core.syntax.ParseTablePreloader;
+import org.metaborg.spoofax.core.test.SpoofaxTest;
+
+import com.google.common.collect.Iterables;
+
+public class ParseTablePreloaderTest extends SpoofaxTest {
+    private ILanguageImpl impl1;
+    private ILanguageImpl impl2;
+
+
+    @Before public void createLanguages() throws FileSystemException {
+        impl1 = impl("Lang1");
+        impl2 = impl("Lang2");
+    }
+
+
+    @Test(timeout = 10000) public void awaitWaitsForPreload() throws InterruptedException {
+        final AtomicBoolean loaded = new AtomicBoolean(false);
+        try(final ParseTablePreloader preloader = new ParseTablePreloader(1)) {
+            preloader.schedule(impl1, () -> {
+                try {
+                    Thread.sleep(100);
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                loaded.set(true);
+            });
+            preloader.await(impl1);
+            assertTrue(loaded.get());
+        }
+    }
+
+    @Test(timeout = 10000) public void awaitWithoutPreloadReturns() throws InterruptedException {
+        try(final ParseTablePreloader preloader = new ParseTablePreloader(1)) {
+            preloader.await(impl1);
+        }
+    }
+
+    @Test(timeout = 10000) public void failedPreloadIsNotRethrown() throws InterruptedException {
+        final AtomicBoolean loaded = new AtomicBoolean(false);
+        try(final ParseTablePreloader preloader = new ParseTablePreloader(1)) {
+            preloader.schedule(impl1, () -> {
+                throw new IllegalStateException("Preloading failed");
+            });
+            preloader.await(impl1);
+
+            // The preload thread survives the failure.
+            preloader.schedule(impl1, () -> loaded.set(true));
+            preloader.await(impl1);
+            assertTrue(loaded.get());
+        }
+    }
+
+    @Test(timeout = 10000) public void reschedulingStopsRunningPreload() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean(false);
+        final AtomicBoolean reloaded = new AtomicBoolean(false);
+        try(final ParseTablePreloader preloader = new ParseTablePreloader(1)) {
+            preloader.schedule(impl1, () -> {
+                started.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                } catch(InterruptedException e) {
+                    interrupted.set(true);
+                }
+            });
+            started.await();
+
+            // Rescheduling returns only after the running preload has stopped.
+            preloader.schedule(impl1, () -> reloaded.set(true));
+            assertTrue(interrupted.get());
+
+            preloader.await(impl1);
+            assertTrue(reloaded.get());
+        }
+    }
+
+    @Test(timeout = 10000) public void cancelledPreloadNeverRuns() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean ran = new AtomicBoolean(false);
+        try(final ParseTablePreloader preloader = new ParseTablePreloader(1)) {
+            // Occupy the only preload thread, such that the preload of the second language stays scheduled.
+            preloader.schedule(impl1, () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            started.await();
+            preloader.schedule(impl2, () -> ran.set(true));
+
+            preloader.cancel(impl2);
+            // Awaiting a cancelled preload does not block.
+            preloader.await(impl2);
+
+            release.countDown();
+            preloader.await(impl1);
+            // Schedule another preload after the cancelled one on the same thread, and wait for it to observe that
+            // the cancelled preload was skipped.
+            final CountDownLatch after = new CountDownLatch(1);
+            preloader.schedule(impl1, after::countDown);
+            after.await();
+            assertFalse(ran.get());
+        }
+    }
+
+
+    private ILanguageImpl impl(String name) throws FileSystemException {
+        final ILanguageComponent component =
+            language(groupId, name.toLowerCase(), version(1, 0, 0), createDir("ram:///" + name), name);
+        return Iterables.get(component.contributesTo(), 0);
+    }
+}